@@ -2,19 +2,31 @@ package study.querydsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import study.querydsl.config.QuerydslRuntimeHints;
+import study.querydsl.outbox.OutboxWriter;
+import study.querydsl.repository.support.QueryRewriter;
+import study.querydsl.repository.support.RewritingJPAQueryFactory;
 
-@SpringBootApplication
+// R2DBC ConnectionFactory 는 R2dbcConfig 에서 만든다.
+// R2dbcTransactionManager 가 등록되면 @Transactional 이 쓸 TransactionManager 를 고를 수 없으므로 제외
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+@ImportRuntimeHints(QuerydslRuntimeHints.class)
 public class QuerydslApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(QuerydslApplication.class, args);
 	}
 
+	// QueryRewriter 가 적용되고, Member/Team 벌크 update/delete 를 outbox 에 기록하는 JPAQueryFactory (QueryRewriteConfig 참고)
 	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager em) {
-		return new JPAQueryFactory(em);
+	JPAQueryFactory jpaQueryFactory(EntityManager em, ObjectProvider<QueryRewriter> rewriters, OutboxWriter outboxWriter) {
+		return new RewritingJPAQueryFactory(em, rewriters.orderedStream().toList(), outboxWriter);
 	}
 }
@@ -0,0 +1,19 @@
+package study.querydsl.admission;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 컨트롤러 메서드의 우선순위 (AdmissionInterceptor)
+ * 붙어 있지 않은 endpoint 는 동시 실행 제한을 받지 않는다.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Admission {
+
+    Priority value();
+}
@@ -0,0 +1,20 @@
+package study.querydsl.admission;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+
+    // 대기열에서 기다린 시간이 쿼리 예산(QueryScope)에 들어가지 않도록 먼저 실행 (TenantInterceptor 다음)
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor).order(Ordered.HIGHEST_PRECEDENCE + 1);
+    }
+}
@@ -0,0 +1,177 @@
+package study.querydsl.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 우선순위별 동시 실행 제한 (admission control)
+ * 1. 동시 실행 limit 은 응답 시간에 따라 GradientLimit 이 조정한다.
+ * 2. 우선순위마다 limit 중 쓸 수 있는 비율(Priority.share)이 달라 지연이 늘어 limit 이 줄면 BULK 부터 막힌다.
+ * 3. 자리가 없으면 maxWait 동안 대기열에서 기다리고, 자리가 나면 높은 우선순위부터 들어간다.
+ * 4. 대기열이 가득 찼거나 maxWait 이 지나면 AdmissionRejectedException (503)
+ * metric: admission.rejected, admission.queue (우선순위별), admission.limit, admission.inflight
+ */
+@Component
+public class AdmissionController {
+
+    private static final Comparator<Waiter> WAITER_ORDER =
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence);
+
+    private final GradientLimit limit;
+    private final int maxQueue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(WAITER_ORDER);
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> queueTimers = new EnumMap<>(Priority.class);
+
+    private int inflight;
+    private long sequence;
+
+    public AdmissionController(MeterRegistry meterRegistry,
+                               @Value("${querydsl.admission.initial-limit:20}") int initialLimit,
+                               @Value("${querydsl.admission.min-limit:4}") int minLimit,
+                               @Value("${querydsl.admission.max-limit:200}") int maxLimit,
+                               @Value("${querydsl.admission.tolerance:1.5}") double tolerance,
+                               @Value("${querydsl.admission.max-queue:100}") int maxQueue) {
+        this.limit = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance);
+        this.maxQueue = maxQueue;
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase();
+            rejected.put(priority, Counter.builder("admission.rejected")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+            queueTimers.put(priority, Timer.builder("admission.queue")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+        }
+        meterRegistry.gauge("admission.limit", limit, GradientLimit::current);
+        meterRegistry.gauge("admission.inflight", this, AdmissionController::inflight);
+    }
+
+    public Permit acquire(Priority priority) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            // 같거나 높은 우선순위가 기다리고 있으면 새치기하지 않고, 낮은 우선순위만 기다리면 자리가 있는 한 바로 들어간다.
+            if (canAdmit(priority) && !hasWaiterAtOrAbove(priority)) {
+                return admit(priority, start);
+            }
+            long remaining = priority.maxWait().toNanos();
+            if (remaining <= 0 || waiters.size() >= maxQueue) {
+                throw reject(priority);
+            }
+
+            Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+            waiters.add(waiter);
+            try {
+                while (!waiter.granted) {
+                    if (remaining <= 0) {
+                        waiters.remove(waiter);
+                        throw reject(priority);
+                    }
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!waiter.granted) {
+                    waiters.remove(waiter);
+                    throw reject(priority);
+                }
+            }
+            // 자리를 넘겨준 release 에서 inflight 를 이미 올렸다.
+            queueTimers.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Permit(priority, System.nanoTime(), inflight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(Permit permit) {
+        long rtt = System.nanoTime() - permit.startNanos();
+        limit.onSample(rtt, permit.inflight());
+        lock.lock();
+        try {
+            inflight--;
+            // 높은 우선순위부터, 그 우선순위가 들어갈 수 없으면 뒤는 보지 않는다. (낮은 순위가 끼어들지 않도록)
+            while (!waiters.isEmpty() && canAdmit(waiters.peek().priority)) {
+                Waiter waiter = waiters.poll();
+                waiter.granted = true;
+                inflight++;
+                waiter.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        return limit.current();
+    }
+
+    public int inflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit(Priority priority) {
+        int allowed = Math.max(1, (int) (limit.current() * priority.share()));
+        return inflight < allowed;
+    }
+
+    // waiters 는 높은 우선순위가 앞에 온다.
+    private boolean hasWaiterAtOrAbove(Priority priority) {
+        Waiter head = waiters.peek();
+        return head != null && head.priority.compareTo(priority) <= 0;
+    }
+
+    private Permit admit(Priority priority, long start) {
+        inflight++;
+        queueTimers.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit(priority, System.nanoTime(), inflight);
+    }
+
+    private AdmissionRejectedException reject(Priority priority) {
+        rejected.get(priority).increment();
+        return new AdmissionRejectedException(priority + " request rejected (limit " + limit.current()
+                + ", inflight " + inflight + ")");
+    }
+
+    public record Permit(Priority priority, long startNanos, int inflight) {
+    }
+
+    private static final class Waiter {
+        private final Priority priority;
+        private final long sequence;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Priority priority, long sequence, Condition condition) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+
+        Priority priority() {
+            return priority;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+    }
+}
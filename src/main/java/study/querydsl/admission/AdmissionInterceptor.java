@@ -0,0 +1,45 @@
+package study.querydsl.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * @Admission 이 붙은 endpoint 는 AdmissionController 의 자리를 얻어야 실행된다.
+ * 자리는 요청이 끝날 때 반납한다. (Callable endpoint 는 async 처리까지 끝난 뒤)
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionController.Permit.class.getName();
+
+    private final AdmissionController admissionController;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Admission admission = handlerMethod.getMethodAnnotation(Admission.class);
+        // async 재dispatch 때는 이미 자리를 갖고 있다.
+        if (admission == null || request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, admissionController.acquire(admission.value()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        AdmissionController.Permit permit = (AdmissionController.Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            admissionController.release(permit);
+        }
+    }
+}
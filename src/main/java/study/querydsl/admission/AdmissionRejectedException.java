@@ -0,0 +1,12 @@
+package study.querydsl.admission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class AdmissionRejectedException extends RuntimeException {
+
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
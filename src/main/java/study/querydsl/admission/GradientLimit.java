@@ -0,0 +1,59 @@
+package study.querydsl.admission;
+
+/**
+ * 응답 시간 기울기로 동시 실행 limit 을 조정한다. (Netflix concurrency-limits 의 Gradient2 방식)
+ * 1. 장기 평균 응답 시간(longRtt) 대비 이번 응답 시간이 tolerance 배 이내면 limit 을 늘리고 (+ sqrt(limit))
+ * 2. 그보다 느려지면 비율(gradient, 최소 0.5)만큼 줄인다.
+ * 3. 실행 중인 요청이 limit 절반도 안 되면 늘리지 않는다. (부하가 없어서 빠른 것일 뿐)
+ * 값이 튀지 않도록 smoothing 비율로 섞는다.
+ */
+public class GradientLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private double estimatedLimit;
+    private double longRtt;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimatedLimit = initialLimit;
+    }
+
+    public synchronized int current() {
+        return (int) estimatedLimit;
+    }
+
+    /**
+     * @param rttNanos 요청 하나의 실행 시간
+     * @param inflight 요청이 시작될 때 실행 중이던 요청 수
+     */
+    public synchronized int onSample(long rttNanos, int inflight) {
+        double rtt = Math.max(rttNanos, 1);
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) * 2 / (LONG_WINDOW + 1);
+        }
+        // 부하가 빠진 뒤 장기 평균이 너무 높게 남아 있으면 빨리 따라 내려온다.
+        if (longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        if (inflight < estimatedLimit / 2) {
+            return (int) estimatedLimit;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        return (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.admission;
+
+import java.time.Duration;
+
+/**
+ * endpoint 우선순위
+ * share: 동시 실행 limit 중 쓸 수 있는 비율 (낮은 순위는 limit 이 줄면 먼저 막힌다.)
+ * maxWait: 자리가 없을 때 기다리는 최대 시간, 0 이면 바로 거절
+ */
+public enum Priority {
+
+    // 단건 조회 (findById 등)
+    INTERACTIVE(1.0, Duration.ofMillis(100)),
+    // 페이징 검색
+    SEARCH(0.8, Duration.ofMillis(500)),
+    // 전체 조회, export
+    BULK(0.5, Duration.ZERO);
+
+    private final double share;
+    private final Duration maxWait;
+
+    Priority(double share, Duration maxWait) {
+        this.share = share;
+        this.maxWait = maxWait;
+    }
+
+    public double share() {
+        return share;
+    }
+
+    public Duration maxWait() {
+        return maxWait;
+    }
+}
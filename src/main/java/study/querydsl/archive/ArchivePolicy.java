@@ -0,0 +1,14 @@
+package study.querydsl.archive;
+
+import com.querydsl.core.types.Predicate;
+
+/**
+ * 보관할 회원 조건 (QMember 기준 Querydsl Predicate)
+ * MemberArchiveJob 이 주기마다 호출하므로 시각 기준 조건은 호출 시점에 만들면 된다.
+ * 기본 정책은 없다. 실제 데이터를 옮기므로 MemberArchiveJob 을 켜려면 빈으로 직접 등록해야 한다.
+ */
+@FunctionalInterface
+public interface ArchivePolicy {
+
+    Predicate archiveCondition();
+}
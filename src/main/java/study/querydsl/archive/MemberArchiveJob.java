@@ -0,0 +1,35 @@
+package study.querydsl.archive;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.tenant.TenantContext;
+
+/**
+ * ArchivePolicy 조건에 맞는 회원을 주기적으로 보관 (querydsl.archive.enabled=true 일 때만)
+ * 모든 tenant 를 한 번에 처리한다.
+ * ArchivePolicy 빈이 없으면 기동에 실패한다. (잘못된 기본 조건으로 옮기지 않도록)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "querydsl.archive.enabled", havingValue = "true")
+public class MemberArchiveJob {
+
+    private final MemberArchiver memberArchiver;
+    private final ArchivePolicy archivePolicy;
+
+    @Scheduled(cron = "${querydsl.archive.cron:0 0 4 * * *}")
+    public void run() {
+        String previous = TenantContext.bind(TenantContext.ALL);
+        try {
+            memberArchiver.archive(archivePolicy.archiveCondition());
+        } catch (RuntimeException e) {
+            log.warn("member archive failed, retry next time", e);
+        } finally {
+            TenantContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package study.querydsl.archive;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.CacheInvalidation;
+import study.querydsl.cache.CacheInvalidationBus;
+import study.querydsl.cache.MemberLookupCache;
+import study.querydsl.dto.ArchiveResult;
+import study.querydsl.outbox.OutboxListener;
+import study.querydsl.outbox.OutboxWriter;
+import study.querydsl.repository.UsernameIndex;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 조건(Predicate)에 맞는 회원을 member 에서 member_archive 로 옮긴다.
+ * 1. id 순으로 chunk-size 명씩 골라 chunk 마다 트랜잭션 하나로 insert ... select 후 delete
+ * 2. chunk 사이에 pause-ms 만큼 쉬어 운영 트래픽과 커넥션, 락을 나눠 쓴다.
+ * 3. 엔티티 리스너를 거치지 않으므로 UsernameIndex, MemberLookupCache, outbox(DELETED)에 직접 반영
+ * 조건은 현재 TenantContext 안에서 조회하므로 다른 tenant 회원은 옮기지 않는다. (전체는 TenantContext.ALL)
+ * chunk 는 항상 새 트랜잭션(REQUIRES_NEW)으로 커밋한다. 호출한 쪽에 트랜잭션이 있어도 합쳐지지 않으며,
+ * 그 트랜잭션에서 아직 커밋하지 않은 회원은 보이지 않는다.
+ * 색인, 캐시 반영은 chunk 트랜잭션의 afterCommit 에서 하므로 롤백된 chunk 는 반영되지 않는다.
+ * 중간에 실패해도 이미 옮긴 chunk 는 남고, 다시 실행하면 남은 회원부터 옮긴다.
+ */
+@Slf4j
+@Component
+public class MemberArchiver {
+
+    private static final String COLUMNS = "member_id, tenant_id, username, username_lower, age, version, team_id";
+
+    private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UsernameIndex usernameIndex;
+    private final MemberLookupCache memberLookupCache;
+    private final ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+    private final OutboxWriter outboxWriter;
+    private final Counter archivedCounter;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    public MemberArchiver(JPAQueryFactory queryFactory,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          UsernameIndex usernameIndex,
+                          MemberLookupCache memberLookupCache,
+                          ObjectProvider<CacheInvalidationBus> cacheInvalidationBus,
+                          OutboxWriter outboxWriter,
+                          MeterRegistry meterRegistry,
+                          @Value("${querydsl.archive.chunk-size:500}") int chunkSize,
+                          @Value("${querydsl.archive.pause-ms:100}") long pauseMillis) {
+        this.queryFactory = queryFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.usernameIndex = usernameIndex;
+        this.memberLookupCache = memberLookupCache;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.outboxWriter = outboxWriter;
+        this.archivedCounter = Counter.builder("member.archived")
+                .description("member_archive 로 옮긴 회원 수")
+                .register(meterRegistry);
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    public ArchiveResult archive(Predicate condition) {
+        long start = System.currentTimeMillis();
+        long archived = 0;
+        int chunks = 0;
+        Long lastId = 0L;
+        while (true) {
+            Long from = lastId;
+            List<Tuple> moved = transactionTemplate.execute(status -> archiveChunk(condition, from));
+            if (moved.isEmpty()) {
+                break;
+            }
+            archived += moved.size();
+            chunks++;
+            archivedCounter.increment(moved.size());
+            if (moved.size() < chunkSize) {
+                break;
+            }
+            lastId = moved.get(moved.size() - 1).get(member.id);
+            if (!pause()) {
+                log.info("member archive interrupted: {} members in {} chunks", archived, chunks);
+                return new ArchiveResult(archived, chunks, System.currentTimeMillis() - start, false);
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("member archive: {} members in {} chunks, {} ms", archived, chunks, elapsed);
+        return new ArchiveResult(archived, chunks, elapsed, true);
+    }
+
+    private List<Tuple> archiveChunk(Predicate condition, Long lastId) {
+        // offset 대신 id 기준으로 끊어 읽는다. (앞에서 지운 행 때문에 건너뛰지 않도록)
+        List<Tuple> rows = queryFactory
+                .select(member.id, member.tenantId, member.username)
+                .from(member)
+                .where(condition, member.id.gt(lastId))
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+        if (rows.isEmpty()) {
+            return rows;
+        }
+
+        List<Object> ids = new ArrayList<>(rows.size());
+        Map<Long, Map<String, Object>> events = new HashMap<>();
+        for (Tuple row : rows) {
+            Long id = row.get(member.id);
+            ids.add(id);
+            events.put(id, Map.of("id", id, "archived", true));
+        }
+        String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+
+        List<Object> insertArgs = new ArrayList<>(ids.size() + 1);
+        insertArgs.add(Timestamp.valueOf(LocalDateTime.now()));
+        insertArgs.addAll(ids);
+        jdbcTemplate.update("insert into member_archive (" + COLUMNS + ", archived_at) " +
+                "select " + COLUMNS + ", ? from member where member_id in (" + in + ")", insertArgs.toArray());
+        jdbcTemplate.update("delete from member where member_id in (" + in + ")", ids.toArray());
+        outboxWriter.recordAll(OutboxWriter.MEMBER, OutboxListener.DELETED, events);
+
+        // UsernameIndex 는 이 트랜잭션에 모아 두었다가 커밋 후 반영한다.
+        for (Tuple row : rows) {
+            usernameIndex.remove(row.get(member.tenantId), row.get(member.id));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateCaches(rows);
+            }
+        });
+        return rows;
+    }
+
+    // 커밋된 chunk 만 캐시에서 뺀다. (다른 노드의 id 캐시는 outbox DELETED 이벤트로 무효화된다.)
+    private void invalidateCaches(List<Tuple> moved) {
+        CacheInvalidationBus bus = cacheInvalidationBus.getIfAvailable();
+        for (Tuple row : moved) {
+            String tenant = row.get(member.tenantId);
+            Long id = row.get(member.id);
+            String username = row.get(member.username);
+            memberLookupCache.invalidateMember(tenant, id);
+            memberLookupCache.invalidateUsername(tenant, username);
+            if (bus != null) {
+                bus.publish(CacheInvalidation.MEMBER_USERNAME, CacheInvalidation.tenantKey(tenant, username),
+                        CacheInvalidation.UNVERSIONED);
+            }
+        }
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
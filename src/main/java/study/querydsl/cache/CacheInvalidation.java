@@ -0,0 +1,39 @@
+package study.querydsl.cache;
+
+/**
+ * 다른 노드로 전달되는 캐시 무효화 메시지
+ * version 은 엔티티 @Version 값이다. 이미 더 높은 version 을 적용했다면 늦게 도착한 메시지는 무시한다.
+ * version 을 알 수 없는 경우(username, 벌크 update) UNVERSIONED 로 보내며 항상 적용한다.
+ * key 는 "tenant:id" 처럼 tenant 를 앞에 붙인다. tenant 를 모르는 벌크 변경(outbox)은 id 만 보낸다.
+ */
+public record CacheInvalidation(String region, String key, long version, String origin) {
+
+    public static final String MEMBER = "member";
+    public static final String MEMBER_USERNAME = "member-username";
+    public static final String TEAM = "team";
+
+    public static final long UNVERSIONED = -1L;
+
+    public static String tenantKey(String tenant, Object key) {
+        return tenant + ":" + key;
+    }
+
+    // tenant 가 없으면 null (tenant id 에는 ':' 가 없다.)
+    public static String tenantOf(String key) {
+        int index = key.indexOf(':');
+        return index < 0 ? null : key.substring(0, index);
+    }
+
+    public static String localKeyOf(String key) {
+        return key.substring(key.indexOf(':') + 1);
+    }
+
+    public boolean isVersioned() {
+        return version != UNVERSIONED;
+    }
+
+    // 같은 key 를 여러 번 무효화하면 마지막 하나만 보낸다.
+    static CacheInvalidation newer(CacheInvalidation a, CacheInvalidation b) {
+        return a.version >= b.version ? a : b;
+    }
+}
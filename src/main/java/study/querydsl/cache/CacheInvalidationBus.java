@@ -0,0 +1,128 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 노드 간 캐시 무효화 전달
+ * 1. publish 는 바로 보내지 않고 모아서 flush 때 한 번에 보낸다. (같은 key 는 가장 높은 version 하나만)
+ * 2. 받은 메시지 중 자기 노드가 보낸 것과 이미 적용한 version 이하인 것은 무시한다.
+ * 3. region 별 handler 는 onInvalidate 로 등록 (CacheInvalidationConfig 참고)
+ * 로컬 캐시는 MemberCacheListener 가 바로 지우므로 여기서는 다른 노드만 다룬다.
+ */
+@Slf4j
+public class CacheInvalidationBus {
+
+    private final InvalidationTransport transport;
+    private final String nodeId;
+    private final Map<RegionKey, CacheInvalidation> pending = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+    // region, key 별로 마지막에 적용한 version
+    private final Cache<RegionKey, Long> appliedVersions;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+
+    public CacheInvalidationBus(InvalidationTransport transport, String nodeId, Duration versionRetention) {
+        this.transport = transport;
+        this.nodeId = nodeId;
+        this.appliedVersions = Caffeine.newBuilder()
+                .expireAfterWrite(versionRetention)
+                .build();
+        transport.subscribe(this::receive);
+    }
+
+    public void onInvalidate(String region, Consumer<String> handler) {
+        handlers.put(region, handler);
+    }
+
+    public void publish(String region, Object key, long version) {
+        CacheInvalidation invalidation = new CacheInvalidation(region, String.valueOf(key), version, nodeId);
+        pending.merge(new RegionKey(invalidation.region(), invalidation.key()), invalidation, CacheInvalidation::newer);
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.cache-bus.flush-interval-ms:50}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<CacheInvalidation> batch = new ArrayList<>(pending.size());
+        for (RegionKey key : pending.keySet()) {
+            CacheInvalidation invalidation = pending.remove(key);
+            if (invalidation != null) {
+                batch.add(invalidation);
+            }
+        }
+        try {
+            transport.publish(batch);
+            published.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            // 다음 flush 때 다시 보낸다.
+            log.warn("cache invalidation publish failed, batch={}", batch.size(), e);
+            batch.forEach(invalidation -> pending.merge(new RegionKey(invalidation.region(), invalidation.key()),
+                    invalidation, CacheInvalidation::newer));
+        }
+    }
+
+    void receive(List<CacheInvalidation> batch) {
+        for (CacheInvalidation invalidation : batch) {
+            if (nodeId.equals(invalidation.origin())) {
+                continue;
+            }
+            if (!markApplied(invalidation)) {
+                stale.incrementAndGet();
+                continue;
+            }
+            Consumer<String> handler = handlers.get(invalidation.region());
+            if (handler != null) {
+                handler.accept(invalidation.key());
+                applied.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean markApplied(CacheInvalidation invalidation) {
+        if (!invalidation.isVersioned()) {
+            return true;
+        }
+        boolean[] newer = {false};
+        appliedVersions.asMap().compute(new RegionKey(invalidation.region(), invalidation.key()), (key, version) -> {
+            if (version == null || version < invalidation.version()) {
+                newer[0] = true;
+                return invalidation.version();
+            }
+            return version;
+        });
+        return newer[0];
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getAppliedCount() {
+        return applied.get();
+    }
+
+    public long getStaleCount() {
+        return stale.get();
+    }
+
+    private record RegionKey(String region, String key) {
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.repository.UsernameIndex;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * querydsl.cache-bus.transport (jdbc, memory) 를 지정하면 노드 간 캐시 무효화를 켠다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.cache-bus", name = "transport")
+public class CacheInvalidationConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "querydsl.cache-bus", name = "transport", havingValue = "jdbc")
+    JdbcInvalidationTransport jdbcInvalidationTransport(
+            JdbcTemplate jdbcTemplate,
+            @Value("${querydsl.cache-bus.jdbc.lookback-seconds:10}") long lookbackSeconds,
+            @Value("${querydsl.cache-bus.jdbc.retention-seconds:300}") long retentionSeconds) {
+        return new JdbcInvalidationTransport(jdbcTemplate,
+                Duration.ofSeconds(lookbackSeconds), Duration.ofSeconds(retentionSeconds));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "querydsl.cache-bus", name = "transport", havingValue = "memory")
+    InMemoryInvalidationTransport inMemoryInvalidationTransport() {
+        return new InMemoryInvalidationTransport();
+    }
+
+    @Bean
+    CacheInvalidationBus cacheInvalidationBus(
+            InvalidationTransport transport,
+            MemberLookupCache memberLookupCache,
+            UsernameIndex usernameIndex,
+            MeterRegistry meterRegistry,
+            @Value("${querydsl.cache-bus.node-id:}") String nodeId,
+            @Value("${querydsl.cache-bus.version-retention-seconds:600}") long versionRetentionSeconds) {
+        CacheInvalidationBus bus = new CacheInvalidationBus(transport,
+                nodeId.isEmpty() ? UUID.randomUUID().toString() : nodeId,
+                Duration.ofSeconds(versionRetentionSeconds));
+
+        bus.onInvalidate(CacheInvalidation.MEMBER, key -> {
+            String tenant = CacheInvalidation.tenantOf(key);
+            Long id = Long.valueOf(CacheInvalidation.localKeyOf(key));
+            if (tenant != null) {
+                memberLookupCache.invalidateMember(tenant, id);
+            } else {
+                memberLookupCache.invalidateMember(id);
+            }
+            // 다른 노드의 변경을 username 색인에도 반영
+            usernameIndex.refresh(id);
+        });
+        bus.onInvalidate(CacheInvalidation.MEMBER_USERNAME, key -> memberLookupCache.invalidateUsername(
+                CacheInvalidation.tenantOf(key), CacheInvalidation.localKeyOf(key)));
+        bus.onInvalidate(CacheInvalidation.TEAM, key -> {
+            String tenant = CacheInvalidation.tenantOf(key);
+            if (tenant != null) {
+                memberLookupCache.invalidateTenant(tenant);
+            } else {
+                memberLookupCache.invalidateAll();
+            }
+        });
+
+        FunctionCounter.builder("cache.invalidation.published", bus, CacheInvalidationBus::getPublishedCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.invalidation.applied", bus, CacheInvalidationBus::getAppliedCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.invalidation.stale", bus, CacheInvalidationBus::getStaleCount)
+                .description("이미 더 높은 version 을 적용해서 무시한 메시지")
+                .register(meterRegistry);
+        return bus;
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 같은 JVM 안에서만 전달 (테스트, 로컬 개발용, querydsl.cache-bus.transport=memory)
+ * 하나의 transport 를 여러 CacheInvalidationBus 가 공유하면 여러 노드처럼 동작한다.
+ */
+public class InMemoryInvalidationTransport implements InvalidationTransport {
+
+    private final List<Consumer<List<CacheInvalidation>>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<CacheInvalidation> batch) {
+        List<CacheInvalidation> copy = List.copyOf(batch);
+        for (Consumer<List<CacheInvalidation>> receiver : receivers) {
+            receiver.accept(copy);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<List<CacheInvalidation>> receiver) {
+        receivers.add(receiver);
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.cache;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CacheInvalidationBus 의 노드 간 전달 방식
+ * 자기 노드가 보낸 메시지도 받을 수 있으며, 걸러내는 것은 CacheInvalidationBus 가 한다.
+ */
+public interface InvalidationTransport {
+
+    void publish(List<CacheInvalidation> batch);
+
+    void subscribe(Consumer<List<CacheInvalidation>> receiver);
+}
@@ -0,0 +1,102 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 공유 DB 의 cache_invalidation 테이블로 전달 (querydsl.cache-bus.transport=jdbc)
+ * 별도 인프라 없이 모든 노드가 같은 테이블을 주기적으로 읽는다.
+ * IDENTITY 값은 커밋 순서와 다를 수 있으므로 마지막 id 가 아니라 lookback 시간만큼 겹쳐 읽고, 읽은 id 는 걸러낸다.
+ * created_at 과 읽는 기준 시각은 모두 DB 시각(current_timestamp)을 쓴다. (노드마다 JVM 시계가 어긋나도 놓치지 않도록)
+ */
+@Slf4j
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+    private static final String INSERT =
+            "insert into cache_invalidation (region, cache_key, version, origin, created_at)" +
+            " values (?, ?, ?, ?, current_timestamp)";
+    private static final String SELECT =
+            "select cache_invalidation_id, region, cache_key, version, origin from cache_invalidation" +
+            " where created_at >= ? order by cache_invalidation_id";
+    private static final String PURGE = "delete from cache_invalidation where created_at < ?";
+    private static final String NOW = "select current_timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration lookback;
+    private final Duration retention;
+    private final List<Consumer<List<CacheInvalidation>>> receivers = new CopyOnWriteArrayList<>();
+    private final Cache<Long, Boolean> delivered;
+    // 마지막으로 읽은 DB 시각 (처음에는 첫 poll 시각)
+    private volatile Timestamp lastPolledAt;
+
+    public JdbcInvalidationTransport(JdbcTemplate jdbcTemplate, Duration lookback, Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lookback = lookback;
+        this.retention = retention;
+        this.delivered = Caffeine.newBuilder()
+                .expireAfterWrite(lookback.multipliedBy(2))
+                .build();
+    }
+
+    @Override
+    public void publish(List<CacheInvalidation> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (CacheInvalidation invalidation : batch) {
+            rows.add(new Object[]{invalidation.region(), invalidation.key(), invalidation.version(),
+                    invalidation.origin()});
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    @Override
+    public void subscribe(Consumer<List<CacheInvalidation>> receiver) {
+        receivers.add(receiver);
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.cache-bus.jdbc.poll-interval-ms:200}")
+    public void poll() {
+        Timestamp polledAt = dbNow();
+        Timestamp since = lastPolledAt != null ? lastPolledAt : polledAt;
+        List<CacheInvalidation> batch = new ArrayList<>();
+        jdbcTemplate.query(SELECT, rs -> {
+            long id = rs.getLong("cache_invalidation_id");
+            if (delivered.asMap().putIfAbsent(id, Boolean.TRUE) == null) {
+                batch.add(new CacheInvalidation(rs.getString("region"), rs.getString("cache_key"),
+                        rs.getLong("version"), rs.getString("origin")));
+            }
+        }, minus(since, lookback));
+        lastPolledAt = polledAt;
+
+        if (!batch.isEmpty()) {
+            for (Consumer<List<CacheInvalidation>> receiver : receivers) {
+                receiver.accept(batch);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.cache-bus.jdbc.purge-interval-ms:60000}")
+    public void purge() {
+        int purged = jdbcTemplate.update(PURGE, minus(dbNow(), retention));
+        if (purged > 0) {
+            log.debug("purged {} cache invalidations", purged);
+        }
+    }
+
+    private Timestamp dbNow() {
+        return jdbcTemplate.queryForObject(NOW, Timestamp.class);
+    }
+
+    private static Timestamp minus(Timestamp timestamp, Duration duration) {
+        return Timestamp.valueOf(timestamp.toLocalDateTime().minus(duration));
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.cache;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.outbox.ChangeEvent;
+import study.querydsl.outbox.OutboxWriter;
+
+/**
+ * Member, Team 변경 시 MemberLookupCache 무효화
+ * 변경 직후 한 번, 트랜잭션이 끝난 뒤 한 번 더 지운다.
+ * (커밋 전에 다른 스레드가 이전 값을 다시 읽어 캐시에 넣는 경우 방지)
+ * 벌크 update (write-behind, updateAgeIfVersionMatches) 는 리스너를 거치지 않으므로 outbox ChangeEvent 로 무효화한다.
+ * CacheInvalidationBus 가 있으면 커밋된 변경만 다른 노드에도 알린다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberCacheListener {
+
+    private final ObjectProvider<MemberLookupCache> memberLookupCache;
+    private final ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+
+    @PostPersist
+    @PostUpdate
+    public void evict(Object entity) {
+        handle(entity, false);
+    }
+
+    // 삭제는 version 이 오르지 않으므로 version 없이 보낸다. (마지막 수정과 같은 version 이라 무시되지 않도록)
+    @PostRemove
+    public void evictRemoved(Object entity) {
+        handle(entity, true);
+    }
+
+    private void handle(Object entity, boolean removed) {
+        Runnable evict = evictAction(entity);
+        if (evict == null) {
+            return;
+        }
+        Runnable publish = publishAction(entity, removed);
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                    if (status == STATUS_COMMITTED) {
+                        publish.run();
+                    }
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    @EventListener
+    public void onChange(ChangeEvent event) {
+        MemberLookupCache cache = memberLookupCache.getObject();
+        CacheInvalidationBus bus = cacheInvalidationBus.getIfAvailable();
+        if (OutboxWriter.MEMBER.equals(event.aggregateType())) {
+            cache.invalidateMember(event.aggregateId());
+            if (bus != null) {
+                bus.publish(CacheInvalidation.MEMBER, event.aggregateId(), CacheInvalidation.UNVERSIONED);
+            }
+        } else if (OutboxWriter.TEAM.equals(event.aggregateType())) {
+            cache.invalidateAll();
+            if (bus != null) {
+                bus.publish(CacheInvalidation.TEAM, event.aggregateId(), CacheInvalidation.UNVERSIONED);
+            }
+        }
+    }
+
+    private Runnable evictAction(Object entity) {
+        MemberLookupCache cache = memberLookupCache.getObject();
+        if (entity instanceof Member member) {
+            String tenant = member.getTenantId();
+            Long id = member.getId();
+            String username = member.getUsername();
+            return () -> {
+                cache.invalidateMember(tenant, id);
+                cache.invalidateUsername(tenant, username);
+            };
+        }
+        if (entity instanceof Team team) {
+            String tenant = team.getTenantId();
+            return () -> cache.invalidateTenant(tenant);
+        }
+        return null;
+    }
+
+    private Runnable publishAction(Object entity, boolean removed) {
+        CacheInvalidationBus bus = cacheInvalidationBus.getIfAvailable();
+        if (bus == null) {
+            return () -> {
+            };
+        }
+        if (entity instanceof Member member) {
+            String id = CacheInvalidation.tenantKey(member.getTenantId(), member.getId());
+            long version = removed ? CacheInvalidation.UNVERSIONED : versionOf(member.getVersion());
+            String username = CacheInvalidation.tenantKey(member.getTenantId(), member.getUsername());
+            return () -> {
+                bus.publish(CacheInvalidation.MEMBER, id, version);
+                bus.publish(CacheInvalidation.MEMBER_USERNAME, username, CacheInvalidation.UNVERSIONED);
+            };
+        }
+        Team team = (Team) entity;
+        String id = CacheInvalidation.tenantKey(team.getTenantId(), team.getId());
+        long version = removed ? CacheInvalidation.UNVERSIONED : versionOf(team.getVersion());
+        return () -> bus.publish(CacheInvalidation.TEAM, id, version);
+    }
+
+    private static long versionOf(Long version) {
+        return version != null ? version : CacheInvalidation.UNVERSIONED;
+    }
+}
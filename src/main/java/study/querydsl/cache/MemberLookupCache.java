@@ -0,0 +1,193 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.tenant.TenantContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * MemberJpaRepository 의 findById, findByUsername 앞에 두는 near-cache (Caffeine, W-TinyLFU)
+ * 조회는 repository 의 DTO 조회(findMemberTeamById, findMemberTeamByUsername)를 감싸고,
+ * 저장, 삭제도 이 클래스를 거치면 repository 에 맡긴 뒤 해당 항목을 바로, 그리고 트랜잭션이 끝난 뒤 한 번 더 지운다.
+ * 1. 엔티티가 아닌 MemberTeamDto 스냅샷을 캐시한다. (영속성 컨텍스트 밖에서 여러 스레드가 공유하므로 수정 금지)
+ * 2. 없는 회원도 짧은 TTL 로 캐시 (negative-ttl-seconds)
+ * 3. refresh-seconds 가 지난 뒤 조회되면 이전 값을 돌려주고 백그라운드로 다시 읽는다. (자주 조회되는 key 만 갱신됨)
+ * 4. 다른 경로의 변경은 MemberCacheListener (엔티티 변경), 벌크 변경은 outbox ChangeEvent 로 무효화
+ * 5. key 는 (tenant, id|username) 이며 tenant 단위로 무효화할 수 있다. 전체 tenant 조회(ALL)는 캐시하지 않는다.
+ * hit/miss/load 시간은 cache.member.* metric 으로 노출
+ */
+@Component
+public class MemberLookupCache {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LoadingCache<TenantKey<Long>, Optional<MemberTeamDto>> byId;
+    private final LoadingCache<TenantKey<String>, List<MemberTeamDto>> byUsername;
+
+    public MemberLookupCache(MemberJpaRepository memberJpaRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${querydsl.member-cache.max-size:10000}") long maxSize,
+                             @Value("${querydsl.member-cache.ttl-seconds:600}") long ttlSeconds,
+                             @Value("${querydsl.member-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                             @Value("${querydsl.member-cache.refresh-seconds:60}") long refreshSeconds) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        Duration negativeTtl = Duration.ofSeconds(negativeTtlSeconds);
+        Duration refresh = Duration.ofSeconds(refreshSeconds);
+
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new HitOrMissExpiry<TenantKey<Long>, Optional<MemberTeamDto>>(ttl, negativeTtl, Optional::isEmpty))
+                .refreshAfterWrite(refresh)
+                .recordStats()
+                .build(this::loadById);
+        this.byUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new HitOrMissExpiry<TenantKey<String>, List<MemberTeamDto>>(ttl, negativeTtl, List::isEmpty))
+                .refreshAfterWrite(refresh)
+                .recordStats()
+                .build(this::loadByUsername);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "member.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byUsername, "member.byUsername");
+    }
+
+    public Optional<MemberTeamDto> findById(Long id) {
+        if (TenantContext.isAll()) {
+            return loadById(new TenantKey<>(TenantContext.ALL, id));
+        }
+        return byId.get(new TenantKey<>(TenantContext.current(), id));
+    }
+
+    public List<MemberTeamDto> findByUsername(String username) {
+        if (TenantContext.isAll()) {
+            return loadByUsername(new TenantKey<>(TenantContext.ALL, username));
+        }
+        return byUsername.get(new TenantKey<>(TenantContext.current(), username));
+    }
+
+    public void save(Member member) {
+        memberJpaRepository.save(member);
+        evictOnCompletion(member);
+    }
+
+    public void delete(Member member) {
+        memberJpaRepository.delete(member);
+        evictOnCompletion(member);
+    }
+
+    public void invalidateMember(String tenant, Long id) {
+        byId.invalidate(new TenantKey<>(tenant, id));
+        // 이전 username 을 알 수 없으므로 해당 회원이 들어있는 항목을 모두 지운다.
+        byUsername.asMap().entrySet().removeIf(entry -> entry.getKey().tenant().equals(tenant)
+                && entry.getValue().stream().anyMatch(dto -> id.equals(dto.getMemberId())));
+    }
+
+    // tenant 를 모르는 경우 (outbox 벌크 변경)
+    public void invalidateMember(Long id) {
+        byId.asMap().keySet().removeIf(key -> id.equals(key.key()));
+        byUsername.asMap().entrySet().removeIf(entry ->
+                entry.getValue().stream().anyMatch(dto -> id.equals(dto.getMemberId())));
+    }
+
+    public void invalidateUsername(String tenant, String username) {
+        byUsername.invalidate(new TenantKey<>(tenant, username));
+    }
+
+    // 팀 이름이 바뀌면 스냅샷의 teamName 이 모두 달라지므로 해당 tenant 전체 무효화
+    public void invalidateTenant(String tenant) {
+        byId.asMap().keySet().removeIf(key -> key.tenant().equals(tenant));
+        byUsername.asMap().keySet().removeIf(key -> key.tenant().equals(tenant));
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        byUsername.invalidateAll();
+    }
+
+    // flush 전에 다른 요청이 이전 값을 다시 캐시에 넣을 수 있으므로 트랜잭션이 끝난 뒤 한 번 더 지운다.
+    private void evictOnCompletion(Member member) {
+        String tenant = member.getTenantId();
+        Long id = member.getId();
+        String username = member.getUsername();
+        Runnable evict = () -> {
+            if (id != null) {
+                invalidateMember(tenant, id);
+            }
+            invalidateUsername(tenant, username);
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private Optional<MemberTeamDto> loadById(TenantKey<Long> key) {
+        return loadInTenant(key.tenant(), () -> memberJpaRepository.findMemberTeamById(key.key()));
+    }
+
+    private List<MemberTeamDto> loadByUsername(TenantKey<String> key) {
+        return loadInTenant(key.tenant(), () -> memberJpaRepository.findMemberTeamByUsername(key.key()));
+    }
+
+    // refresh 는 다른 스레드(ForkJoinPool)에서 실행되므로 key 의 tenant 를 직접 bind 한다.
+    private <T> T loadInTenant(String tenant, Supplier<T> load) {
+        String previous = TenantContext.bind(tenant);
+        try {
+            return readOnlyTransaction.execute(status -> load.get());
+        } finally {
+            TenantContext.restore(previous);
+        }
+    }
+
+    private record TenantKey<K>(String tenant, K key) {
+    }
+
+    /**
+     * 조회 결과가 있으면 ttl, 없으면 negativeTtl 동안 유지
+     */
+    private record HitOrMissExpiry<K, V>(Duration ttl, Duration negativeTtl, Predicate<V> isMiss)
+            implements Expiry<K, V> {
+
+        @Override
+        public long expireAfterCreate(K key, V value, long currentTime) {
+            return (isMiss.test(value) ? negativeTtl : ttl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Hibernate 쿼리 플랜 캐시, JDBC PreparedStatement 캐시 크기 설정
+ * - querydsl.cache.plan-cache-size : HQL 파싱/SQL 변환 결과 캐시 크기
+ * - querydsl.cache.statement-cache-size : 커넥션당 PreparedStatement 캐시 크기 (MySQL)
+ * application.yml 에 hibernate 설정을 직접 넣은 경우 그 값이 우선한다.
+ */
+@Configuration
+public class QueryPlanCacheConfig {
+
+    public static final String PLAN_CACHE_MAX_SIZE = "hibernate.query.plan_cache_max_size";
+
+    @Bean
+    HibernatePropertiesCustomizer queryPlanCacheCustomizer(Environment env) {
+        String planCacheSize = env.getProperty("querydsl.cache.plan-cache-size", "2048");
+        return hibernateProperties -> {
+            hibernateProperties.putIfAbsent("hibernate.query.plan_cache_enabled", "true");
+            hibernateProperties.putIfAbsent(PLAN_CACHE_MAX_SIZE, planCacheSize);
+        };
+    }
+
+    // BeanPostProcessor 는 static 으로 등록해야 다른 Bean 보다 먼저 생성된다.
+    @Bean
+    static BeanPostProcessor statementCachePostProcessor() {
+        return new StatementCachePostProcessor();
+    }
+
+    static class StatementCachePostProcessor implements BeanPostProcessor, EnvironmentAware {
+
+        private Environment env;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            this.env = environment;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+            // p6spy 가 감싸기 전, 풀이 시작되기 전에만 설정 가능
+            if (bean instanceof HikariDataSource dataSource && isMySql(dataSource.getJdbcUrl())) {
+                String cacheSize = env.getProperty("querydsl.cache.statement-cache-size", "500");
+                dataSource.addDataSourceProperty("cachePrepStmts", "true");
+                dataSource.addDataSourceProperty("useServerPrepStmts", "true");
+                dataSource.addDataSourceProperty("prepStmtCacheSize", cacheSize);
+                dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            }
+            return bean;
+        }
+
+        // H2 는 알 수 없는 커넥션 속성이 들어오면 예외를 던지므로 MySQL 에만 적용
+        private boolean isMySql(String jdbcUrl) {
+            return jdbcUrl != null && jdbcUrl.startsWith("jdbc:mysql:");
+        }
+    }
+}
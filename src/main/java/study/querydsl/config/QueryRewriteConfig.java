@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.LowerCaseColumnRewriter;
+import study.querydsl.repository.support.UncorrelatedSubQueryRewriter;
+
+import java.util.Map;
+
+/**
+ * RewritingJPAQueryFactory 에 적용할 QueryRewriter 등록
+ */
+@Configuration
+public class QueryRewriteConfig {
+
+    // lower(member.username) 등 -> member.usernameLower (idx_member_tenant_username_lower)
+    @Bean
+    LowerCaseColumnRewriter lowerCaseColumnRewriter() {
+        return new LowerCaseColumnRewriter(Map.of(
+                Member.class, Map.of("username", "usernameLower")
+        ));
+    }
+
+    // where age = (select max(...)), in (select ...) 등 바깥 쿼리와 무관한 서브쿼리를 미리 한 번 실행
+    @Bean
+    UncorrelatedSubQueryRewriter uncorrelatedSubQueryRewriter(
+            EntityManager em,
+            @Value("${querydsl.rewrite.max-in-values:1000}") int maxInValues) {
+        return new UncorrelatedSubQueryRewriter(em, maxInValues);
+    }
+}
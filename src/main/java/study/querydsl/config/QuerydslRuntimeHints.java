@@ -0,0 +1,55 @@
+package study.querydsl.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Hello;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QHello;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+/**
+ * GraalVM native-image 용 리플렉션 힌트
+ * Spring AOT 가 찾지 못하는 Querydsl 의 리플렉션 사용처를 등록한다.
+ */
+public class QuerydslRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // SimpleEntityPathResolver(QuerydslPredicateExecutor, Querydsl4RepositorySupport)가
+        // Q 타입을 이름으로 로딩하고 static 필드(QMember.member)를 리플렉션으로 읽는다.
+        for (Class<?> qType : List.of(QMember.class, QTeam.class, QHello.class)) {
+            hints.reflection().registerType(qType,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+
+        // @QueryProjection 생성자, Projections.bean/fields/constructor 로 만드는 DTO
+        for (Class<?> dto : List.of(MemberDto.class, MemberTeamDto.class, UserDto.class,
+                QMemberDto.class, QMemberTeamDto.class)) {
+            hints.reflection().registerType(dto,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        // 엔티티와 Lombok 이 생성한 getter/setter
+        for (Class<?> entity : List.of(Member.class, Team.class, Hello.class)) {
+            hints.reflection().registerType(entity,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        hints.resources().registerPattern("spy.properties");
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 기동 시점에 동적 검색 쿼리의 모든 조건 조합(username, teamName, ageGoe, ageLoe 유무 = 16가지)을
+ * 한 번씩 실행하여 Hibernate 쿼리 플랜 캐시와 PreparedStatement 캐시를 미리 채운다.
+ * 배포 직후 첫 요청마다 HQL 파싱, SQL 변환 비용을 내는 것을 막기 위함
+ * 기동이 16 x 6 쿼리만큼 느려지므로 기본은 꺼져 있고 prod profile 에서만 켠다. (application-prod.yml)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "querydsl.warmup", name = "enabled", havingValue = "true")
+public class SearchQueryWarmup implements ApplicationRunner {
+
+    private final MemberRepository memberRepository;
+    private final MemberJpaRepository memberJpaRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        // offset 이 0이 아니면 content 가 비어도 count query 까지 실행된다.
+        PageRequest pageRequest = PageRequest.of(1, 10);
+
+        List<MemberSearchCondition> conditions = allConditionShapes();
+        for (MemberSearchCondition condition : conditions) {
+            memberRepository.search(condition);
+            memberRepository.searchPageSimple(condition, pageRequest);
+            memberRepository.searchPageComplex(condition, pageRequest);
+            memberJpaRepository.searchByBuilder(condition);
+            memberJpaRepository.searchByBuilderWhere(condition);
+            memberJpaRepository.searchMember(condition);
+        }
+        log.info("search query warmup: {} shapes in {} ms", conditions.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 검색 조건 4개의 유무 조합 16가지
+     * 값 자체는 의미 없고 where 절의 모양만 맞추면 된다.
+     */
+    public static List<MemberSearchCondition> allConditionShapes() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (int mask = 0; mask < 16; mask++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((mask & 1) != 0) condition.setUsername("warmup");
+            if ((mask & 2) != 0) condition.setTeamName("warmup");
+            if ((mask & 4) != 0) condition.setAgeGoe(0);
+            if ((mask & 8) != 0) condition.setAgeLoe(0);
+            conditions.add(condition);
+        }
+        return conditions;
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 기동 시간 측정용 (./gradlew startupBenchmark -Pstartup)
+ * JVM 시작부터 ApplicationReadyEvent, 첫 HTTP 요청 응답까지 걸린 시간을 기록하고 종료한다.
+ * - querydsl.startup.mode=benchmark : 측정 후 종료
+ * - querydsl.startup.mode=training : 측정 없이 바로 종료 (CDS 아카이브 생성용 학습 실행)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "querydsl.startup", name = "mode")
+public class StartupBenchmark {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        Environment env = context.getEnvironment();
+
+        if ("benchmark".equals(env.getProperty("querydsl.startup.mode"))) {
+            long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+            long readyMillis = System.currentTimeMillis() - jvmStart;
+            long firstRequestMillis = firstRequest(env.getProperty("local.server.port", "8080")) - jvmStart;
+            long peakRssKb = peakRssKb();
+            log.info("startup benchmark: ready = {} ms, first request = {} ms, peak rss = {} kB",
+                    readyMillis, firstRequestMillis, peakRssKb);
+            report(env.getProperty("querydsl.startup.report"), env.getProperty("querydsl.startup.label", "jvm"),
+                    readyMillis, firstRequestMillis, peakRssKb);
+        }
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+
+    private long firstRequest(String port) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/hello")).build();
+        try {
+            HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            log.warn("startup benchmark: first request failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return System.currentTimeMillis();
+    }
+
+    // 리눅스에서만 측정 가능 (/proc/self/status 의 VmHWM), 그 외에는 -1
+    private long peakRssKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("startup benchmark: cannot read peak rss", e);
+        }
+        return -1;
+    }
+
+    // 결과를 csv 로 누적하여 추이를 볼 수 있도록 한다. (label, 시각, ready, 첫 요청, peak rss)
+    private void report(String reportFile, String label, long readyMillis, long firstRequestMillis, long peakRssKb) {
+        if (reportFile == null) {
+            return;
+        }
+        try {
+            Path path = Path.of(reportFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            String line = String.join(",", label, String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(readyMillis), String.valueOf(firstRequestMillis), String.valueOf(peakRssKb))
+                    + System.lineSeparator();
+            Files.writeString(path, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("startup benchmark: cannot write report {}", reportFile, e);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package study.querydsl.controller;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
@@ -15,13 +18,15 @@ import study.querydsl.entity.Team;
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
+    // 샘플 데이터는 기동에 필수가 아니므로 컨텍스트 refresh 이후로 미룬다.
+    private final ObjectProvider<InitMemberService> initMemberService;
 
-    @PostConstruct
+    @EventListener(ApplicationReadyEvent.class)
     public void init() {
-        initMemberService.init();
+        initMemberService.getObject().init();
     }
 
+    @Lazy
     @Component
     static class InitMemberService {
         @PersistenceContext
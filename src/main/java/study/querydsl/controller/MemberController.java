@@ -1,16 +1,29 @@
 package study.querydsl.controller;
 
+import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.querydsl.binding.QuerydslPredicate;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.admission.Admission;
+import study.querydsl.admission.Priority;
+import study.querydsl.cache.MemberLookupCache;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.limit.QueryLimit;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchCoalescer;
+import study.querydsl.repository.SearchEngine;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,22 +31,61 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository  memberRepository;
+    private final MemberSearchCoalescer memberSearchCoalescer;
+    private final QueryBudget queryBudget;
+    private final MemberLookupCache memberLookupCache;
 
+    // 검색 endpoint 는 Callable 로 반환해 클라이언트 연결이 끊기면 실행 중인 쿼리를 취소한다. (QueryLimitInterceptor)
+    // 조건이 비어 있으면 전체 조회가 되므로 row 수를 제한한다.
+    // 페이징 없는 전체 조회이므로 가장 낮은 우선순위 (지연이 늘면 먼저 거절)
+    @Admission(Priority.BULK)
+    @QueryLimit(timeoutMs = 3000, maxRows = 1000, maxTimeMs = 5000)
     @GetMapping("v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.searchByBuilderWhere(condition);
+    public Callable<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition) {
+        return () -> memberJpaRepository.searchByBuilderWhere(condition);
     }
 
     // rows 사이즈보다 size 파라미터 값이 크면 자동으로 count query를 안날린다.
+    @Admission(Priority.SEARCH)
+    @QueryLimit(timeoutMs = 3000, maxTimeMs = 5000)
     @GetMapping("v2/simple/members")
-    public Page<MemberTeamDto> searchMemberSimpleV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public Callable<Page<MemberTeamDto>> searchMemberSimpleV2(MemberSearchCondition condition, Pageable pageable) {
+        return () -> memberRepository.searchPageSimple(condition, pageable);
     }
 
+    // 동시에 들어온 같은 검색은 쿼리 한 번으로 처리
+    // engine=sql 이면 querydsl-sql 로 조회 (SearchEngine)
+    @Admission(Priority.SEARCH)
+    @QueryLimit(timeoutMs = 3000, maxTimeMs = 5000)
     @GetMapping("v2/complex/members")
-    public Page<MemberTeamDto> searchMemberComplexV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Callable<Page<MemberTeamDto>> searchMemberComplexV2(MemberSearchCondition condition, Pageable pageable,
+                                                               @RequestParam(required = false) SearchEngine engine) {
+        return () -> memberSearchCoalescer.searchPageComplex(condition, pageable, engine);
     }
 
+    // 파라미터 바인딩 규칙은 MemberRepository.customize 참고
+    @Admission(Priority.SEARCH)
+    @QueryLimit(timeoutMs = 3000, maxTimeMs = 5000)
+    @GetMapping("v3/members/query")
+    public Callable<Page<MemberTeamDto>> searchMemberV3(
+            @QuerydslPredicate(root = Member.class, bindings = MemberRepository.class) Predicate predicate,
+            Pageable pageable) {
+        queryBudget.check(predicate, pageable);
+        return () -> memberRepository.searchByPredicate(predicate, pageable);
+    }
+
+    // 단건 조회는 near-cache 를 거친다. (MemberLookupCache)
+    @Admission(Priority.INTERACTIVE)
+    @QueryLimit(timeoutMs = 500, maxTimeMs = 1000)
+    @GetMapping("v1/members/{id}")
+    public ResponseEntity<MemberTeamDto> findMember(@PathVariable Long id) {
+        return ResponseEntity.of(memberLookupCache.findById(id));
+    }
 
+    @Admission(Priority.INTERACTIVE)
+    @QueryLimit(timeoutMs = 500, maxTimeMs = 1000)
+    @GetMapping("v1/members/username/{username}")
+    public List<MemberTeamDto> findMembersByUsername(@PathVariable String username) {
+        return memberLookupCache.findByUsername(username);
+    }
 }
@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.sql.MemberReactiveRepository;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "querydsl.reactive.enabled", havingValue = "true")
+public class MemberStreamController {
+
+    private final MemberReactiveRepository memberReactiveRepository;
+
+    // 검색 결과를 한 줄에 하나씩(ndjson) 흘려보낸다.
+    // 요청 스레드는 바로 반환되고, 응답을 쓴 만큼만 다음 행을 요청한다. (연결이 끊기면 구독 취소로 조회도 멈춤)
+    // 단, Spring MVC(ReactiveTypeHandler)는 Servlet 출력 스트림에 blocking I/O 로 쓰므로 느린 클라이언트는 쓰는 동안 스레드를 붙잡는다.
+    // 이 endpoint 의 목적은 결과 크기와 무관한 메모리 사용이며, 별도 WebFlux 서버는 두지 않는다.
+    // DB 작업은 R2DBC 풀(querydsl.reactive.pool-size)로 제한되므로 @Admission, @QueryLimit 은 붙이지 않는다.
+    @GetMapping(value = "v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MemberTeamDto> streamMembers(MemberSearchCondition condition) {
+        return memberReactiveRepository.search(condition);
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.controller;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathExtractor;
+import com.querydsl.core.types.Predicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * v3/members/query 처럼 요청 파라미터로 조건을 만드는 검색의 비용 제한
+ * 1. 조건 개수 제한 (querydsl.query.max-predicates)
+ * 2. 인덱스가 있는 컬럼(username, team_id) 조건 최소 1개 필수 -> 풀 스캔 방지 (or 는 모든 분기에 필요)
+ * 3. 페이지 크기 제한 (querydsl.query.max-page-size)
+ */
+@Component
+public class QueryBudget {
+
+    private static final List<Path<?>> INDEXED_PATHS = List.of(member.username, member.team.id);
+
+    private final int maxPredicates;
+    private final int maxPageSize;
+
+    public QueryBudget(@Value("${querydsl.query.max-predicates:4}") int maxPredicates,
+                       @Value("${querydsl.query.max-page-size:100}") int maxPageSize) {
+        this.maxPredicates = maxPredicates;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public void check(Predicate predicate, Pageable pageable) {
+        if (pageable.isPaged() && pageable.getPageSize() > maxPageSize) {
+            throw new QueryBudgetExceededException("page size must be <= " + maxPageSize);
+        }
+
+        int conditions = countConditions(predicate);
+        if (conditions > maxPredicates) {
+            throw new QueryBudgetExceededException("too many conditions: " + conditions + " > " + maxPredicates);
+        }
+
+        if (!isIndexed(predicate)) {
+            throw new QueryBudgetExceededException("one of " + INDEXED_PATHS + " is required");
+        }
+    }
+
+    // and/or 안의 단일 조건 개수
+    private int countConditions(Expression<?> expression) {
+        if (expression instanceof BooleanBuilder builder) {
+            return countConditions(builder.getValue());
+        }
+        if (isOperation(expression, Ops.AND) || isOperation(expression, Ops.OR)) {
+            return ((Operation<?>) expression).getArgs().stream().mapToInt(this::countConditions).sum();
+        }
+        return expression != null ? 1 : 0;
+    }
+
+    /**
+     * 인덱스 컬럼 조건으로 행을 좁힐 수 있는지
+     * and 는 하나만 인덱스 조건이면 되지만, or 는 모든 분기가 인덱스 조건이어야 한다.
+     * (username = ? or age > ? 는 age 쪽 때문에 결국 풀 스캔)
+     */
+    private boolean isIndexed(Expression<?> expression) {
+        if (expression instanceof BooleanBuilder builder) {
+            return isIndexed(builder.getValue());
+        }
+        if (isOperation(expression, Ops.AND)) {
+            return ((Operation<?>) expression).getArgs().stream().anyMatch(this::isIndexed);
+        }
+        if (isOperation(expression, Ops.OR)) {
+            return ((Operation<?>) expression).getArgs().stream().allMatch(this::isIndexed);
+        }
+        return expression != null && INDEXED_PATHS.contains(expression.accept(PathExtractor.DEFAULT, null));
+    }
+
+    private static boolean isOperation(Expression<?> expression, Ops operator) {
+        return expression instanceof Operation<?> operation && operation.getOperator() == operator;
+    }
+}
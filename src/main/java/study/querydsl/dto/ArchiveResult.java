@@ -0,0 +1,8 @@
+package study.querydsl.dto;
+
+/**
+ * 회원 보관(MemberArchiver) 결과
+ * completed : 조건에 맞는 회원을 끝까지 옮겼는지 (중간에 interrupt 되면 false, 다음 실행에서 이어서 옮긴다.)
+ */
+public record ArchiveResult(long archived, int chunks, long elapsedMillis, boolean completed) {
+}
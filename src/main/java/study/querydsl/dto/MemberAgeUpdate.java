@@ -0,0 +1,7 @@
+package study.querydsl.dto;
+
+/**
+ * 버전이 expectedVersion 인 경우에만 age 변경
+ */
+public record MemberAgeUpdate(Long memberId, long expectedVersion, int age) {
+}
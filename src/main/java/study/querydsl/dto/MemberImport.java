@@ -0,0 +1,7 @@
+package study.querydsl.dto;
+
+/**
+ * 회원 일괄 upsert 입력 (username 기준, teamName 이 없으면 팀 없음)
+ */
+public record MemberImport(String username, int age, String teamName) {
+}
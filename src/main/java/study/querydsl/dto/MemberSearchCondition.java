@@ -11,4 +11,11 @@ public class MemberSearchCondition {
 	private Integer ageGoe;
 	private Integer ageLoe;
 
+	// username 접두사, 부분 문자열 검색 (대소문자 무시, UsernameIndex 사용)
+	private String usernamePrefix;
+	private String usernameContains;
+
+	// true 면 보관된 회원(member_archive)도 함께 검색 (기본은 member 만)
+	private boolean includeArchived;
+
 }
@@ -0,0 +1,8 @@
+package study.querydsl.dto;
+
+/**
+ * 회원 일괄 upsert 결과
+ * updated : 갱신한 회원 수 (같은 username 회원이 여러 명이면 모두 센다.)
+ */
+public record UpsertResult(int inserted, int updated, int teamsCreated) {
+}
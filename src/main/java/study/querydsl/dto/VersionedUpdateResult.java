@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import java.util.List;
+
+/**
+ * 버전 조건부 update 결과
+ * conflicted : 버전이 달라(다른 트랜잭션이 먼저 수정) 갱신되지 않은 회원 id (삭제된 회원 포함)
+ */
+public record VersionedUpdateResult(List<Long> updated, List<Long> conflicted) {
+
+    public boolean hasConflicts() {
+        return !conflicted.isEmpty();
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * 노드 간 캐시 무효화 메시지 (JdbcInvalidationTransport)
+ * 테이블 생성용이며 읽고 쓰는 것은 JdbcTemplate 으로 한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "region", "cacheKey", "version"})
+@Table(name = "cache_invalidation", indexes = @Index(name = "idx_cache_invalidation_created_at", columnList = "created_at"))
+public class CacheInvalidationLog {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "cache_invalidation_id")
+	private Long id;
+
+	private String region;
+
+	@Column(name = "cache_key")
+	private String cacheKey;
+
+	private long version;
+
+	private String origin;
+
+	@Column(name = "created_at")
+	private LocalDateTime createdAt;
+}
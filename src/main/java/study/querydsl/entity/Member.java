@@ -2,23 +2,57 @@ package study.querydsl.entity;
 
 import lombok.*;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Filter;
+import study.querydsl.cache.MemberCacheListener;
+import study.querydsl.outbox.OutboxListener;
+import study.querydsl.repository.UsernameIndexListener;
+import study.querydsl.tenant.TenantContext;
+import study.querydsl.tenant.TenantFilter;
+import study.querydsl.tenant.TenantOwned;
+
+import java.util.Locale;
 
 @Entity
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 // 본인 필드만!
 @ToString(of = {"id", "username", "age"})
-public class Member {
+@EntityListeners({UsernameIndexListener.class, OutboxListener.class, MemberCacheListener.class})
+// tenant 조건이 항상 붙으므로 인덱스는 tenant_id 를 앞에 둔다. (tenant 크기만큼만 읽음)
+@Table(indexes = {
+		@Index(name = "idx_member_tenant_username", columnList = "tenant_id, username"),
+		@Index(name = "idx_member_tenant_username_lower", columnList = "tenant_id, username_lower"),
+		@Index(name = "idx_member_tenant_team", columnList = "tenant_id, team_id")
+})
+@Filter(name = TenantFilter.NAME)
+public class Member implements TenantOwned {
 
 	@Id
 	@GeneratedValue
 	@Column(name = "member_id")
 	private Long id;
 
+	// 저장 시점의 TenantContext 로 정해지며 바꿀 수 없다.
+	@Setter(AccessLevel.NONE)
+	@Column(name = "tenant_id", length = 64, nullable = false, updatable = false)
+	private String tenantId;
+
 	private String username;
 
+	// lower(username) 조건이 인덱스를 탈 수 있도록 소문자로 따로 저장 (LowerCaseColumnRewriter 참고)
+	// 벌크 update 로 username 을 바꿀 때는 함께 바꿔야 한다.
+	@Setter(AccessLevel.NONE)
+	@Column(name = "username_lower")
+	private String usernameLower;
+
 	private int age;
 
+	// 낙관적 락 (동시 수정 시 나중에 커밋하는 쪽이 OptimisticLockException)
+	// 벌크 update 는 버전을 올리지 않으므로 MemberJpaRepository.updateAgeIfVersionMatches 사용
+	@Version
+	@Setter(AccessLevel.NONE)
+	private Long version;
+
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "team_id")
 	private Team team;
@@ -38,6 +72,20 @@ public class Member {
 			changeTeam(team);
 		}
 	}
+
+	@PrePersist
+	void prePersist() {
+		if (tenantId == null) {
+			tenantId = TenantContext.currentForWrite();
+		}
+		syncUsernameLower();
+	}
+
+	@PreUpdate
+	void syncUsernameLower() {
+		this.usernameLower = username != null ? username.toLowerCase(Locale.ROOT) : null;
+	}
+
 	public void changeTeam(Team team) {
 		this.team = team;
 		team.getMembers().add(this);
@@ -0,0 +1,53 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Filter;
+import study.querydsl.tenant.TenantFilter;
+import study.querydsl.tenant.TenantOwned;
+
+import java.time.LocalDateTime;
+
+/**
+ * 보관(archive)된 회원 (MemberArchiver)
+ * member 테이블에서 옮겨온 행이며 member_id 를 그대로 쓴다.
+ * 옮기는 것은 JDBC insert ... select 로 하고, 엔티티는 테이블 생성과 includeArchived 검색에만 쓴다.
+ * 팀이 지워져도 보관 데이터는 남아야 하므로 team_id 는 FK 없이 값만 가진다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "username", "age", "archivedAt"})
+@Table(name = "member_archive", indexes = {
+		@Index(name = "idx_member_archive_tenant_username", columnList = "tenant_id, username"),
+		@Index(name = "idx_member_archive_tenant_username_lower", columnList = "tenant_id, username_lower"),
+		@Index(name = "idx_member_archive_tenant_team", columnList = "tenant_id, team_id")
+})
+@Filter(name = TenantFilter.NAME)
+public class MemberArchive implements TenantOwned {
+
+	@Id
+	@Column(name = "member_id")
+	private Long id;
+
+	@Column(name = "tenant_id", length = 64, nullable = false, updatable = false)
+	private String tenantId;
+
+	private String username;
+
+	@Column(name = "username_lower")
+	private String usernameLower;
+
+	private int age;
+
+	private Long version;
+
+	@Column(name = "team_id")
+	private Long teamId;
+
+	@Column(name = "archived_at")
+	private LocalDateTime archivedAt;
+}
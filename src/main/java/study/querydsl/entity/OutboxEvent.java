@@ -0,0 +1,42 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Member/Team 변경 이벤트 (transactional outbox)
+ * 엔티티 변경과 같은 트랜잭션에서 OutboxWriter 가 insert 하고, OutboxRelay 가 전달하지 않은 이벤트를 id 순으로 읽어 전달한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "aggregateType", "aggregateId", "eventType"})
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_published", columnList = "published, outbox_id"))
+public class OutboxEvent {
+
+	// IDENTITY 값은 insert 할 때 정해지므로 커밋 순서와 다를 수 있다. (N+1 이 N 보다 먼저 커밋될 수 있음)
+	// 같은 aggregate 안에서는 행 변경(행 락)을 먼저 하고 outbox 를 insert 하므로 앞선 트랜잭션이 커밋된 뒤에 더 큰 id 를 받는다.
+	// OutboxRelay 는 published 여부로 읽으므로 늦게 커밋된 작은 id 도 다음 주기에 전달된다.
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "outbox_id")
+	private Long id;
+
+	private String aggregateType;
+
+	private Long aggregateId;
+
+	private String eventType;
+
+	@Column(length = 2000)
+	private String payload;
+
+	private LocalDateTime createdAt;
+
+	private boolean published;
+}
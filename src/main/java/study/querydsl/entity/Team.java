@@ -1,6 +1,13 @@
 package study.querydsl.entity;
 import lombok.*;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.OptimisticLock;
+import study.querydsl.cache.MemberCacheListener;
+import study.querydsl.outbox.OutboxListener;
+import study.querydsl.tenant.TenantContext;
+import study.querydsl.tenant.TenantFilter;
+import study.querydsl.tenant.TenantOwned;
 
 import java.util.*;
 
@@ -9,19 +16,39 @@ import java.util.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 // 본인 필드만!
 @ToString(of = {"id", "name"})
-public class Team {
+@EntityListeners({OutboxListener.class, MemberCacheListener.class})
+@Table(indexes = @Index(name = "idx_team_tenant_name", columnList = "tenant_id, name"))
+@Filter(name = TenantFilter.NAME)
+public class Team implements TenantOwned {
 
 	@Id @GeneratedValue
 	@Column(name = "team_id")
 	private Long id;
 
+	@Setter(AccessLevel.NONE)
+	@Column(name = "tenant_id", length = 64, nullable = false, updatable = false)
+	private String tenantId;
+
 	private String name;
 
+	@Version
+	@Setter(AccessLevel.NONE)
+	private Long version;
+
 	// 양방향 연관관계이기에 연관관계 주인 설정
+	// changeTeam 으로 회원이 바뀔 때마다 팀 버전이 올라가 충돌하지 않도록 제외
+	@OptimisticLock(excluded = true)
 	@OneToMany(mappedBy = "team")
 	private List<Member> members = new ArrayList<>();
 
 	public Team(String name) {
 		this.name = name;
 	}
+
+	@PrePersist
+	void assignTenant() {
+		if (tenantId == null) {
+			tenantId = TenantContext.currentForWrite();
+		}
+	}
 }
@@ -0,0 +1,11 @@
+/**
+ * tenant 구분 filter (EntityManager 생성, repository 호출, 쿼리마다 TenantFilter 가 켠다.)
+ */
+@FilterDef(name = TenantFilter.NAME,
+        parameters = @ParamDef(name = TenantFilter.PARAMETER, type = String.class),
+        defaultCondition = TenantFilter.CONDITION)
+package study.querydsl.entity;
+
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
+import study.querydsl.tenant.TenantFilter;
@@ -0,0 +1,27 @@
+package study.querydsl.limit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 컨트롤러 메서드(endpoint), repository 메서드의 쿼리 예산
+ * 바깥에서 정한 예산보다 느슨하게 할 수는 없다. (QueryLimits.narrow)
+ * 0 은 제한 없음 (바깥 예산을 따른다.)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface QueryLimit {
+
+    // 쿼리 1개의 statement timeout
+    long timeoutMs() default 0;
+
+    // 쿼리 1개가 가져올 최대 row 수 (limit 이 없거나 더 크면 잘린다.)
+    int maxRows() default 0;
+
+    // 요청(또는 메서드) 전체에서 쿼리에 쓸 수 있는 시간
+    long maxTimeMs() default 0;
+}
@@ -0,0 +1,109 @@
+package study.querydsl.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * endpoint 별 쿼리 예산 적용
+ * 1. 요청마다 QueryScope 를 열어 요청 스레드에 bind (기본값 querydsl.query-limit.*, 컨트롤러 메서드의 @QueryLimit 으로 좁힌다.)
+ * 2. Callable 을 반환하는 endpoint 는 async 스레드에 같은 scope 를 bind
+ *    요청 스레드가 비어 있으므로 클라이언트 연결 끊김(async error), async timeout 을 받아 실행 중인 쿼리를 취소할 수 있다.
+ */
+@Component
+public class QueryLimitInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = QueryScope.class.getName();
+
+    private final QueryLimits defaults;
+
+    public QueryLimitInterceptor(@Value("${querydsl.query-limit.timeout-ms:5000}") long timeoutMs,
+                                 @Value("${querydsl.query-limit.max-rows:10000}") int maxRows,
+                                 @Value("${querydsl.query-limit.max-time-ms:10000}") long maxTimeMs) {
+        this.defaults = new QueryLimits(timeoutMs, maxRows, maxTimeMs);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        // async 재dispatch 때는 처음 만든 scope 를 그대로 쓴다. (deadline 은 요청 도착 기준)
+        QueryScope scope = (QueryScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope == null) {
+            scope = QueryScope.open(limitsOf(handlerMethod));
+            request.setAttribute(SCOPE_ATTRIBUTE, scope);
+        }
+        scope.bind();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        QueryScope.restore(null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        QueryScope scope = (QueryScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            scope.release();
+        }
+        QueryScope.restore(null);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        QueryScope scope = scopeOf(request);
+        if (scope != null) {
+            scope.bind();
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        QueryScope.restore(null);
+    }
+
+    @Override
+    public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+        cancel(request);
+        return RESULT_NONE;
+    }
+
+    @Override
+    public <T> Object handleError(NativeWebRequest request, Callable<T> task, Throwable t) {
+        cancel(request);
+        return RESULT_NONE;
+    }
+
+    QueryLimits limitsOf(HandlerMethod handlerMethod) {
+        QueryLimit limit = handlerMethod.getMethodAnnotation(QueryLimit.class);
+        if (limit == null) {
+            limit = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), QueryLimit.class);
+        }
+        return limit != null ? defaults.narrow(QueryLimits.of(limit)) : defaults;
+    }
+
+    private static void cancel(NativeWebRequest request) {
+        QueryScope scope = scopeOf(request);
+        if (scope != null) {
+            scope.cancel();
+        }
+    }
+
+    private static QueryScope scopeOf(NativeWebRequest request) {
+        return (QueryScope) request.getAttribute(SCOPE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.limit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+
+import java.lang.reflect.Method;
+
+/**
+ * repository 메서드의 @QueryLimit 적용 (컨트롤러는 QueryLimitInterceptor 가 처리한다.)
+ * 호출 동안 현재 scope 를 좁힌 하위 scope 로 바꾼다. 요청 밖(스케줄러 등)이면 새 scope 를 연다.
+ */
+@Component
+public class QueryLimitPostProcessor implements BeanPostProcessor {
+
+    private final DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+            new AnnotationMatchingPointcut(null, QueryLimit.class, true), limitInterceptor());
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (AnnotatedElementUtils.hasAnnotation(targetClass, Controller.class)
+                || !AopUtils.canApply(advisor, targetClass)) {
+            return bean;
+        }
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvisor(advisor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(bean.getClass().getInterfaces().length == 0);
+        proxyFactory.addAdvisor(advisor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static MethodInterceptor limitInterceptor() {
+        return invocation -> {
+            Method method = invocation.getMethod();
+            if (invocation.getThis() != null) {
+                method = AopUtils.getMostSpecificMethod(method, AopUtils.getTargetClass(invocation.getThis()));
+            }
+            QueryLimit limit = AnnotatedElementUtils.findMergedAnnotation(method, QueryLimit.class);
+            if (limit == null) {
+                return invocation.proceed();
+            }
+            QueryScope current = QueryScope.current();
+            QueryScope scope = current != null
+                    ? current.narrow(QueryLimits.of(limit))
+                    : QueryScope.open(QueryLimits.of(limit));
+            QueryScope previous = scope.bind();
+            try {
+                return invocation.proceed();
+            } finally {
+                QueryScope.restore(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.limit;
+
+/**
+ * 쿼리 예산 값 (0 = 제한 없음)
+ */
+public record QueryLimits(long timeoutMs, int maxRows, long maxTimeMs) {
+
+    public static final QueryLimits NONE = new QueryLimits(0, 0, 0);
+
+    public static QueryLimits of(QueryLimit limit) {
+        return new QueryLimits(limit.timeoutMs(), limit.maxRows(), limit.maxTimeMs());
+    }
+
+    // 둘 중 더 엄격한 값
+    public QueryLimits narrow(QueryLimits other) {
+        return new QueryLimits(
+                min(timeoutMs, other.timeoutMs),
+                (int) min(maxRows, other.maxRows),
+                min(maxTimeMs, other.maxTimeMs));
+    }
+
+    private static long min(long a, long b) {
+        if (a <= 0) {
+            return Math.max(b, 0);
+        }
+        return b <= 0 ? a : Math.min(a, b);
+    }
+}
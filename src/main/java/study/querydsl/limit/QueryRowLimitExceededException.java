@@ -0,0 +1,22 @@
+package study.querydsl.limit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 결과가 QueryScope 의 maxRows 를 넘음 (조건을 좁히거나 페이징해야 한다.)
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class QueryRowLimitExceededException extends RuntimeException {
+
+    private final int maxRows;
+
+    public QueryRowLimitExceededException(int maxRows) {
+        super("result exceeds max rows " + maxRows + ", narrow the condition or use a paged endpoint");
+        this.maxRows = maxRows;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+}
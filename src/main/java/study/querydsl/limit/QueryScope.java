@@ -0,0 +1,168 @@
+package study.querydsl.limit;
+
+import jakarta.persistence.QueryTimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 요청 하나의 쿼리 예산과 실행 중인 세션
+ * 1. 요청 시작 시각 기준 deadline (maxTimeMs) 이 지나면 더 이상 쿼리를 실행하지 않는다.
+ * 2. 클라이언트 연결이 끊기면 cancel() 로 실행 중인 statement 를 취소한다. (Session.cancelQuery, Statement.cancel)
+ * repository 메서드의 @QueryLimit 은 narrow 로 만든 하위 scope 로 적용되며 취소 대상은 공유한다.
+ * 현재 스레드에 bind 된 scope 는 RewritingJPAQuery 가 쿼리를 만들 때, querydsl-sql 은 QueryScopeSqlListener 가 실행 직전에 적용한다.
+ */
+@Slf4j
+public final class QueryScope {
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final QueryLimits limits;
+    private final long deadlineNanos;
+    private final Set<Session> sessions;
+    // querydsl-sql 처럼 세션 없이 JDBC 로 실행 중인 statement
+    private final Set<Statement> statements;
+    private final AtomicBoolean cancelled;
+
+    private QueryScope(QueryLimits limits, long deadlineNanos, Set<Session> sessions, Set<Statement> statements,
+                       AtomicBoolean cancelled) {
+        this.limits = limits;
+        this.deadlineNanos = deadlineNanos;
+        this.sessions = sessions;
+        this.statements = statements;
+        this.cancelled = cancelled;
+    }
+
+    public static QueryScope open(QueryLimits limits) {
+        return new QueryScope(limits, deadline(limits, Long.MAX_VALUE),
+                ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), new AtomicBoolean());
+    }
+
+    public static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    public QueryScope narrow(QueryLimits other) {
+        QueryLimits narrowed = limits.narrow(other);
+        return new QueryScope(narrowed, deadline(narrowed, deadlineNanos), sessions, statements, cancelled);
+    }
+
+    /**
+     * 여러 요청이 결과를 공유하는 쿼리용 scope (MemberSearchCoalescer)
+     * 같은 예산으로 deadline 과 취소 대상을 새로 가지므로,
+     * 먼저 실행한 요청이 끊기거나 시간을 다 써도 결과를 기다리는 다른 요청까지 실패하지 않는다.
+     */
+    public QueryScope detach() {
+        return open(limits);
+    }
+
+    // 이전 scope 를 돌려주므로 끝나면 restore 로 되돌린다.
+    public QueryScope bind() {
+        QueryScope previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public static void restore(QueryScope previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public QueryLimits limits() {
+        return limits;
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * 이번 쿼리에 쓸 statement timeout (ms), 제한이 없으면 0
+     * 남은 시간이 없거나 취소됐으면 쿼리를 실행하지 않도록 예외를 던진다.
+     */
+    public long statementTimeoutMillis() {
+        if (cancelled.get()) {
+            throw new QueryTimeoutException("query scope cancelled");
+        }
+        long remaining = remainingMillis();
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("query time budget exhausted (max " + limits.maxTimeMs() + "ms)");
+        }
+        if (limits.timeoutMs() <= 0) {
+            return remaining == Long.MAX_VALUE ? 0 : remaining;
+        }
+        return Math.min(limits.timeoutMs(), remaining);
+    }
+
+    public long remainingMillis() {
+        if (deadlineNanos == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    public void register(Session session) {
+        sessions.add(session);
+    }
+
+    // 실행이 끝나면 unregister 로 뺀다. (커넥션 풀로 돌아간 statement 를 취소하지 않도록)
+    public void register(Statement statement) {
+        statements.add(statement);
+        // 등록하는 사이에 취소됐으면 직접 취소
+        if (cancelled.get()) {
+            cancel(statement);
+        }
+    }
+
+    public void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    public void release() {
+        sessions.clear();
+        statements.clear();
+    }
+
+    // 다른 스레드(요청 스레드의 async error, timeout 처리)에서 호출된다.
+    public void cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return;
+        }
+        for (Session session : sessions) {
+            try {
+                session.cancelQuery();
+            } catch (RuntimeException e) {
+                // 이미 끝났거나 닫힌 세션
+                log.debug("cancel query failed", e);
+            }
+        }
+        sessions.clear();
+        statements.forEach(QueryScope::cancel);
+        statements.clear();
+    }
+
+    private static void cancel(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            log.debug("cancel statement failed", e);
+        }
+    }
+
+    private static long deadline(QueryLimits limits, long parentDeadline) {
+        if (limits.maxTimeMs() <= 0) {
+            return parentDeadline;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.maxTimeMs());
+        return Math.min(deadline, parentDeadline);
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 같은 프로세스의 @EventListener(ChangeEvent) 로 전달
+ * 재전달된 이벤트는 여기서 걸러지므로 리스너는 중복을 신경 쓰지 않아도 된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventChangeEventSink implements ChangeEventSink {
+
+    private final ApplicationEventPublisher publisher;
+    private final ChangeEventDeduplicator deduplicator = new ChangeEventDeduplicator();
+
+    @Override
+    public void publish(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            if (deduplicator.isNew(event)) {
+                publisher.publishEvent(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.outbox;
+
+import study.querydsl.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * sink 로 전달되는 변경 이벤트
+ * 같은 aggregate 안에서는 eventId 순서가 발생 순서다. (OutboxEvent.id 참고)
+ * aggregate 가 다르면 eventId 가 작은 이벤트가 나중에 커밋되어 더 늦게 전달될 수 있다.
+ * 재전달(replay, relay 재시도)될 수 있으므로 받는 쪽은 eventId 로 중복을 거른다. (ChangeEventDeduplicator)
+ */
+public record ChangeEvent(long eventId, String aggregateType, Long aggregateId, String eventType,
+                          String payload, LocalDateTime createdAt) {
+
+    public static ChangeEvent from(OutboxEvent event) {
+        return new ChangeEvent(event.getId(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreatedAt());
+    }
+
+    public String aggregateKey() {
+        return aggregateType + ":" + aggregateId;
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.outbox;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * aggregate 별로 마지막으로 처리한 eventId 를 기억해서 재전달된 이벤트를 거른다.
+ * 같은 aggregate 의 이벤트는 eventId 순으로 오므로 마지막 id 이하면 이미 처리한 이벤트다.
+ * aggregate 수만큼 늘지 않도록 최대 개수와 마지막 접근 후 유지 시간을 둔다.
+ * 밀려난 aggregate 의 오래된 이벤트가 다시 오면 한 번 더 처리될 수 있으므로 받는 쪽 처리는 멱등이어야 한다.
+ */
+public class ChangeEventDeduplicator {
+
+    private final Cache<String, Long> lastEventIds;
+
+    public ChangeEventDeduplicator() {
+        this(100_000, Duration.ofHours(1));
+    }
+
+    public ChangeEventDeduplicator(long maxAggregates, Duration ttl) {
+        this.lastEventIds = Caffeine.newBuilder()
+                .maximumSize(maxAggregates)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    public boolean isNew(ChangeEvent event) {
+        boolean[] isNew = new boolean[1];
+        lastEventIds.asMap().compute(event.aggregateKey(), (key, last) -> {
+            isNew[0] = last == null || event.eventId() > last;
+            return isNew[0] ? event.eventId() : last;
+        });
+        return isNew[0];
+    }
+
+    long size() {
+        lastEventIds.cleanUp();
+        return lastEventIds.estimatedSize();
+    }
+}
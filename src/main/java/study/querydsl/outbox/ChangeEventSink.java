@@ -0,0 +1,12 @@
+package study.querydsl.outbox;
+
+import java.util.List;
+
+/**
+ * 변경 이벤트 전달 대상
+ * 예외를 던지면 relay 는 해당 batch 를 다음 주기에 다시 전달한다.
+ */
+public interface ChangeEventSink {
+
+    void publish(List<ChangeEvent> events);
+}
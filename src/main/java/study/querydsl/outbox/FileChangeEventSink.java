@@ -0,0 +1,48 @@
+package study.querydsl.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 변경 이벤트를 파일에 JSON 한 줄씩 추가 (querydsl.outbox.file)
+ */
+@Component
+@ConditionalOnProperty(prefix = "querydsl.outbox", name = "file")
+public class FileChangeEventSink implements ChangeEventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileChangeEventSink(@Value("${querydsl.outbox.file}") String file, ObjectMapper objectMapper) throws IOException {
+        this.file = Path.of(file);
+        this.objectMapper = objectMapper;
+        if (this.file.getParent() != null) {
+            Files.createDirectories(this.file.getParent());
+        }
+    }
+
+    @Override
+    public synchronized void publish(List<ChangeEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (ChangeEvent event : events) {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+            Files.writeString(file, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot serialize change event", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write change events to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메시지 브로커 대용 (테스트, 로컬 개발용, querydsl.outbox.broker.partitions)
+ * aggregate 별로 같은 파티션에 넣으므로 파티션 하나를 한 consumer 가 읽으면 회원별 순서가 유지된다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "querydsl.outbox.broker", name = "partitions")
+public class InMemoryBrokerChangeEventSink implements ChangeEventSink {
+
+    private final List<BlockingQueue<ChangeEvent>> partitions = new ArrayList<>();
+    private final ChangeEventDeduplicator deduplicator = new ChangeEventDeduplicator();
+
+    public InMemoryBrokerChangeEventSink(@Value("${querydsl.outbox.broker.partitions}") int partitionCount) {
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new LinkedBlockingQueue<>());
+        }
+    }
+
+    @Override
+    public void publish(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            if (deduplicator.isNew(event)) {
+                partitions.get(partitionOf(event)).add(event);
+            }
+        }
+    }
+
+    public ChangeEvent poll(int partition, long timeout, TimeUnit unit) throws InterruptedException {
+        return partitions.get(partition).poll(timeout, unit);
+    }
+
+    public int partitionCount() {
+        return partitions.size();
+    }
+
+    private int partitionOf(ChangeEvent event) {
+        return Math.floorMod(event.aggregateKey().hashCode(), partitions.size());
+    }
+}
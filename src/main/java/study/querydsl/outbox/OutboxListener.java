@@ -0,0 +1,71 @@
+package study.querydsl.outbox;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Member/Team 생성, 수정(changeTeam 포함), 삭제를 outbox 에 기록
+ * flush 시점(insert/update/delete SQL 실행 직후)에 같은 커넥션으로 기록된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxListener {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    // EntityManagerFactory 생성 중에 만들어질 수 있으므로 사용 시점에 꺼낸다.
+    private final ObjectProvider<OutboxWriter> outboxWriter;
+
+    @PostPersist
+    public void created(Object entity) {
+        record(entity, CREATED);
+    }
+
+    @PostUpdate
+    public void updated(Object entity) {
+        record(entity, UPDATED);
+    }
+
+    @PostRemove
+    public void deleted(Object entity) {
+        record(entity, DELETED);
+    }
+
+    private void record(Object entity, String eventType) {
+        if (entity instanceof Member member) {
+            outboxWriter.getObject().record(OutboxWriter.MEMBER, member.getId(), eventType, payload(member));
+        } else if (entity instanceof Team team) {
+            outboxWriter.getObject().record(OutboxWriter.TEAM, team.getId(), eventType, payload(team));
+        }
+    }
+
+    public static Map<String, Object> payload(Member member) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", member.getId());
+        payload.put("username", member.getUsername());
+        payload.put("age", member.getAge());
+        // 프록시여도 id 조회는 초기화하지 않는다.
+        payload.put("teamId", member.getTeam() != null ? member.getTeam().getId() : null);
+        payload.put("version", member.getVersion());
+        return payload;
+    }
+
+    public static Map<String, Object> payload(Team team) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", team.getId());
+        payload.put("name", team.getName());
+        payload.put("version", team.getVersion());
+        return payload;
+    }
+}
@@ -0,0 +1,130 @@
+package study.querydsl.outbox;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static study.querydsl.entity.QOutboxEvent.outboxEvent;
+
+/**
+ * outbox_event 를 id 순으로 batch-size 개씩 읽어 sink 로 전달
+ * 1. 마지막으로 보낸 id 가 아니라 published 여부로 읽는다. 늦게 커밋된 작은 id 의 이벤트도 빠뜨리지 않는다.
+ *    전달하지 않은 이벤트를 비관적 락으로 읽으므로 여러 노드가 동시에 돌아도 같은 이벤트를 나눠 보내지 않는다.
+ * 2. 모든 sink 에 전달한 뒤 같은 트랜잭션에서 published 로 표시, sink 가 실패하면 다음 주기에 재전달
+ * 3. 전달한 이벤트도 retention-hours 동안 남겨두어 replay 할 수 있다.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ChangeEventSink> sinks;
+    private final int batchSize;
+    private final long retentionHours;
+
+    public OutboxRelay(JPAQueryFactory queryFactory,
+                       PlatformTransactionManager transactionManager,
+                       ObjectProvider<ChangeEventSink> sinks,
+                       @Value("${querydsl.outbox.batch-size:500}") int batchSize,
+                       @Value("${querydsl.outbox.retention-hours:24}") long retentionHours) {
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.retentionHours = retentionHours;
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.outbox.relay-interval-ms:500}")
+    public void relay() {
+        try {
+            // 밀려 있으면 batch 단위로 계속 보낸다.
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("outbox relay failed, retry next time", e);
+        }
+    }
+
+    /**
+     * @return 전달한 이벤트 수
+     */
+    public int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = queryFactory
+                    .selectFrom(outboxEvent)
+                    .where(outboxEvent.published.isFalse())
+                    .orderBy(outboxEvent.id.asc())
+                    .limit(batchSize)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .fetch();
+            if (events.isEmpty()) {
+                return 0;
+            }
+
+            publish(events.stream().map(ChangeEvent::from).toList(), sinks.orderedStream().toList());
+
+            queryFactory
+                    .update(outboxEvent)
+                    .set(outboxEvent.published, true)
+                    .where(outboxEvent.id.in(events.stream().map(OutboxEvent::getId).toList()))
+                    .execute();
+            return events.size();
+        });
+        return relayed != null ? relayed : 0;
+    }
+
+    /**
+     * fromEventId 부터 전달 여부와 상관없이 다시 보낸다. (sink 재구축, 장애 복구용)
+     * 받는 쪽은 eventId 로 중복을 걸러야 한다.
+     * id 가 커밋 순서가 아니므로 replay 도중 커밋된 작은 id 의 이벤트는 여기서 빠질 수 있다. (relay 가 전달한다.)
+     * 마지막으로 받은 eventId 로 이어 받는다면 진행 중이던 트랜잭션만큼 앞에서부터 다시 받아야 한다.
+     */
+    public void replay(long fromEventId, ChangeEventSink sink) {
+        long next = fromEventId;
+        while (true) {
+            long from = next;
+            List<ChangeEvent> events = transactionTemplate.execute(status -> queryFactory
+                    .selectFrom(outboxEvent)
+                    .where(outboxEvent.id.goe(from))
+                    .orderBy(outboxEvent.id.asc())
+                    .limit(batchSize)
+                    .fetch()
+                    .stream().map(ChangeEvent::from).toList());
+            if (events == null || events.isEmpty()) {
+                return;
+            }
+            sink.publish(events);
+            next = events.get(events.size() - 1).eventId() + 1;
+        }
+    }
+
+    // 보관 기간이 지난 전달 완료 이벤트 삭제
+    @Scheduled(fixedDelayString = "${querydsl.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        Long deleted = transactionTemplate.execute(status -> queryFactory
+                .delete(outboxEvent)
+                .where(outboxEvent.published.isTrue(), outboxEvent.createdAt.lt(before))
+                .execute());
+        log.debug("outbox purge: {} events", deleted);
+    }
+
+    private void publish(List<ChangeEvent> events, List<ChangeEventSink> targets) {
+        for (ChangeEventSink sink : targets) {
+            sink.publish(events);
+        }
+    }
+}
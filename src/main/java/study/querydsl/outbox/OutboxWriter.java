@@ -0,0 +1,59 @@
+package study.querydsl.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * outbox_event insert
+ * JdbcTemplate 은 JpaTransactionManager 가 연 커넥션을 그대로 쓰므로 엔티티 변경과 같은 트랜잭션에 묶인다.
+ * 트랜잭션 안에서 호출해야 하며, 롤백되면 이벤트도 함께 사라진다.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    public static final String MEMBER = "Member";
+    public static final String TEAM = "Team";
+
+    private static final String INSERT = "insert into outbox_event " +
+            "(aggregate_type, aggregate_id, event_type, payload, created_at, published) values (?, ?, ?, ?, ?, false)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public void record(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        jdbcTemplate.update(INSERT, aggregateType, aggregateId, eventType, toJson(payload), now());
+    }
+
+    /**
+     * 벌크 update/delete 용
+     * 엔티티 리스너가 호출되지 않으므로 벌크 연산을 실행한 쪽에서 대상 id 와 함께 직접 기록해야 한다.
+     */
+    public void recordAll(String aggregateType, String eventType, Map<Long, ?> payloads) {
+        Timestamp now = now();
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        payloads.forEach((id, payload) -> rows.add(new Object[]{aggregateType, id, eventType, toJson(payload), now}));
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("cannot serialize outbox payload", e);
+        }
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
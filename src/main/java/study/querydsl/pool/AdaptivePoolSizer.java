@@ -0,0 +1,67 @@
+package study.querydsl.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HikariCP maximumPoolSize 를 실행 중에 조정 (querydsl.pool.adaptive.enabled=true)
+ * 조정 규칙은 PoolSizingPolicy 참고, 현재 목표 크기는 db.pool.size.target metric
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "querydsl.pool.adaptive", name = "enabled", havingValue = "true")
+public class AdaptivePoolSizer {
+
+    private final HikariDataSource hikariDataSource;
+    private final ConnectionTracker connectionTracker;
+    private final PoolSizingPolicy policy;
+    private final AtomicInteger targetSize;
+
+    public AdaptivePoolSizer(DataSource dataSource,
+                             ConnectionTracker connectionTracker,
+                             MeterRegistry meterRegistry,
+                             @Value("${querydsl.pool.adaptive.min-size:5}") int minSize,
+                             @Value("${querydsl.pool.adaptive.max-size:50}") int maxSize,
+                             @Value("${querydsl.pool.adaptive.step:2}") int step,
+                             @Value("${querydsl.pool.adaptive.wait-threshold-ms:5}") double waitThresholdMs,
+                             @Value("${querydsl.pool.adaptive.latency-tolerance:2.0}") double latencyTolerance) {
+        this.hikariDataSource = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+        if (hikariDataSource == null) {
+            throw new IllegalStateException("adaptive pool sizing requires HikariCP");
+        }
+        this.connectionTracker = connectionTracker;
+        this.policy = new PoolSizingPolicy(minSize, maxSize, step, waitThresholdMs, latencyTolerance);
+        this.targetSize = meterRegistry.gauge("db.pool.size.target",
+                new AtomicInteger(hikariDataSource.getMaximumPoolSize()));
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.pool.adaptive.interval-ms:5000}")
+    public void adjust() {
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            // 아직 첫 커넥션을 만들기 전
+            return;
+        }
+        ConnectionTracker.Sample sample = connectionTracker.sample();
+        int current = hikariDataSource.getMaximumPoolSize();
+        int next = policy.nextSize(current, pool.getActiveConnections(), pool.getThreadsAwaitingConnection(),
+                sample.avgAcquireMs(), sample.avgUsageMs());
+        if (next != current) {
+            log.info("pool size {} -> {} (acquire {}ms, usage {}ms, baseline {}ms)", current, next,
+                    sample.avgAcquireMs(), sample.avgUsageMs(), policy.getBaselineUsageMs());
+            hikariDataSource.getHikariConfigMXBean().setMaximumPoolSize(next);
+        }
+        targetSize.set(next);
+    }
+}
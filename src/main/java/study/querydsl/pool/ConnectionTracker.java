@@ -0,0 +1,159 @@
+package study.querydsl.pool;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 커넥션 획득/반납 추적 (p6spy JdbcEventListener, p6spy-spring-boot-starter 가 빈을 등록해준다.)
+ * 1. repository 메서드별 획득 대기 시간, 사용 시간 (db.connection.acquire, db.connection.usage)
+ * 2. leak-threshold 보다 오래 반납되지 않은 커넥션 경고 (닫지 않은 Stream 조회 등)
+ * 3. AdaptivePoolSizer 가 쓰는 구간 평균 (sample)
+ * 4. repository 메서드별 실행한 statement 수 (db.statements, batch 는 1번)
+ * HikariCP 자체 metric (hikaricp.connections.*) 은 Spring Boot 가 따로 등록한다.
+ */
+@Slf4j
+@Component
+public class ConnectionTracker extends JdbcEventListener {
+
+    private final MeterRegistry meterRegistry;
+    private final long leakThresholdNanos;
+    private final boolean captureStack;
+    private final Map<ConnectionInformation, Lease> leases = new ConcurrentHashMap<>();
+    private final Map<String, Timer> acquireTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> usageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> statementCounters = new ConcurrentHashMap<>();
+    private final Counter leakCounter;
+
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder usageNanos = new LongAdder();
+    private final LongAdder usageCount = new LongAdder();
+
+    public ConnectionTracker(MeterRegistry meterRegistry,
+                             @Value("${querydsl.pool.leak-threshold-ms:30000}") long leakThresholdMs,
+                             @Value("${querydsl.pool.leak-capture-stack:false}") boolean captureStack) {
+        this.meterRegistry = meterRegistry;
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMs);
+        this.captureStack = captureStack;
+        this.leakCounter = Counter.builder("db.connection.leak.suspected").register(meterRegistry);
+        meterRegistry.gauge("db.connection.leased", leases, Map::size);
+    }
+
+    @Override
+    public void onAfterGetConnection(ConnectionInformation connectionInformation, SQLException e) {
+        if (e != null) {
+            return;
+        }
+        String method = RepositoryMethodContext.current();
+        long waited = connectionInformation.getTimeToGetConnectionNs();
+        timer(acquireTimers, "db.connection.acquire", method).record(waited, TimeUnit.NANOSECONDS);
+        acquireNanos.add(waited);
+        acquireCount.increment();
+
+        // 스택은 비용이 크므로 설정했을 때만 남긴다.
+        Throwable acquiredAt = captureStack ? new Throwable("connection acquired by " + method) : null;
+        leases.put(connectionInformation, new Lease(method, System.nanoTime(), acquiredAt));
+    }
+
+    @Override
+    public void onAfterConnectionClose(ConnectionInformation connectionInformation, SQLException e) {
+        Lease lease = leases.remove(connectionInformation);
+        if (lease == null) {
+            return;
+        }
+        long used = System.nanoTime() - lease.acquiredAt();
+        timer(usageTimers, "db.connection.usage", lease.method()).record(used, TimeUnit.NANOSECONDS);
+        usageNanos.add(used);
+        usageCount.increment();
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        statementCounters.computeIfAbsent(RepositoryMethodContext.current(), method -> Counter.builder("db.statements")
+                        .tag("method", method)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.pool.leak-check-interval-ms:10000}")
+    public void detectLeaks() {
+        long now = System.nanoTime();
+        for (Lease lease : leases.values()) {
+            if (now - lease.acquiredAt() > leakThresholdNanos && lease.markReported()) {
+                leakCounter.increment();
+                log.warn("connection held for {} by {}",
+                        Duration.ofNanos(now - lease.acquiredAt()), lease.method(), lease.acquiredBy());
+            }
+        }
+    }
+
+    /**
+     * 마지막 호출 이후 평균 획득 대기, 사용 시간 (ms)
+     */
+    public Sample sample() {
+        return new Sample(average(acquireNanos.sumThenReset(), acquireCount.sumThenReset()),
+                average(usageNanos.sumThenReset(), usageCount.sumThenReset()));
+    }
+
+    private Timer timer(Map<String, Timer> timers, String name, String method) {
+        return timers.computeIfAbsent(method, key -> Timer.builder(name)
+                .tag("method", key)
+                .register(meterRegistry));
+    }
+
+    private static double average(long nanos, long count) {
+        return count == 0 ? 0 : nanos / (double) count / 1_000_000;
+    }
+
+    public record Sample(double avgAcquireMs, double avgUsageMs) {
+    }
+
+    private static final class Lease {
+        private final String method;
+        private final long acquiredAt;
+        private final Throwable acquiredBy;
+        private volatile boolean reported;
+
+        private Lease(String method, long acquiredAt, Throwable acquiredBy) {
+            this.method = method;
+            this.acquiredAt = acquiredAt;
+            this.acquiredBy = acquiredBy;
+        }
+
+        String method() {
+            return method;
+        }
+
+        long acquiredAt() {
+            return acquiredAt;
+        }
+
+        Throwable acquiredBy() {
+            return acquiredBy;
+        }
+
+        // 같은 커넥션은 한 번만 경고
+        boolean markReported() {
+            if (reported) {
+                return false;
+            }
+            reported = true;
+            return true;
+        }
+    }
+}
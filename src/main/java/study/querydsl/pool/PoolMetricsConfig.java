@@ -0,0 +1,32 @@
+package study.querydsl.pool;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 커넥션 획득/사용 시간은 평균보다 꼬리 지연이 중요하므로 histogram 을 켠다.
+ */
+@Configuration
+public class PoolMetricsConfig {
+
+    @Bean
+    MeterFilter connectionHistogramFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String name = id.getName();
+                if (name.startsWith("hikaricp.connections.") || name.startsWith("db.connection.")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .percentiles(0.5, 0.99)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
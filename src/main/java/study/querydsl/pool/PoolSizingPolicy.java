@@ -0,0 +1,62 @@
+package study.querydsl.pool;
+
+/**
+ * 커넥션 풀 크기 조정 규칙 (AdaptivePoolSizer)
+ * 1. 대기 스레드가 있고 획득 대기가 길지만 쿼리 시간은 평소 수준이면 DB 에 여유가 있으므로 늘린다.
+ * 2. 쿼리 시간이 평소(baseline)의 latency-tolerance 배를 넘으면 DB 가 포화된 것이므로 늘리지 않고 줄인다.
+ *    (커넥션을 더 줘도 DB 안에서 대기만 길어진다.)
+ * 3. 대기가 없고 절반 이상 놀고 있으면 줄인다.
+ * baseline 은 관측한 쿼리 시간의 최솟값을 따라가되 조금씩 올라가도록 해서 부하 패턴 변화에 맞춘다.
+ */
+public class PoolSizingPolicy {
+
+    private static final double BASELINE_DRIFT = 0.05;
+
+    private final int minSize;
+    private final int maxSize;
+    private final int step;
+    private final double waitThresholdMs;
+    private final double latencyTolerance;
+    private double baselineUsageMs;
+
+    public PoolSizingPolicy(int minSize, int maxSize, int step, double waitThresholdMs, double latencyTolerance) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("invalid pool bounds: " + minSize + ".." + maxSize);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.step = step;
+        this.waitThresholdMs = waitThresholdMs;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public int nextSize(int currentSize, int active, int waiting, double avgAcquireMs, double avgUsageMs) {
+        updateBaseline(avgUsageMs);
+        boolean saturated = baselineUsageMs > 0 && avgUsageMs > baselineUsageMs * latencyTolerance;
+
+        int next = currentSize;
+        if (saturated) {
+            next = currentSize - step;
+        } else if (waiting > 0 && avgAcquireMs > waitThresholdMs) {
+            next = currentSize + step;
+        } else if (waiting == 0 && active <= currentSize / 2) {
+            next = currentSize - step;
+        }
+        return Math.max(minSize, Math.min(maxSize, next));
+    }
+
+    public double getBaselineUsageMs() {
+        return baselineUsageMs;
+    }
+
+    private void updateBaseline(double avgUsageMs) {
+        if (avgUsageMs <= 0) {
+            return;
+        }
+        if (baselineUsageMs == 0 || avgUsageMs < baselineUsageMs) {
+            baselineUsageMs = avgUsageMs;
+        } else {
+            baselineUsageMs += (avgUsageMs - baselineUsageMs) * BASELINE_DRIFT;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.pool;
+
+/**
+ * 현재 스레드에서 실행 중인 repository 메서드 (ConnectionTracker 의 method 태그)
+ * 바깥 메서드 기준으로 기록한다. (repository 가 다른 repository 를 호출해도 바깥 이름 유지)
+ */
+public final class RepositoryMethodContext {
+
+    public static final String OTHER = "other";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    public static String current() {
+        String method = CURRENT.get();
+        return method != null ? method : OTHER;
+    }
+
+    static boolean enter(String method) {
+        if (CURRENT.get() != null) {
+            return false;
+        }
+        CURRENT.set(method);
+        return true;
+    }
+
+    static void exit() {
+        CURRENT.remove();
+    }
+}
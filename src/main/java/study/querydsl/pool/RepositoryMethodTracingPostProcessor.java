@@ -0,0 +1,57 @@
+package study.querydsl.pool;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+
+/**
+ * repository 호출 동안 RepositoryMethodContext 에 "빈이름.메서드" 를 남긴다.
+ * 트랜잭션 advice 보다 먼저 실행해야 커넥션 획득 시점에 이름이 남아 있으므로
+ * 이미 프록시인 빈은 기존 advisor 앞에 추가한다. (auto proxy creator 가 먼저 실행된다)
+ * 대상: Spring Data repository, @Repository 클래스
+ */
+@Component
+public class RepositoryMethodTracingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!isRepository(bean)) {
+            return bean;
+        }
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(tracingInterceptor(beanName));
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvisor(0, advisor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(bean.getClass().getInterfaces().length == 0);
+        proxyFactory.addAdvisor(advisor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static boolean isRepository(Object bean) {
+        if (bean instanceof org.springframework.data.repository.Repository<?, ?>) {
+            return true;
+        }
+        return AnnotatedElementUtils.hasAnnotation(AopUtils.getTargetClass(bean), Repository.class);
+    }
+
+    private static MethodInterceptor tracingInterceptor(String beanName) {
+        return invocation -> {
+            if (!RepositoryMethodContext.enter(beanName + "." + invocation.getMethod().getName())) {
+                return invocation.proceed();
+            }
+            try {
+                return invocation.proceed();
+            } finally {
+                RepositoryMethodContext.exit();
+            }
+        };
+    }
+}
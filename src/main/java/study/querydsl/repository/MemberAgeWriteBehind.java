@@ -0,0 +1,253 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.outbox.OutboxWriter;
+import study.querydsl.repository.support.WriteBehindJournal;
+import study.querydsl.repository.support.WriteBehindJournal.Key;
+import study.querydsl.tenant.TenantContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 자주 바뀌는 Member.age 를 모아서 반영하는 write-behind 버퍼
+ * 1. addAge 는 (호출한 tenant, 회원 id) 별 증감값을 메모리(ConcurrentHashMap)에 합산만 하고 바로 돌아간다.
+ * 2. flush-interval-ms 마다 tenant 별로 chunk-size 개씩 update ... set age = age + case ... end 한 번으로 반영
+ *    update 는 그 tenant 로 실행하고 tenant_id 조건을 넣으므로 다른 tenant 회원 id 를 넘겨도 바뀌지 않는다.
+ * 3. 버퍼가 max-pending 개를 넘으면 호출한 스레드가 직접 flush 한다. (back-pressure)
+ * 4. journal-dir 을 설정하면 변경을 파일에도 기록하여 재기동 시 복구 (WriteBehindJournal)
+ *    chunk 마다 커밋 여부를 journal 에 남기므로 일부만 반영하고 죽어도 반영된 chunk 를 다시 더하지 않는다.
+ * 엔티티를 거치지 않는 벌크 update 이므로 영속성 컨텍스트의 Member.age 는 갱신되지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberAgeWriteBehind {
+
+    public static final String AGE_ADDED = "AGE_ADDED";
+
+    private final JPAQueryFactory queryFactory;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindJournal journal;
+    private final int maxPending;
+    private final int chunkSize;
+
+    // 쓰기(addAge)는 read lock 으로 동시에, map 교체(flush)는 write lock 으로 잠깐 막는다.
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile ConcurrentHashMap<Key, Integer> pending = new ConcurrentHashMap<>();
+
+    private final Counter flushedRows;
+    private final Counter callerFlushes;
+
+    public MemberAgeWriteBehind(JPAQueryFactory queryFactory,
+                                OutboxWriter outboxWriter,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${querydsl.write-behind.max-pending:100000}") int maxPending,
+                                @Value("${querydsl.write-behind.chunk-size:200}") int chunkSize,
+                                @Value("${querydsl.write-behind.journal-dir:}") String journalDir,
+                                @Value("${querydsl.write-behind.journal-sync:false}") boolean journalSync) throws IOException {
+        this.queryFactory = queryFactory;
+        this.outboxWriter = outboxWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxPending = maxPending;
+        this.chunkSize = chunkSize;
+
+        if (hasText(journalDir)) {
+            this.journal = new WriteBehindJournal(Path.of(journalDir), journalSync);
+            Map<Key, Integer> recovered = journal.replay();
+            pending.putAll(recovered);
+            log.info("write-behind journal: recovered {} members", recovered.size());
+        } else {
+            this.journal = null;
+        }
+
+        this.flushedRows = Counter.builder("member.write-behind.flushed").register(meterRegistry);
+        this.callerFlushes = Counter.builder("member.write-behind.caller-flush")
+                .description("버퍼가 가득 차서 호출 스레드가 직접 flush 한 횟수")
+                .register(meterRegistry);
+        Gauge.builder("member.write-behind.pending", this, MemberAgeWriteBehind::pendingCount)
+                .register(meterRegistry);
+    }
+
+    public void addAge(Long memberId, int delta) {
+        Key key = new Key(TenantContext.currentForWrite(), memberId);
+        swapLock.readLock().lock();
+        try {
+            if (journal != null) {
+                journal.append(key, delta);
+            }
+            pending.merge(key, delta, Integer::sum);
+        } catch (IOException e) {
+            throw new UncheckedIOException("write-behind journal append failed", e);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        if (pending.size() >= maxPending) {
+            callerFlushes.increment();
+            flush();
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Key, Integer> drained;
+            long segment = -1;
+            swapLock.writeLock().lock();
+            try {
+                // rotate 가 실패하면 버퍼를 그대로 둔다.
+                if (journal != null) {
+                    segment = journal.rotate();
+                }
+                drained = pending;
+                pending = new ConcurrentHashMap<>();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            // 이번에 반영할 변경 전체(이전 flush 에서 실패해 되돌린 것 포함)를 checkpoint 로 남긴다.
+            // chunk 마다 tenant 하나만 담기도록 tenant 순으로 정렬
+            List<Map.Entry<Key, Integer>> entries = new ArrayList<>(drained.entrySet());
+            entries.sort(Map.Entry.comparingByKey(Comparator.comparing(Key::tenant)));
+            long checkpoint = -1;
+            if (journal != null) {
+                try {
+                    checkpoint = journal.checkpoint(segment, drained);
+                } catch (IOException e) {
+                    restore(entries);
+                    throw e;
+                }
+            }
+            int applied = 0;
+            try {
+                while (applied < entries.size()) {
+                    List<Map.Entry<Key, Integer>> chunk = nextChunk(entries, applied);
+                    transactionTemplate.executeWithoutResult(status -> update(chunk));
+                    flushedRows.increment(chunk.size());
+                    applied += chunk.size();
+                    // 커밋한 chunk 는 재기동 시 다시 더하지 않도록 표시
+                    markApplied(checkpoint, chunk);
+                }
+            } catch (RuntimeException e) {
+                // 반영하지 못한 chunk 는 다음 flush 때 다시 시도 (다음 checkpoint 에 함께 남는다.)
+                restore(entries.subList(applied, entries.size()));
+                log.warn("write-behind flush failed, {} members pending", pendingCount(), e);
+                return;
+            }
+
+            if (journal != null) {
+                journal.complete(checkpoint);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("write-behind journal write failed", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // applied 부터 같은 tenant 인 것을 최대 chunk-size 개
+    private List<Map.Entry<Key, Integer>> nextChunk(List<Map.Entry<Key, Integer>> entries, int from) {
+        String tenant = entries.get(from).getKey().tenant();
+        int to = from + 1;
+        while (to < entries.size() && to - from < chunkSize && entries.get(to).getKey().tenant().equals(tenant)) {
+            to++;
+        }
+        return entries.subList(from, to);
+    }
+
+    private void markApplied(long checkpoint, List<Map.Entry<Key, Integer>> chunk) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.markApplied(checkpoint, chunk.stream().map(Map.Entry::getKey).toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("write-behind journal mark failed", e);
+        }
+    }
+
+    // update member set age = age + case when id = ? then ? ... else 0 end, version = version + 1
+    // where tenant_id = ? and id in (...)
+    private void update(List<Map.Entry<Key, Integer>> chunk) {
+        String tenant = chunk.get(0).getKey().tenant();
+        CaseBuilder.Cases<Integer, NumberExpression<Integer>> cases = null;
+        List<Long> ids = new ArrayList<>(chunk.size());
+        Map<Long, Map<String, Object>> events = new HashMap<>();
+        for (Map.Entry<Key, Integer> entry : chunk) {
+            Long id = entry.getKey().id();
+            cases = cases == null
+                    ? new CaseBuilder().when(member.id.eq(id)).then(entry.getValue())
+                    : cases.when(member.id.eq(id)).then(entry.getValue());
+            ids.add(id);
+            events.put(id, Map.of("id", id, "ageDelta", entry.getValue()));
+        }
+        // addAge 를 호출한 tenant 로 실행 (TenantFilter, outbox 대상 조회도 같은 tenant)
+        String previous = TenantContext.bind(tenant);
+        try {
+            queryFactory
+                    .update(member)
+                    .set(member.age, member.age.add(cases.otherwise(0)))
+                    // 낙관적 락을 쓰는 다른 수정과 충돌을 감지할 수 있도록 버전도 올린다.
+                    .set(member.version, member.version.add(1L))
+                    .where(member.tenantId.eq(tenant), member.id.in(ids))
+                    .execute();
+            // update 가 남기는 UPDATED 에는 id 만 있으므로 증가량은 AGE_ADDED 로 따로 기록한다.
+            outboxWriter.recordAll(OutboxWriter.MEMBER, AGE_ADDED, events);
+        } finally {
+            TenantContext.restore(previous);
+        }
+    }
+
+    private void restore(List<Map.Entry<Key, Integer>> entries) {
+        swapLock.readLock().lock();
+        try {
+            for (Map.Entry<Key, Integer> entry : entries) {
+                pending.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
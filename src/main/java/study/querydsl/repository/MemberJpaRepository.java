@@ -2,15 +2,36 @@ package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgeUpdate;
+import study.querydsl.dto.MemberImport;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UpsertResult;
+import study.querydsl.dto.VersionedUpdateResult;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.limit.QueryLimit;
+import study.querydsl.outbox.OutboxListener;
+import study.querydsl.outbox.OutboxWriter;
+import study.querydsl.repository.support.DirectProjection;
+import study.querydsl.tenant.TenantContext;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.member;
@@ -18,13 +39,21 @@ import static study.querydsl.entity.QTeam.team;
 
 @Repository
 public class MemberJpaRepository {
+	// upsert 한 번에 처리하는 행 수 (IN 조회 파라미터 수, JDBC batch 크기)
+	private static final int UPSERT_CHUNK_SIZE = 500;
+
 	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	private final OutboxWriter outboxWriter;
+	private final UsernameIndex usernameIndex;
 
-	public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+	public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, OutboxWriter outboxWriter,
+							   UsernameIndex usernameIndex) {
 		this.em = em;
 		// Spring Bean 에 등록하여 주입받아 사용가능하다.
 		this.queryFactory = queryFactory;
+		this.outboxWriter = outboxWriter;
+		this.usernameIndex = usernameIndex;
 	}
 
 	// Member save
@@ -32,10 +61,23 @@ public class MemberJpaRepository {
 		em.persist(member);
 	}
 
-	// select Member By id
+	// Member delete
+	public void delete(Member member) {
+		em.remove(member);
+	}
+
+	// select Member By id (em.find 는 TenantFilter 가 적용되지 않으므로 tenant 확인)
 	public Optional<Member> findById(Long id) {
 		Member findMember = em.find(Member.class, id);
-		return Optional.ofNullable(findMember);
+		return Optional.ofNullable(findMember)
+				.filter(found -> TenantContext.canRead(found.getTenantId()));
+	}
+
+	// select MemberTeamDto By id (영속성 컨텍스트 밖에서 공유할 수 있는 스냅샷, MemberLookupCache)
+	public Optional<MemberTeamDto> findMemberTeamById(Long id) {
+		return Optional.ofNullable(selectMemberTeam()
+				.where(member.id.eq(id))
+				.fetchOne());
 	}
 
 	// select Member list (JPA)
@@ -53,6 +95,8 @@ public class MemberJpaRepository {
 
 
 	// select Member By username (JPA)
+	// 엔티티는 영속성 컨텍스트에 묶여 있어 스레드 간에 공유할 수 없으므로 캐시하지 않는다.
+	// 읽기만 하면 MemberLookupCache.findByUsername 을 쓴다. (findMemberTeamByUsername 스냅샷 캐시)
 	public List<Member> findByUsername(String username) {
 		return em.createQuery(
 				"select m from Member m " +
@@ -61,7 +105,7 @@ public class MemberJpaRepository {
 				.getResultList();
 	}
 
-	//  select Member By username (Querydsl)
+	//  select Member By username (Querydsl), 캐시하지 않는 이유는 findByUsername 과 같다.
 	public List<Member> findByUsername_Querydsl(String username) {
 		return queryFactory
 				.selectFrom(member)
@@ -69,6 +113,21 @@ public class MemberJpaRepository {
 				.fetch();
 	}
 
+	// select MemberTeamDto By username (MemberLookupCache)
+	public List<MemberTeamDto> findMemberTeamByUsername(String username) {
+		return List.copyOf(selectMemberTeam()
+				.where(member.username.eq(username))
+				.fetch());
+	}
+
+	private JPAQuery<MemberTeamDto> selectMemberTeam() {
+		return queryFactory
+				.select(DirectProjection.of(MemberTeamDto.class,
+						member.id, member.username, member.age, team.id, team.name, MemberTeamDto::new))
+				.from(member)
+				.leftJoin(member.team, team);
+	}
+
 	public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
 		// Builder
@@ -104,6 +163,8 @@ public class MemberJpaRepository {
 
 	}
 
+	// 조건이 모두 비어 있으면 전체 조회가 된다.
+	@QueryLimit(maxRows = 1000)
 	public List<MemberTeamDto> searchByBuilderWhere(MemberSearchCondition condition) {
 		return queryFactory
 				.select(new QMemberTeamDto(
@@ -137,6 +198,233 @@ public class MemberJpaRepository {
 				.fetch();
 	}
 
+	/*
+	버전 조건부 벌크 update (낙관적 락)
+	1. 행마다 update ... where member_id = ? and version = ? 를 JDBC batch 로 한 번에 보낸다.
+	2. 행별 update count 가 0이면 다른 트랜잭션이 먼저 수정(또는 삭제)한 것 -> conflicted (다른 tenant 의 회원도 conflicted)
+	where member_id in (...) and version = ? 는 어느 행이 충돌했는지 알 수 없어 사용하지 않는다.
+	벌크 연산이므로 실행 전 flush, 실행 후 영속성 컨텍스트를 clear 한다.
+	 */
+	@Transactional
+	public VersionedUpdateResult updateAgeIfVersionMatches(List<MemberAgeUpdate> updates) {
+		em.flush();
+		String tenant = TenantContext.currentForWrite();
+		int[] counts = em.unwrap(Session.class).doReturningWork(connection -> {
+			try (PreparedStatement ps = connection.prepareStatement(
+					"update member set age = ?, version = version + 1 where member_id = ? and version = ? and tenant_id = ?")) {
+				for (MemberAgeUpdate update : updates) {
+					ps.setInt(1, update.age());
+					ps.setLong(2, update.memberId());
+					ps.setLong(3, update.expectedVersion());
+					ps.setString(4, tenant);
+					ps.addBatch();
+				}
+				return ps.executeBatch();
+			}
+		});
+		em.clear();
+
+		List<Long> updated = new ArrayList<>();
+		List<Long> conflicted = new ArrayList<>();
+		Map<Long, Map<String, Object>> events = new HashMap<>();
+		for (int i = 0; i < counts.length; i++) {
+			// rewriteBatchedStatements 등으로 행별 결과를 주지 않는 드라이버는 충돌을 판단할 수 없다.
+			if (counts[i] == Statement.SUCCESS_NO_INFO) {
+				throw new IllegalStateException("JDBC driver did not report per-row update counts");
+			}
+			Long memberId = updates.get(i).memberId();
+			if (counts[i] > 0) {
+				updated.add(memberId);
+				events.put(memberId, Map.of("id", memberId, "age", updates.get(i).age(),
+						"version", updates.get(i).expectedVersion() + 1));
+			} else {
+				conflicted.add(memberId);
+			}
+		}
+		// 엔티티 리스너를 거치지 않으므로 outbox 에 직접 기록
+		outboxWriter.recordAll(OutboxWriter.MEMBER, OutboxListener.UPDATED, events);
+		return new VersionedUpdateResult(updated, conflicted);
+	}
+
+	/*
+	회원 일괄 upsert (username 기준)
+	청크(UPSERT_CHUNK_SIZE)마다
+	1. 팀 이름을 모아 한 번에 조회하고, 없는 팀은 batch insert
+	2. username 으로 기존 회원을 한 번에 조회해 update / insert 로 나누어 각각 JDBC batch
+	행마다 findByUsername + save 하던 것을 청크당 왕복 몇 번으로 줄인다.
+	username 은 unique 가 아니므로(같은 이름 회원 허용) MERGE, ON DUPLICATE KEY UPDATE 는 쓸 수 없어 조회 후 나눈다.
+	같은 username 회원이 여러 명이면 모두 갱신하고, 입력에 같은 username 이 여러 번 있으면 마지막 값을 쓴다.
+	id 는 Hibernate 식별자 생성기(pooled sequence)로 만들어 엔티티 저장과 겹치지 않는다.
+	JDBC 로 바로 쓰므로 팀, 회원 조회와 insert 에 현재 tenant 를 직접 넣는다.
+	 */
+	@Transactional
+	public UpsertResult upsertAll(Stream<MemberImport> rows) {
+		em.flush();
+		SessionImplementor session = em.unwrap(SessionImplementor.class);
+		String tenant = TenantContext.currentForWrite();
+		int[] totals = new int[3];
+
+		Map<String, MemberImport> chunk = new LinkedHashMap<>();
+		Iterator<MemberImport> iterator = rows.iterator();
+		while (iterator.hasNext()) {
+			MemberImport row = iterator.next();
+			chunk.put(row.username(), row);
+			if (chunk.size() == UPSERT_CHUNK_SIZE) {
+				upsertChunk(session, tenant, chunk.values(), totals);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			upsertChunk(session, tenant, chunk.values(), totals);
+		}
+		em.clear();
+		return new UpsertResult(totals[0], totals[1], totals[2]);
+	}
+
+	private void upsertChunk(SessionImplementor session, String tenant, Collection<MemberImport> rows, int[] totals) {
+		session.doWork(connection -> {
+			Map<String, Long> teamIds = resolveTeams(session, connection, tenant, rows, totals);
+			Map<String, List<Long>> existing = findMemberIdsByUsername(connection, tenant, rows);
+
+			Map<Long, Map<String, Object>> created = new HashMap<>();
+			Map<Long, Map<String, Object>> updated = new HashMap<>();
+			try (PreparedStatement update = connection.prepareStatement(
+					"update member set age = ?, team_id = ?, version = version + 1 where member_id = ?");
+				 PreparedStatement insert = connection.prepareStatement(
+					"insert into member (member_id, tenant_id, username, username_lower, age, team_id, version) values (?, ?, ?, ?, ?, ?, 0)")) {
+				for (MemberImport row : rows) {
+					Long teamId = row.teamName() != null ? teamIds.get(row.teamName()) : null;
+					List<Long> memberIds = existing.get(row.username());
+					if (memberIds != null) {
+						for (Long memberId : memberIds) {
+							update.setInt(1, row.age());
+							setNullableLong(update, 2, teamId);
+							update.setLong(3, memberId);
+							update.addBatch();
+							updated.put(memberId, importPayload(memberId, row, teamId));
+						}
+					} else {
+						Long memberId = (Long) generateId(session, Member.class);
+						insert.setLong(1, memberId);
+						insert.setString(2, tenant);
+						insert.setString(3, row.username());
+						insert.setString(4, row.username().toLowerCase(Locale.ROOT));
+						insert.setInt(5, row.age());
+						setNullableLong(insert, 6, teamId);
+						insert.addBatch();
+						created.put(memberId, importPayload(memberId, row, teamId));
+					}
+				}
+				if (!updated.isEmpty()) {
+					update.executeBatch();
+				}
+				if (!created.isEmpty()) {
+					insert.executeBatch();
+				}
+			}
+			totals[0] += created.size();
+			totals[1] += updated.size();
+
+			// 엔티티 리스너를 거치지 않으므로 색인과 outbox 에 직접 반영 (username 은 insert 할 때만 바뀐다.)
+			created.forEach((memberId, payload) -> usernameIndex.put(tenant, memberId, (String) payload.get("username")));
+			outboxWriter.recordAll(OutboxWriter.MEMBER, OutboxListener.CREATED, created);
+			outboxWriter.recordAll(OutboxWriter.MEMBER, OutboxListener.UPDATED, updated);
+		});
+	}
+
+	// 같은 이름 팀이 여러 개면 id 가 가장 작은 팀
+	private Map<String, Long> resolveTeams(SessionImplementor session, Connection connection, String tenant,
+										   Collection<MemberImport> rows, int[] totals) throws SQLException {
+		Set<String> names = new LinkedHashSet<>();
+		rows.stream().map(MemberImport::teamName).filter(Objects::nonNull).forEach(names::add);
+		Map<String, Long> teamIds = new HashMap<>();
+		if (names.isEmpty()) {
+			return teamIds;
+		}
+		try (PreparedStatement select = connection.prepareStatement(
+				"select team_id, name from team where tenant_id = ? and name in (" + placeholders(names.size()) + ") order by team_id")) {
+			select.setString(1, tenant);
+			int index = 2;
+			for (String name : names) {
+				select.setString(index++, name);
+			}
+			try (ResultSet rs = select.executeQuery()) {
+				while (rs.next()) {
+					teamIds.putIfAbsent(rs.getString("name"), rs.getLong("team_id"));
+				}
+			}
+		}
+
+		Map<Long, Map<String, Object>> created = new HashMap<>();
+		try (PreparedStatement insert = connection.prepareStatement(
+				"insert into team (team_id, tenant_id, name, version) values (?, ?, ?, 0)")) {
+			for (String name : names) {
+				if (!teamIds.containsKey(name)) {
+					Long teamId = (Long) generateId(session, Team.class);
+					insert.setLong(1, teamId);
+					insert.setString(2, tenant);
+					insert.setString(3, name);
+					insert.addBatch();
+					teamIds.put(name, teamId);
+					created.put(teamId, Map.of("id", teamId, "name", name, "version", 0L));
+				}
+			}
+			if (!created.isEmpty()) {
+				insert.executeBatch();
+			}
+		}
+		totals[2] += created.size();
+		outboxWriter.recordAll(OutboxWriter.TEAM, OutboxListener.CREATED, created);
+		return teamIds;
+	}
+
+	private Map<String, List<Long>> findMemberIdsByUsername(Connection connection, String tenant,
+															 Collection<MemberImport> rows) throws SQLException {
+		Map<String, List<Long>> ids = new HashMap<>();
+		try (PreparedStatement select = connection.prepareStatement(
+				"select member_id, username from member where tenant_id = ? and username in (" + placeholders(rows.size()) + ")")) {
+			select.setString(1, tenant);
+			int index = 2;
+			for (MemberImport row : rows) {
+				select.setString(index++, row.username());
+			}
+			try (ResultSet rs = select.executeQuery()) {
+				while (rs.next()) {
+					ids.computeIfAbsent(rs.getString("username"), key -> new ArrayList<>()).add(rs.getLong("member_id"));
+				}
+			}
+		}
+		return ids;
+	}
+
+	private static Object generateId(SessionImplementor session, Class<?> entityClass) {
+		return session.getFactory().getRuntimeMetamodels().getMappingMetamodel()
+				.getEntityDescriptor(entityClass)
+				.getIdentifierGenerator()
+				.generate(session, null);
+	}
+
+	private static Map<String, Object> importPayload(Long memberId, MemberImport row, Long teamId) {
+		Map<String, Object> payload = new HashMap<>();
+		payload.put("id", memberId);
+		payload.put("username", row.username());
+		payload.put("age", row.age());
+		payload.put("teamId", teamId);
+		return payload;
+	}
+
+	private static String placeholders(int count) {
+		return String.join(", ", Collections.nCopies(count, "?"));
+	}
+
+	private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+		if (value != null) {
+			ps.setLong(index, value);
+		} else {
+			ps.setNull(index, Types.BIGINT);
+		}
+	}
+
 	private BooleanExpression usernameEq(String username) {
 		return hasText(username) ? member.username.eq(username) : null;
 	}
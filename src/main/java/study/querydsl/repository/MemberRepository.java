@@ -2,11 +2,46 @@ package study.querydsl.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.querydsl.binding.QuerydslBinderCustomizer;
+import org.springframework.data.querydsl.binding.QuerydslBindings;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom,
+        QuerydslPredicateExecutor<Member>, QuerydslBinderCustomizer<QMember> {
+    // 수정용 엔티티 조회라 캐시하지 않는다. 읽기만 하면 MemberLookupCache.findByUsername (DTO)
     List<Member> findByUsername(String username);
 
+    /*
+    v3/members/query 파라미터 바인딩
+    1. username : 접두사 검색 (?username=mem)
+    2. age : 값이 1개면 eq, 2개면 범위 (?age=10&age=30, 순서는 상관없다.) 3개 이상이면 400
+    3. team.id : eq
+    그 외 파라미터는 무시한다.
+     */
+    @Override
+    default void customize(QuerydslBindings bindings, QMember member) {
+        bindings.including(member.username, member.age, member.team.id);
+        bindings.bind(member.username).first((path, value) -> path.startsWith(value));
+        bindings.bind(member.age).all((path, values) -> {
+            // 조용히 버리면 의도와 다른 결과가 나오므로 거절한다.
+            if (values.size() > 2) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "age accepts one value or a range of two");
+            }
+            Iterator<? extends Integer> it = values.iterator();
+            Integer from = it.next();
+            if (!it.hasNext()) {
+                return Optional.of(path.eq(from));
+            }
+            Integer to = it.next();
+            // ?age=40&age=20 도 20 ~ 40 으로 본다.
+            return Optional.of(path.between(Math.min(from, to), Math.max(from, to)));
+        });
+    }
 }
@@ -1,6 +1,7 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
@@ -16,10 +17,13 @@ import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberArchive.memberArchive;
 import static study.querydsl.entity.QTeam.team;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
@@ -30,14 +34,17 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     2. from부터 시작
      */
     private final JPAQueryFactory queryFactory;
+    private final UsernameIndex usernameIndex;
 
 //    public MemberRepositoryImpl(EntityManager em) {
 //        super(Member.class);
 //        this.queryFactory = new JPAQueryFactory(em);
 //    }
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    // QueryRewriter 가 적용되도록 Bean 으로 등록된 JPAQueryFactory 를 사용
+    public MemberRepositoryImpl(JPAQueryFactory queryFactory, UsernameIndex usernameIndex) {
+        this.queryFactory = queryFactory;
+        this.usernameIndex = usernameIndex;
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
@@ -58,7 +65,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //                ))
 //                .fetch();
 
-        return queryFactory
+        List<MemberTeamDto> result = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -72,9 +79,18 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIndex.usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameIndex.usernameContains(condition.getUsernameContains())
                 )
                 .fetch();
+
+        if (!condition.isIncludeArchived()) {
+            return result;
+        }
+        List<MemberTeamDto> all = new ArrayList<>(result);
+        all.addAll(archivedQuery(condition).fetch());
+        return all;
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -109,7 +125,9 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIndex.usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameIndex.usernameContains(condition.getUsernameContains())
                 )
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
@@ -163,7 +181,9 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIndex.usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameIndex.usernameContains(condition.getUsernameContains())
                 )
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
@@ -179,13 +199,94 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameIndex.usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameIndex.usernameContains(condition.getUsernameContains())
                 );
         // querydsl이 count query 랑 같이 내보낸다.
 //                .fetchCount();
         // count 쿼리를 최적화하여 사용하는 것이 좋다.
 //        return new PageImpl<>(results, pageable, totalCount);
 
+        if (!condition.isIncludeArchived()) {
+            return PageableExecutionUtils.getPage(results, pageable, countQuery::fetchOne);
+        }
+
+        // member 뒤에 member_archive 를 이어 붙인 것처럼 페이징한다.
+        // member 로 페이지가 다 차지 않을 때만 member_archive 를 읽는다.
+        long hotTotal = countQuery.fetchOne();
+        List<MemberTeamDto> content = new ArrayList<>(results);
+        int remaining = pageable.getPageSize() - results.size();
+        if (remaining > 0) {
+            content.addAll(archivedQuery(condition)
+                    .offset(Math.max(0, pageable.getOffset() - hotTotal))
+                    .limit(remaining)
+                    .fetch());
+        }
+        long archivedTotal = queryFactory
+                .select(memberArchive.count())
+                .from(memberArchive)
+                .leftJoin(team).on(team.id.eq(memberArchive.teamId))
+                .where(archivedConditions(condition))
+                .fetchOne();
+        return new PageImpl<>(content, pageable, hotTotal + archivedTotal);
+    }
+
+    /*
+    보관된 회원 (MemberArchiver 가 옮긴 member_archive)
+    team 과 FK 없이 team_id 만 가지므로 on 절로 조인한다. (팀이 지워졌으면 teamId 만 남고 teamName 은 null)
+    UsernameIndex 는 member 만 색인하므로 접두사, 부분 문자열은 username_lower 로 DB 에서 찾는다.
+     */
+    private JPAQuery<MemberTeamDto> archivedQuery(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        memberArchive.id.as("memberId"),
+                        memberArchive.username,
+                        memberArchive.age,
+                        memberArchive.teamId.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(memberArchive)
+                .leftJoin(team).on(team.id.eq(memberArchive.teamId))
+                .where(archivedConditions(condition));
+    }
+
+    private Predicate[] archivedConditions(MemberSearchCondition condition) {
+        return new Predicate[]{
+                hasText(condition.getUsername()) ? memberArchive.username.eq(condition.getUsername()) : null,
+                teamNameEq(condition.getTeamName()),
+                condition.getAgeGoe() != null ? memberArchive.age.goe(condition.getAgeGoe()) : null,
+                condition.getAgeLoe() != null ? memberArchive.age.loe(condition.getAgeLoe()) : null,
+                hasText(condition.getUsernamePrefix())
+                        ? memberArchive.usernameLower.startsWith(condition.getUsernamePrefix().toLowerCase(Locale.ROOT)) : null,
+                hasText(condition.getUsernameContains())
+                        ? memberArchive.usernameLower.contains(condition.getUsernameContains().toLowerCase(Locale.ROOT)) : null
+        };
+    }
+
+    // @QuerydslPredicate 로 바인딩된 조건을 엔티티가 아닌 DTO 로 조회
+    @Override
+    public Page<MemberTeamDto> searchByPredicate(Predicate predicate, Pageable pageable) {
+        List<MemberTeamDto> results = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicate)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member)
+                .where(predicate);
+
         return PageableExecutionUtils.getPage(results, pageable, countQuery::fetchOne);
     }
 }
@@ -0,0 +1,114 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.limit.QueryLimits;
+import study.querydsl.limit.QueryScope;
+import study.querydsl.repository.support.SingleFlight;
+import study.querydsl.sql.MemberSqlRepository;
+import study.querydsl.tenant.TenantContext;
+
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 동일한 검색 조건, 페이지로 동시에 들어온 searchPageComplex 요청을 하나로 합친다.
+ * 트래픽이 몰릴 때 같은 content/count 쿼리가 요청 수만큼 나가는 것을 막기 위함
+ * 실행 방식(SearchEngine)은 요청마다 고를 수 있고, 지정하지 않으면 querydsl.search.engine (기본 JPA)
+ */
+@Component
+public class MemberSearchCoalescer {
+
+    private final MemberRepositoryCustom memberRepository;
+    private final MemberSqlRepository memberSqlRepository;
+    private final SearchEngine defaultEngine;
+    private final SingleFlight<SearchKey, Page<MemberTeamDto>> singleFlight = new SingleFlight<>();
+
+    public MemberSearchCoalescer(MemberRepository memberRepository,
+                                 MemberSqlRepository memberSqlRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${querydsl.search.engine:JPA}") SearchEngine defaultEngine) {
+        this.memberRepository = memberRepository;
+        this.memberSqlRepository = memberSqlRepository;
+        this.defaultEngine = defaultEngine;
+        FunctionCounter.builder("member.search.executed", singleFlight, SingleFlight::executedCount)
+                .description("실제로 실행된 검색 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("member.search.coalesced", singleFlight, SingleFlight::coalescedCount)
+                .description("진행 중인 동일 검색 결과를 공유한 요청 수")
+                .register(meterRegistry);
+        Gauge.builder("member.search.in-flight", singleFlight, SingleFlight::inFlightCount)
+                .register(meterRegistry);
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageComplex(condition, pageable, null);
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, SearchEngine engine) {
+        SearchEngine selected = engine != null ? engine : defaultEngine;
+        QueryScope scope = QueryScope.current();
+        QueryLimits limits = scope != null ? scope.limits() : QueryLimits.NONE;
+        SearchKey key = SearchKey.of(condition, pageable, selected, limits);
+        return singleFlight.execute(key, () -> {
+            // 공유하는 쿼리는 먼저 온 요청의 scope 가 아닌 따로 만든 scope 로 실행 (취소, 시간 초과가 다른 요청에 번지지 않도록)
+            QueryScope shared = scope != null ? scope.detach() : null;
+            QueryScope previous = shared != null ? shared.bind() : null;
+            try {
+                // 보관 회원 검색은 JPA 로만 한다.
+                Page<MemberTeamDto> page = selected == SearchEngine.SQL && !condition.isIncludeArchived()
+                        ? memberSqlRepository.searchPageComplex(condition, pageable)
+                        : memberRepository.searchPageComplex(condition, pageable);
+                // 여러 요청이 같은 결과를 공유하므로 content 는 변경 불가로 만든다.
+                return new PageImpl<>(List.copyOf(page.getContent()), pageable, page.getTotalElements());
+            } finally {
+                if (shared != null) {
+                    shared.release();
+                    QueryScope.restore(previous);
+                }
+            }
+        });
+    }
+
+    /**
+     * 공백, 빈 문자열은 조건이 없는 것과 같은 쿼리이므로 같은 key 로 정규화한다.
+     * 결과가 tenant 마다 다르므로 tenant 도 key 에 넣는다. (다른 tenant 의 결과를 공유하지 않도록)
+     * 예산(maxRows 등)이 다르면 결과나 실패 여부가 달라지므로 예산도 key 에 넣는다.
+     */
+    record SearchKey(String tenant, String username, String teamName, Integer ageGoe, Integer ageLoe,
+                     String usernamePrefix, String usernameContains, boolean includeArchived,
+                     long offset, int pageSize, Sort sort, SearchEngine engine, QueryLimits limits) {
+
+        static SearchKey of(MemberSearchCondition condition, Pageable pageable, SearchEngine engine,
+                            QueryLimits limits) {
+            return new SearchKey(
+                    TenantContext.current(),
+                    normalize(condition.getUsername()),
+                    normalize(condition.getTeamName()),
+                    condition.getAgeGoe(),
+                    condition.getAgeLoe(),
+                    normalize(condition.getUsernamePrefix()),
+                    normalize(condition.getUsernameContains()),
+                    condition.isIncludeArchived(),
+                    pageable.isPaged() ? pageable.getOffset() : -1,
+                    pageable.isPaged() ? pageable.getPageSize() : -1,
+                    pageable.getSort(),
+                    engine,
+                    limits);
+        }
+
+        private static String normalize(String value) {
+            return hasText(value) ? value : null;
+        }
+    }
+}
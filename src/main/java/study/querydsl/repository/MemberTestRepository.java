@@ -7,8 +7,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.DirectProjection;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
 
 import java.util.List;
 
@@ -84,6 +88,19 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    // 팀별 나이 많은 순 n 명 (같은 나이면 먼저 가입한 회원), 팀이 없는 회원끼리도 한 그룹
+    public List<MemberTeamDto> oldestPerTeam(int n, String usernamePrefix) {
+        SMember m = SMember.member;
+        STeam t = STeam.team;
+        return selectTopNPerGroup(m, m.teamId, n,
+                DirectProjection.of(MemberTeamDto.class,
+                        m.memberId, m.username, m.age, t.teamId, t.name, MemberTeamDto::new),
+                hasText(usernamePrefix) ? m.username.startsWith(usernamePrefix) : null,
+                m.age.desc(), m.memberId.asc())
+                .leftJoin(t).on(m.teamId.eq(t.teamId))
+                .fetch();
+    }
+
     private BooleanExpression usernameEq(String username) {
         return isEmpty(username) ? member.username.eq(username) : null;
     }
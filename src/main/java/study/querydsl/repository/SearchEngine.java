@@ -0,0 +1,10 @@
+package study.querydsl.repository;
+
+/**
+ * 회원 검색 실행 방식
+ * JPA : MemberRepositoryImpl (querydsl-jpa)
+ * SQL : MemberSqlRepository (querydsl-sql, JDBC 직접 조회)
+ */
+public enum SearchEngine {
+    JPA, SQL
+}
@@ -0,0 +1,259 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.outbox.ChangeEvent;
+import study.querydsl.outbox.OutboxWriter;
+import study.querydsl.repository.support.TrigramIndex;
+import study.querydsl.tenant.TenantContext;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * username 접두사/부분 문자열 검색용 색인
+ * like '%x%' 풀 스캔 대신 색인에서 id 목록을 먼저 구하고 member.id in (...) 조건으로 바꾼다.
+ * 1. 기동 시 member 테이블 전체를 id 순으로 나눠 읽어 색인 생성
+ * 2. 이 노드의 엔티티 변경은 UsernameIndexListener (엔티티 생명주기 이벤트)로 바로 반영
+ * 3. 그 외 변경(다른 노드, 벌크 update, JDBC import, archive)은 outbox ChangeEvent 와 CacheInvalidationBus 로
+ *    member id 를 받아 DB 에서 다시 읽는다. (refresh) 모든 쓰기가 outbox 에 남으므로 노드마다 같은 상태로 수렴한다.
+ * 트랜잭션 안의 변경(put, remove)은 커밋된 뒤에 색인에 넣는다. (롤백된 변경이 다른 요청의 검색에 섞이지 않도록)
+ * 커밋 전에는 같은 트랜잭션의 검색에서만 보이며, 이벤트가 flush 때 발생하므로 flush 된 변경까지만 보인다.
+ * outbox 를 거친 변경은 relay 주기(querydsl.outbox.relay-interval-ms)만큼 늦게 보인다.
+ * 애플리케이션 밖에서 DB 를 직접 고치면 outbox 가 없으므로 rebuild() 를 호출해야 한다.
+ * tenant 마다 따로 색인하므로 검색 비용과 max-ids 판단은 현재 tenant 의 회원 수만 따른다.
+ */
+@Slf4j
+@Component
+public class UsernameIndex implements ApplicationRunner {
+
+    private final Map<String, TrigramIndex> indexes = new ConcurrentHashMap<>();
+    private final JPAQueryFactory queryFactory;
+    private final int maxIds;
+    private final int loadBatchSize;
+
+    public UsernameIndex(JPAQueryFactory queryFactory,
+                         @Value("${querydsl.username-index.max-ids:1000}") int maxIds,
+                         @Value("${querydsl.username-index.load-batch-size:10000}") int loadBatchSize) {
+        this.queryFactory = queryFactory;
+        this.maxIds = maxIds;
+        this.loadBatchSize = loadBatchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        indexes.clear();
+        Long lastId = 0L;
+        int count = 0;
+        // 모든 tenant 를 읽는다. (tenant filter 해제)
+        String previous = TenantContext.bind(TenantContext.ALL);
+        try {
+            while (true) {
+                // offset 대신 id 기준으로 끊어 읽는다.
+                List<Tuple> rows = queryFactory
+                        .select(member.id, member.tenantId, member.username)
+                        .from(member)
+                        .where(member.id.gt(lastId))
+                        .orderBy(member.id.asc())
+                        .limit(loadBatchSize)
+                        .fetch();
+                for (Tuple row : rows) {
+                    apply(row.get(member.tenantId), row.get(member.id), row.get(member.username));
+                }
+                count += rows.size();
+                if (rows.size() < loadBatchSize) {
+                    break;
+                }
+                lastId = rows.get(rows.size() - 1).get(member.id);
+            }
+        } finally {
+            TenantContext.restore(previous);
+        }
+        log.info("username index: {} members, {} tenants in {} ms", count, indexes.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * DB 의 현재 값으로 한 회원의 색인을 맞춘다. 없으면(삭제, archive) 색인에서 뺀다.
+     * 커밋된 변경의 id 만 받으므로 payload 없이 다시 읽는다. (벌크 update 의 UPDATED 에는 id 만 있다.)
+     */
+    public void refresh(Long id) {
+        Tuple row;
+        String previous = TenantContext.bind(TenantContext.ALL);
+        try {
+            row = queryFactory
+                    .select(member.tenantId, member.username)
+                    .from(member)
+                    .where(member.id.eq(id))
+                    .fetchOne();
+        } finally {
+            TenantContext.restore(previous);
+        }
+        if (row == null) {
+            // tenant 를 알 수 없으므로 모든 tenant 색인에서 뺀다.
+            indexes.values().forEach(index -> index.remove(id));
+            return;
+        }
+        apply(row.get(member.tenantId), id, row.get(member.username));
+    }
+
+    // 이 노드가 relay 한 이벤트, 다른 노드는 CacheInvalidationBus 의 member 무효화로 refresh 한다.
+    @EventListener
+    public void onChange(ChangeEvent event) {
+        // age 만 바뀐 이벤트는 username 과 무관하다.
+        if (OutboxWriter.MEMBER.equals(event.aggregateType())
+                && !MemberAgeWriteBehind.AGE_ADDED.equals(event.eventType())) {
+            refresh(event.aggregateId());
+        }
+    }
+
+    public void put(String tenant, Long id, String username) {
+        change(tenant, id, username);
+    }
+
+    public void remove(String tenant, Long id) {
+        change(tenant, id, null);
+    }
+
+    public BooleanExpression usernameStartsWith(String prefix) {
+        if (!hasText(prefix)) {
+            return null;
+        }
+        // 전체 tenant 조회(ALL)는 색인이 tenant 별로 나뉘어 있으므로 DB 에 맡긴다.
+        if (TenantContext.isAll()) {
+            return member.username.lower().startsWith(prefix.toLowerCase(Locale.ROOT));
+        }
+        Set<Long> ids = lookup(prefix, TrigramIndex::startsWith);
+        // 후보가 너무 많으면 in 절이 오히려 느리므로 DB 에 맡긴다.
+        if (ids.size() > maxIds) {
+            return member.username.lower().startsWith(prefix.toLowerCase(Locale.ROOT));
+        }
+        return idIn(ids);
+    }
+
+    public BooleanExpression usernameContains(String infix) {
+        if (!hasText(infix)) {
+            return null;
+        }
+        if (TenantContext.isAll()) {
+            return member.username.lower().contains(infix.toLowerCase(Locale.ROOT));
+        }
+        Set<Long> ids = lookup(infix, TrigramIndex::contains);
+        if (ids.size() > maxIds) {
+            return member.username.lower().contains(infix.toLowerCase(Locale.ROOT));
+        }
+        return idIn(ids);
+    }
+
+    // username 이 null 이면 삭제
+    private void change(String tenant, Long id, String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(tenant, id, username);
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            Pending registered = pending;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    registered.changes.forEach((key, value) -> apply(key.tenant(), key.id(), value));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(UsernameIndex.this);
+                }
+            });
+        }
+        pending.add(tenant, id, username);
+    }
+
+    private void apply(String tenant, Long id, String username) {
+        if (username != null) {
+            indexes.computeIfAbsent(tenant, key -> new TrigramIndex()).put(id, username);
+            return;
+        }
+        TrigramIndex index = indexes.get(tenant);
+        if (index != null) {
+            index.remove(id);
+        }
+    }
+
+    // 커밋된 색인 결과에 현재 트랜잭션에서 아직 커밋하지 않은 변경을 덮어쓴다.
+    private Set<Long> lookup(String text, BiFunction<TrigramIndex, String, Set<Long>> search) {
+        String tenant = TenantContext.current();
+        TrigramIndex index = indexes.get(tenant);
+        Set<Long> ids = index != null ? search.apply(index, text) : new HashSet<>();
+        Pending pending = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (Pending) TransactionSynchronizationManager.getResource(this) : null;
+        if (pending != null) {
+            pending.overlay(tenant, ids, text, search);
+        }
+        return ids;
+    }
+
+    private BooleanExpression idIn(Set<Long> ids) {
+        // 결과 없음, id 는 null 일 수 없다.
+        return ids.isEmpty() ? member.id.isNull() : member.id.in(ids);
+    }
+
+    private record Key(String tenant, Long id) {
+    }
+
+    // 트랜잭션 하나의 커밋 전 변경 (트랜잭션 스레드에서만 쓴다.)
+    private static final class Pending {
+
+        // 같은 회원을 여러 번 바꾸면 마지막 값만 남긴다. (username null 은 삭제)
+        private final Map<Key, String> changes = new LinkedHashMap<>();
+        private final Map<String, TrigramIndex> indexes = new HashMap<>();
+
+        void add(String tenant, Long id, String username) {
+            changes.put(new Key(tenant, id), username);
+            TrigramIndex index = indexes.computeIfAbsent(tenant, key -> new TrigramIndex());
+            if (username != null) {
+                index.put(id, username);
+            } else {
+                index.remove(id);
+            }
+        }
+
+        void overlay(String tenant, Set<Long> ids, String text, BiFunction<TrigramIndex, String, Set<Long>> search) {
+            TrigramIndex index = indexes.get(tenant);
+            if (index == null) {
+                return;
+            }
+            changes.keySet().stream()
+                    .filter(key -> key.tenant().equals(tenant))
+                    .map(Key::id)
+                    .forEach(ids::remove);
+            ids.addAll(search.apply(index, text));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+
+/**
+ * Member 변경을 UsernameIndex 에 반영
+ * Spring Boot 가 Hibernate 에 SpringBeanContainer 를 등록하므로 빈 주입이 가능하다.
+ * EntityManagerFactory 생성 중에 만들어질 수 있으므로 UsernameIndex 는 사용 시점에 꺼낸다. (순환 참조 방지)
+ * 트랜잭션 안의 변경은 UsernameIndex 가 커밋된 뒤에 반영하므로 롤백된 변경은 색인에 남지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class UsernameIndexListener {
+
+    private final ObjectProvider<UsernameIndex> usernameIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void index(Member member) {
+        usernameIndex.getObject().put(member.getTenantId(), member.getId(), member.getUsername());
+    }
+
+    @PostRemove
+    public void remove(Member member) {
+        usernameIndex.getObject().remove(member.getTenantId(), member.getId());
+    }
+}
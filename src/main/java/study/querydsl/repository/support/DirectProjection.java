@@ -0,0 +1,105 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 생성자를 직접 호출하는 projection (FactoryExpression)
+ * Projections.bean/fields 는 행마다 reflection 으로 setter, field 에 값을 넣고,
+ * Projections.constructor 와 @QueryProjection(QMemberDto) 도 reflection 으로 생성자를 호출한다.
+ * 여기서는 생성자 참조(MemberDto::new)를 받아 행 배열에서 바로 꺼내 호출하므로 reflection 이 없다.
+ * (non-capturing 생성자 참조는 인스턴스가 하나뿐이라 행마다 만들어지는 객체도 DTO 뿐이다.)
+ *
+ * select(DirectProjection.of(MemberDto.class, member.username, member.age, MemberDto::new))
+ */
+public final class DirectProjection<T> extends FactoryExpressionBase<T> {
+
+    private final List<Expression<?>> args;
+    private final Function<Object[], ? extends T> factory;
+
+    private DirectProjection(Class<? extends T> type, Function<Object[], ? extends T> factory, Expression<?>... args) {
+        super(type);
+        this.args = List.of(args);
+        this.factory = factory;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <A, R> DirectProjection<R> of(Class<R> type, Expression<A> a,
+                                                Function<? super A, ? extends R> constructor) {
+        return new DirectProjection<>(type, row -> constructor.apply((A) row[0]), a);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <A, B, R> DirectProjection<R> of(Class<R> type, Expression<A> a, Expression<B> b,
+                                                   BiFunction<? super A, ? super B, ? extends R> constructor) {
+        return new DirectProjection<>(type, row -> constructor.apply((A) row[0], (B) row[1]), a, b);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <A, B, C, R> DirectProjection<R> of(Class<R> type, Expression<A> a, Expression<B> b, Expression<C> c,
+                                                      Constructor3<? super A, ? super B, ? super C, ? extends R> constructor) {
+        return new DirectProjection<>(type, row -> constructor.apply((A) row[0], (B) row[1], (C) row[2]), a, b, c);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <A, B, C, D, R> DirectProjection<R> of(Class<R> type, Expression<A> a, Expression<B> b,
+                                                         Expression<C> c, Expression<D> d,
+                                                         Constructor4<? super A, ? super B, ? super C, ? super D, ? extends R> constructor) {
+        return new DirectProjection<>(type,
+                row -> constructor.apply((A) row[0], (B) row[1], (C) row[2], (D) row[3]), a, b, c, d);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <A, B, C, D, E, R> DirectProjection<R> of(Class<R> type, Expression<A> a, Expression<B> b,
+                                                            Expression<C> c, Expression<D> d, Expression<E> e,
+                                                            Constructor5<? super A, ? super B, ? super C, ? super D, ? super E, ? extends R> constructor) {
+        return new DirectProjection<>(type,
+                row -> constructor.apply((A) row[0], (B) row[1], (C) row[2], (D) row[3], (E) row[4]), a, b, c, d, e);
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... row) {
+        return factory.apply(row);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        return obj instanceof DirectProjection<?> other
+                && getType().equals(other.getType())
+                && args.equals(other.args)
+                && factory.equals(other.factory);
+    }
+
+    @FunctionalInterface
+    public interface Constructor3<A, B, C, R> {
+        R apply(A a, B b, C c);
+    }
+
+    @FunctionalInterface
+    public interface Constructor4<A, B, C, D, R> {
+        R apply(A a, B b, C c, D d);
+    }
+
+    @FunctionalInterface
+    public interface Constructor5<A, B, C, D, E, R> {
+        R apply(A a, B b, C c, D d, E e);
+    }
+}
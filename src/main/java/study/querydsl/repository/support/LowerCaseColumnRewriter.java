@@ -0,0 +1,111 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 소문자 컬럼(Member.usernameLower 등)이 있는 문자열 속성의 대소문자 무시 비교를 소문자 컬럼 비교로 바꾼다.
+ * 1. lower(username) -> username_lower
+ * 2. username.equalsIgnoreCase('ABC'), startsWithIgnoreCase 등 -> username_lower = 'abc'
+ * 3. upper(username) = 'ABC' -> username_lower = 'abc'
+ *    상수가 대문자가 아니면(upper(username) = 'Abc') 바꾸지 않는다. 원래 식은 어떤 행과도 같지 않지만
+ *    소문자 비교로 바꾸면 'abc' 와 같아져 결과가 달라진다.
+ * 함수를 씌운 컬럼은 인덱스를 탈 수 없으므로, 인덱스가 있는 소문자 컬럼을 직접 비교하도록 한다.
+ * 별칭(new QMember("m"))과 무관하게 엔티티 타입, 속성 이름으로 찾는다.
+ */
+public class LowerCaseColumnRewriter extends ReplaceVisitor<Void> implements QueryRewriter {
+
+    private static final Map<Operator, Operator> IGNORE_CASE_OPS = Map.of(
+            Ops.EQ_IGNORE_CASE, Ops.EQ,
+            Ops.STARTS_WITH_IC, Ops.STARTS_WITH,
+            Ops.ENDS_WITH_IC, Ops.ENDS_WITH,
+            Ops.STRING_CONTAINS_IC, Ops.STRING_CONTAINS,
+            Ops.LIKE_IC, Ops.LIKE);
+
+    private static final Set<Operator> UPPER_OPS = Set.of(
+            Ops.EQ, Ops.NE, Ops.STARTS_WITH, Ops.ENDS_WITH, Ops.STRING_CONTAINS, Ops.LIKE);
+
+    // 엔티티 타입 -> (속성 -> 소문자 속성)
+    private final Map<Class<?>, Map<String, String>> lowerColumns;
+
+    public LowerCaseColumnRewriter(Map<Class<?>, Map<String, String>> lowerColumns) {
+        this.lowerColumns = lowerColumns;
+    }
+
+    @Override
+    public void rewrite(QueryMetadata metadata) {
+        Predicate where = metadata.getWhere();
+        if (where == null) {
+            return;
+        }
+        Predicate rewritten = (Predicate) where.accept(this, null);
+        if (rewritten != where) {
+            metadata.clearWhere();
+            metadata.addWhere(rewritten);
+        }
+    }
+
+    @Override
+    public Expression<?> visit(Operation<?> expr, Void context) {
+        Operator op = expr.getOperator();
+        List<Expression<?>> args = expr.getArgs();
+
+        if (op == Ops.LOWER) {
+            StringPath lower = lowerColumn(args.get(0));
+            if (lower != null) {
+                return lower;
+            }
+        }
+
+        if (args.size() == 2 && args.get(1) instanceof Constant<?> constant
+                && constant.getConstant() instanceof String value) {
+            if (IGNORE_CASE_OPS.containsKey(op)) {
+                StringPath lower = lowerColumn(args.get(0));
+                if (lower != null) {
+                    return ExpressionUtils.predicate(IGNORE_CASE_OPS.get(op), lower, lowerConstant(value));
+                }
+            }
+            if (UPPER_OPS.contains(op) && args.get(0) instanceof Operation<?> upper && upper.getOperator() == Ops.UPPER
+                    && value.equals(value.toUpperCase(Locale.ROOT))) {
+                StringPath lower = lowerColumn(upper.getArg(0));
+                if (lower != null) {
+                    return ExpressionUtils.predicate(op, lower, lowerConstant(value));
+                }
+            }
+        }
+
+        return super.visit(expr, context);
+    }
+
+    private StringPath lowerColumn(Expression<?> expr) {
+        if (!(expr instanceof Path<?> path) || path.getMetadata().getParent() == null) {
+            return null;
+        }
+        Path<?> parent = path.getMetadata().getParent();
+        Map<String, String> columns = lowerColumns.get(parent.getType());
+        if (columns == null || !columns.containsKey(path.getMetadata().getName())) {
+            return null;
+        }
+        return Expressions.stringPath(parent, columns.get(path.getMetadata().getName()));
+    }
+
+    private static Expression<String> lowerConstant(String value) {
+        return ConstantImpl.create(value.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락 충돌 시 재시도
+ * 1. 매 시도마다 새 트랜잭션 (REQUIRES_NEW) 에서 엔티티를 다시 읽어야 하므로 work 안에서 조회부터 해야 한다.
+ * 2. 재시도 간격은 지수 증가 + jitter (동시에 충돌한 요청들이 다시 동시에 충돌하지 않도록)
+ * 3. maxAttempts 를 넘으면 마지막 예외를 그대로 던진다.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   @Value("${querydsl.optimistic-retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${querydsl.optimistic-retry.initial-backoff-ms:10}") long initialBackoffMillis,
+                                   @Value("${querydsl.optimistic-retry.max-backoff-ms:500}") long maxBackoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("optimistic lock conflict, retry {}/{}", attempt, maxAttempts);
+                sleep(backoff(attempt));
+            }
+        }
+    }
+
+    public void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting to retry", e);
+        }
+    }
+}
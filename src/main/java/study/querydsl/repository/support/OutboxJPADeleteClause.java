@@ -0,0 +1,41 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import jakarta.persistence.EntityManager;
+import study.querydsl.outbox.OutboxListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 실행 후 outbox 에 DELETED 를 기록하는 JPADeleteClause (RewritingJPAQueryFactory.delete)
+ */
+class OutboxJPADeleteClause extends JPADeleteClause {
+
+    private final EntityPath<?> entity;
+    private final RewritingJPAQueryFactory queryFactory;
+    private final List<Predicate> where = new ArrayList<>();
+
+    OutboxJPADeleteClause(EntityManager em, EntityPath<?> entity, JPQLTemplates templates,
+                          RewritingJPAQueryFactory queryFactory) {
+        super(em, entity, templates);
+        this.entity = entity;
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public JPADeleteClause where(Predicate... o) {
+        Arrays.stream(o).filter(Objects::nonNull).forEach(where::add);
+        return super.where(o);
+    }
+
+    @Override
+    public long execute() {
+        return queryFactory.executeAndRecord(entity, where, OutboxListener.DELETED, super::execute);
+    }
+}
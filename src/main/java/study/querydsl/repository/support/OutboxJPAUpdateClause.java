@@ -0,0 +1,41 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import study.querydsl.outbox.OutboxListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 실행 후 outbox 에 UPDATED 를 기록하는 JPAUpdateClause (RewritingJPAQueryFactory.update)
+ */
+class OutboxJPAUpdateClause extends JPAUpdateClause {
+
+    private final EntityPath<?> entity;
+    private final RewritingJPAQueryFactory queryFactory;
+    private final List<Predicate> where = new ArrayList<>();
+
+    OutboxJPAUpdateClause(EntityManager em, EntityPath<?> entity, JPQLTemplates templates,
+                          RewritingJPAQueryFactory queryFactory) {
+        super(em, entity, templates);
+        this.entity = entity;
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public JPAUpdateClause where(Predicate... o) {
+        Arrays.stream(o).filter(Objects::nonNull).forEach(where::add);
+        return super.where(o);
+    }
+
+    @Override
+    public long execute() {
+        return queryFactory.executeAndRecord(entity, where, OutboxListener.UPDATED, super::execute);
+    }
+}
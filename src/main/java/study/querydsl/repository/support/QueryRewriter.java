@@ -0,0 +1,13 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+
+/**
+ * RewritingJPAQueryFactory 로 만든 쿼리가 JPQL 로 변환되기 직전에 호출된다.
+ * 쿼리의 metadata 를 복사한 것이 넘어오므로 바로 바꿔도 원래 쿼리에는 남지 않는다.
+ * 같은 쿼리가 여러 번(content, count) 실행되면 그때마다 다시 호출된다.
+ */
+public interface QueryRewriter {
+
+    void rewrite(QueryMetadata metadata);
+}
@@ -1,10 +1,23 @@
 package study.querydsl.repository.support;
 
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.sql.RelationalPath;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +29,9 @@ import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.util.Assert;
+import study.querydsl.tenant.TenantContext;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 
@@ -34,6 +49,7 @@ public class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private SQLQueryFactory sqlQueryFactory;
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
@@ -48,7 +64,20 @@ public class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
                 PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    // QueryRewriter 가 적용되도록 Bean 으로 등록된 JPAQueryFactory 를 사용
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        this.queryFactory = queryFactory;
+    }
+
+    // 윈도 함수 조회용 (JPQL 은 over 절을 지원하지 않는다.)
+    @Autowired
+    public void setSqlQueryFactory(SQLQueryFactory sqlQueryFactory) {
+        Assert.notNull(sqlQueryFactory, "SQLQueryFactory must not be null!");
+        this.sqlQueryFactory = sqlQueryFactory;
     }
 
     @PostConstruct
@@ -56,6 +85,7 @@ public class Querydsl4RepositorySupport {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(sqlQueryFactory, "SQLQueryFactory must not be null!");
     }
 
     protected JPAQueryFactory getQueryFactory() {
@@ -67,6 +97,9 @@ public class Querydsl4RepositorySupport {
     protected EntityManager getEntityManager() {
         return entityManager;
     }
+    protected SQLQueryFactory getSqlQueryFactory() {
+        return sqlQueryFactory;
+    }
     protected <T> JPAQuery<T> select(Expression<T> expr) {
         return getQueryFactory().select(expr);
     }
@@ -88,4 +121,46 @@ public class Querydsl4RepositorySupport {
         return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
     }
 
+    /**
+     * 그룹별 상위 n 개 (row_number() over (partition by partitionBy order by orderBy) <= n)
+     * 상관 서브쿼리나 전체 조회 후 JVM 에서 묶는 대신 DB 에서 한 번에 걸러낸다.
+     * 반환된 쿼리의 from 은 순위를 매긴 파생 테이블이며 table 과 같은 별칭을 쓰므로 table 의 경로를 그대로 쓸 수 있다.
+     * join, 조건 추가는 반환된 쿼리에 이어서 작성한다. (정렬: partitionBy, 순위)
+     *
+     * @param where 순위를 매기기 전에 거를 조건 (null 가능)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected <T> SQLQuery<T> selectTopNPerGroup(RelationalPath<?> table, Expression<?> partitionBy, long n,
+                                                  Expression<T> projection, Predicate where,
+                                                  OrderSpecifier<?>... orderBy) {
+        NumberPath<Long> rank = Expressions.numberPath(Long.class, "row_rank");
+        Expression<?>[] columns = Arrays.copyOf(table.all(), table.all().length + 1, Expression[].class);
+        columns[columns.length - 1] = SQLExpressions.rowNumber().over()
+                .partitionBy(partitionBy)
+                .orderBy(orderBy)
+                .as(rank);
+        SubQueryExpression<Tuple> ranked = SQLExpressions.select(columns)
+                .from(table)
+                .where(ExpressionUtils.and(tenantCondition(table), where));
+
+        return getSqlQueryFactory()
+                .select(projection)
+                .from(ranked, table)
+                .where(rank.loe(n))
+                .orderBy(new OrderSpecifier(Order.ASC, partitionBy), rank.asc());
+    }
+
+    // querydsl-sql 은 Hibernate filter 가 적용되지 않으므로 tenant_id 컬럼이 있는 테이블은 현재 tenant 로 거른다.
+    @SuppressWarnings("unchecked")
+    private static Predicate tenantCondition(RelationalPath<?> table) {
+        if (TenantContext.isAll()) {
+            return null;
+        }
+        for (Path<?> column : table.getColumns()) {
+            if ("tenant_id".equals(table.getMetadata(column).getName())) {
+                return ExpressionUtils.eqConst((Expression<String>) column, TenantContext.current());
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,122 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.spi.QueryImplementor;
+import study.querydsl.limit.QueryLimits;
+import study.querydsl.limit.QueryRowLimitExceededException;
+import study.querydsl.limit.QueryScope;
+import study.querydsl.tenant.TenantFilter;
+
+import java.util.List;
+
+/**
+ * JPQL 변환 직전에 QueryRewriter 를 적용하는 JPAQuery
+ * 현재 스레드의 QueryScope 가 있으면 statement timeout, max rows 를 hint 로 적용하고 취소 대상으로 등록한다.
+ * 결과가 max rows 를 넘으면 잘라서 돌려주지 않고 QueryRowLimitExceededException 을 던진다.
+ * 현재 tenant 로 TenantFilter 를 켠다. (tenant 조건을 쿼리마다 직접 쓰지 않아도 된다.)
+ */
+public class RewritingJPAQuery<T> extends JPAQuery<T> {
+
+    private final List<QueryRewriter> rewriters;
+
+    // QueryScope 의 maxRows 로 줄인 경우 그 값 (0 = 줄이지 않음)
+    private int rowCap;
+
+    public RewritingJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata,
+                             List<QueryRewriter> rewriters) {
+        super(em, templates, metadata);
+        this.rewriters = rewriters;
+    }
+
+    // 원래 metadata 는 그대로 두고 복사본에 적용한다. (같은 쿼리를 다시 실행, clone 해도 바뀐 식이 섞이지 않도록)
+    @Override
+    protected JPQLSerializer serialize(boolean forCountRow) {
+        QueryMetadata metadata = getMetadata().clone();
+        for (QueryRewriter rewriter : rewriters) {
+            rewriter.rewrite(metadata);
+        }
+        JPQLSerializer serializer = createSerializer();
+        serializer.serialize(metadata, forCountRow, null);
+        return serializer;
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        if (!forCount) {
+            rowCap = 0;
+        }
+        Query query = super.createQuery(modifiers, forCount);
+        // 트랜잭션이 없으면 공유 EntityManager 가 쿼리마다 새 EntityManager 를 열고 entityManager.unwrap 은 실패하므로
+        // 쿼리를 실행할 Session 을 쿼리에서 꺼낸다. (filter 는 실행 시점에 SQL 로 바뀌므로 쿼리를 만든 뒤 켜도 된다.)
+        Session session = sessionOf(query);
+        TenantFilter.apply(session);
+        QueryScope scope = QueryScope.current();
+        if (scope != null) {
+            applyLimits(query, session, scope, forCount);
+        }
+        return query;
+    }
+
+    private static Session sessionOf(Query query) {
+        return (Session) query.unwrap(QueryImplementor.class).getSession();
+    }
+
+    private void applyLimits(Query query, Session session, QueryScope scope, boolean forCount) {
+        long timeoutMs = scope.statementTimeoutMillis();
+        if (timeoutMs > 0) {
+            // jakarta.persistence.query.timeout 은 초 단위로 반올림돼 1초 미만이 0(무제한)이 되므로 올림한 초로 넣는다.
+            query.setHint(HibernateHints.HINT_TIMEOUT, (int) Math.max(1, (timeoutMs + 999) / 1000));
+        }
+        QueryLimits limits = scope.limits();
+        if (!forCount && limits.maxRows() > 0 && query.getMaxResults() > limits.maxRows()) {
+            // 한 건 더 읽어서 넘쳤는지 알 수 있게 한다. (잘린 결과를 그대로 돌려주지 않도록 fetch 에서 확인)
+            query.setMaxResults(limits.maxRows() + 1);
+            rowCap = limits.maxRows();
+        }
+        scope.register(session);
+    }
+
+    @Override
+    public List<T> fetch() {
+        return checkRowCap(super.fetch());
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public QueryResults<T> fetchResults() {
+        QueryResults<T> results = super.fetchResults();
+        checkRowCap(results.getResults());
+        return results;
+    }
+
+    private List<T> checkRowCap(List<T> results) {
+        int cap = rowCap;
+        rowCap = 0;
+        if (cap > 0 && results.size() > cap) {
+            throw new QueryRowLimitExceededException(cap);
+        }
+        return results;
+    }
+
+    // 로그 등에서 toString 만 호출해도 rewriter(서브쿼리 실행 등)가 돌지 않도록 적용 전 JPQL 을 보여준다.
+    @Override
+    public String toString() {
+        return super.serialize(false).toString().trim();
+    }
+
+    @Override
+    public RewritingJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        RewritingJPAQuery<T> q = new RewritingJPAQuery<>(entityManager, templates, getMetadata().clone(), rewriters);
+        q.clone(this);
+        return q;
+    }
+}
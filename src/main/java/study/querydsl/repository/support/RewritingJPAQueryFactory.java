@@ -0,0 +1,86 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAProvider;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.outbox.OutboxWriter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * select, selectFrom, from 으로 만드는 모든 쿼리에 QueryRewriter 를 적용하는 JPAQueryFactory
+ * Member/Team 의 update, delete 는 엔티티 리스너를 거치지 않으므로 대상 id 를 먼저 조회해 두었다가
+ * 실행 후 outbox 에 UPDATED/DELETED 를 기록한다. (payload 는 id 만, 바뀐 값은 받는 쪽이 다시 읽는다.)
+ * 대상 id 는 같은 where 로 현재 tenant 안에서 조회하며, 이때 켜진 TenantFilter 로 update/delete 도 현재 tenant 에만 적용된다.
+ * (여러 tenant 를 id 로 바꾸는 내부 작업은 TenantContext.ALL 로 실행)
+ */
+public class RewritingJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final List<QueryRewriter> rewriters;
+    private final OutboxWriter outboxWriter;
+
+    public RewritingJPAQueryFactory(EntityManager entityManager, List<QueryRewriter> rewriters, OutboxWriter outboxWriter) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.rewriters = List.copyOf(rewriters);
+        this.outboxWriter = outboxWriter;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new RewritingJPAQuery<Void>(entityManager, JPAProvider.getTemplates(entityManager),
+                new DefaultQueryMetadata(), rewriters);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new OutboxJPAUpdateClause(entityManager, path, JPAProvider.getTemplates(entityManager), this);
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new OutboxJPADeleteClause(entityManager, path, JPAProvider.getTemplates(entityManager), this);
+    }
+
+    long executeAndRecord(EntityPath<?> path, List<Predicate> where, String eventType, LongSupplier execute) {
+        String aggregateType = aggregateType(path);
+        if (aggregateType == null || outboxWriter == null) {
+            return execute.getAsLong();
+        }
+        List<Long> ids = select(Expressions.numberPath(Long.class, path, "id"))
+                .from(path)
+                .where(where.toArray(Predicate[]::new))
+                .fetch();
+        long count = execute.getAsLong();
+
+        Map<Long, Map<String, Object>> events = new LinkedHashMap<>();
+        for (Long id : ids) {
+            events.put(id, Map.of("id", id));
+        }
+        outboxWriter.recordAll(aggregateType, eventType, events);
+        return count;
+    }
+
+    private static String aggregateType(EntityPath<?> path) {
+        if (path.getType() == Member.class) {
+            return OutboxWriter.MEMBER;
+        }
+        if (path.getType() == Team.class) {
+            return OutboxWriter.TEAM;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.repository.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 key 로 동시에 들어온 요청은 먼저 들어온 요청 하나만 실행하고 나머지는 그 결과를 공유한다.
+ * 결과를 캐시하지는 않으며, 실행이 끝나면 key 는 바로 제거된다.
+ * 결과 객체를 여러 스레드가 공유하므로 V 는 불변이어야 한다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        executed.increment();
+        try {
+            V result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // 먼저 실행한 요청의 예외를 그대로 전달
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public long executedCount() {
+        return executed.sum();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import study.querydsl.tenant.TenantContext;
+import study.querydsl.tenant.TenantOwned;
+
+import java.util.Optional;
+
+/**
+ * Spring Data repository 기본 구현 (TenantJpaConfig)
+ * findById 는 em.find 라 TenantFilter 가 적용되지 않으므로 읽은 엔티티의 tenant 를 확인한다.
+ * deleteById 도 findById 를 거친다. getReferenceById 는 프록시가 나중에 tenant 확인 없이 초기화되므로 바로 읽는다.
+ * 그 외 조회(findAll, 파생 쿼리, QuerydslPredicateExecutor)는 JPQL 이므로 TenantFilter 가 적용된다.
+ */
+public class TenantAwareJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> {
+
+    private final JpaEntityInformation<T, ?> entityInformation;
+
+    public TenantAwareJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+    }
+
+    @Override
+    public Optional<T> findById(ID id) {
+        return super.findById(id).filter(TenantAwareJpaRepository::readable);
+    }
+
+    @Override
+    public T getReferenceById(ID id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException(
+                "Unable to find " + entityInformation.getJavaType().getName() + " with id " + id));
+    }
+
+    @Override
+    @Deprecated
+    public T getById(ID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(ID id) {
+        return getReferenceById(id);
+    }
+
+    // 다른 tenant 엔티티는 없는 것처럼 무시한다. (없는 엔티티 delete 와 같이)
+    @Override
+    public void delete(T entity) {
+        if (readable(entity)) {
+            super.delete(entity);
+        }
+    }
+
+    private static boolean readable(Object entity) {
+        return !(entity instanceof TenantOwned owned) || TenantContext.canRead(owned.getTenantId());
+    }
+}
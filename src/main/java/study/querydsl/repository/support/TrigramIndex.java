@@ -0,0 +1,133 @@
+package study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 메모리 기반 문자열 색인 (대소문자 무시)
+ * 1. 접두사 검색 : 정렬된 term -> id 맵의 범위 조회
+ * 2. 부분 문자열 검색 : 3글자 단위(trigram) 역색인의 교집합 후 실제 포함 여부 확인
+ * 쓰기는 동기화, 읽기는 lock 없이 동시 컬렉션으로 처리한다.
+ */
+public class TrigramIndex {
+
+    private final ConcurrentMap<Long, String> terms = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> byTerm = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Set<Long>> byTrigram = new ConcurrentHashMap<>();
+
+    public synchronized void put(Long id, String text) {
+        remove(id);
+        if (text == null) {
+            return;
+        }
+        String term = normalize(text);
+        terms.put(id, term);
+        byTerm.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(id);
+        for (String trigram : trigrams(term)) {
+            byTrigram.computeIfAbsent(trigram, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        String term = terms.remove(id);
+        if (term == null) {
+            return;
+        }
+        removeFrom(byTerm, term, id);
+        for (String trigram : trigrams(term)) {
+            removeFrom(byTrigram, trigram, id);
+        }
+    }
+
+    public Set<Long> startsWith(String prefix) {
+        String p = normalize(prefix);
+        Set<Long> result = new HashSet<>();
+        for (Set<Long> ids : byTerm.subMap(p, true, p + Character.MAX_VALUE, false).values()) {
+            result.addAll(ids);
+        }
+        return result;
+    }
+
+    public Set<Long> contains(String infix) {
+        String p = normalize(infix);
+        Set<Long> result = new HashSet<>();
+
+        // trigram 을 만들 수 없는 짧은 검색어는 term 전체를 확인
+        if (p.length() < 3) {
+            for (Map.Entry<Long, String> entry : terms.entrySet()) {
+                if (entry.getValue().contains(p)) {
+                    result.add(entry.getKey());
+                }
+            }
+            return result;
+        }
+
+        // 가장 작은 후보 집합부터 교집합
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String trigram : trigrams(p)) {
+            Set<Long> ids = byTrigram.get(trigram);
+            if (ids == null) {
+                return result;
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        for (Long id : postings.get(0)) {
+            if (containsAll(postings, id)) {
+                // trigram 이 모두 있어도 연속하지 않을 수 있으므로 원문으로 확인
+                String term = terms.get(id);
+                if (term != null && term.contains(p)) {
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return terms.size();
+    }
+
+    public synchronized void clear() {
+        terms.clear();
+        byTerm.clear();
+        byTrigram.clear();
+    }
+
+    private boolean containsAll(List<Set<Long>> postings, Long id) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void removeFrom(Map<String, Set<Long>> index, String key, Long id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> trigrams(String term) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            trigrams.add(term.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
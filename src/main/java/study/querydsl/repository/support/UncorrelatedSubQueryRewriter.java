@@ -0,0 +1,315 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.*;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import study.querydsl.limit.QueryRowLimitExceededException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 행마다 다시 실행될 수 있는 서브쿼리를 바꿔 쿼리 비용이 O(n^2) 이 되는 것을 막는다.
+ * 1. 집계 스칼라 서브쿼리 (where age = (select max(m.age) from Member m), select 절 포함) -> 미리 실행한 값 (파라미터)
+ * 2. in / not in 서브쿼리 -> 미리 실행한 값 목록 (결과가 maxInValues 이하일 때만, 0 이면 바꾸지 않음)
+ * 3. 바깥 쿼리를 참조하는(correlated) max, min 서브쿼리 -> group by 한 번으로 구하는 in 서브쿼리
+ *    where m.age = (select max(s.age) from Member s where s.team = m.team)
+ *    -> where (m.team, m.age) in (select s.team, max(s.age) from Member s group by s.team)
+ *
+ * JPQL(Hibernate 6.1)은 from 절 파생 테이블, 윈도 함수를 쓸 수 없어 그룹 결과와의 조인 대신 tuple in 을 쓴다.
+ * 미리 실행하는 쿼리도 RewritingJPAQuery 로 만들어 바깥 쿼리와 같은 tenant filter, QueryScope(timeout, 취소)를 따른다.
+ * 같은 트랜잭션에서 실행하므로 결과는 같지만, READ COMMITTED 에서는 두 쿼리 사이에 커밋된 변경이 보일 수 있다.
+ */
+public class UncorrelatedSubQueryRewriter extends ReplaceVisitor<Void> implements QueryRewriter {
+
+    private static final Set<Operator> AGGREGATES = Set.of(
+            Ops.AggOps.MAX_AGG, Ops.AggOps.MIN_AGG, Ops.AggOps.AVG_AGG, Ops.AggOps.SUM_AGG,
+            Ops.AggOps.COUNT_AGG, Ops.AggOps.COUNT_DISTINCT_AGG);
+
+    private static final Set<Operator> GROUPED_AGGREGATES = Set.of(Ops.AggOps.MAX_AGG, Ops.AggOps.MIN_AGG);
+
+    private final EntityManager em;
+    private final int maxInValues;
+
+    public UncorrelatedSubQueryRewriter(EntityManager em, int maxInValues) {
+        this.em = em;
+        this.maxInValues = maxInValues;
+    }
+
+    @Override
+    public void rewrite(QueryMetadata metadata) {
+        Predicate where = metadata.getWhere();
+        if (where != null) {
+            Predicate rewritten = (Predicate) where.accept(this, null);
+            if (rewritten != where) {
+                metadata.clearWhere();
+                metadata.addWhere(rewritten);
+            }
+        }
+        Expression<?> projection = metadata.getProjection();
+        if (projection != null) {
+            Expression<?> rewritten = projection.accept(this, null);
+            if (rewritten != projection) {
+                metadata.setProjection(rewritten);
+            }
+        }
+    }
+
+    @Override
+    public Expression<?> visit(Operation<?> expr, Void context) {
+        if (expr.getOperator() == Ops.EQ) {
+            Predicate grouped = null;
+            if (expr.getArg(1) instanceof SubQueryExpression<?> subQuery) {
+                grouped = groupedIn(expr.getArg(0), subQuery.getMetadata());
+            } else if (expr.getArg(0) instanceof SubQueryExpression<?> subQuery) {
+                grouped = groupedIn(expr.getArg(1), subQuery.getMetadata());
+            }
+            if (grouped != null) {
+                return grouped;
+            }
+        }
+        if (maxInValues > 0 && (expr.getOperator() == Ops.IN || expr.getOperator() == Ops.NOT_IN)
+                && expr.getArg(1) instanceof SubQueryExpression<?> subQuery) {
+            // tuple 결과 (groupedIn) 는 값 목록으로 넘길 수 없다.
+            if (!isUncorrelated(subQuery.getMetadata())
+                    || subQuery.getMetadata().getProjection() instanceof FactoryExpression<?>) {
+                return super.visit(expr, context);
+            }
+            List<?> values;
+            try {
+                values = query(subQuery.getMetadata())
+                        .distinct()
+                        .limit(maxInValues + 1L)
+                        .fetch();
+            } catch (QueryRowLimitExceededException e) {
+                // QueryScope 의 max rows 보다 많으면 목록으로 바꾸지 않는다. (서브쿼리 결과는 응답 row 가 아니다.)
+                return expr;
+            }
+            if (values.size() > maxInValues || values.contains(null)) {
+                // 목록이 크면 in 절이 오히려 느리고, null 은 파라미터 목록으로 넘길 수 없으므로 그대로 둔다.
+                return expr;
+            }
+            Expression<?> left = expr.getArg(0).accept(this, context);
+            boolean in = expr.getOperator() == Ops.IN;
+            if (values.isEmpty()) {
+                return Expressions.booleanTemplate(in ? "1 = 0" : "1 = 1");
+            }
+            return ExpressionUtils.predicate(expr.getOperator(), left, ConstantImpl.create(values));
+        }
+        return super.visit(expr, context);
+    }
+
+    @Override
+    public Expression<?> visit(SubQueryExpression<?> expr, Void context) {
+        QueryMetadata metadata = expr.getMetadata();
+        if (isScalarAggregate(metadata) && isUncorrelated(metadata)) {
+            Object value = query(metadata).fetchOne();
+            Expression<?> bound = boundValue(value);
+            if (bound != null) {
+                return bound;
+            }
+        }
+        return super.visit(expr, context);
+    }
+
+    // Tuple.get(서브쿼리) 로 꺼낼 수 있도록 원래 projection 으로 결과를 만든다.
+    @Override
+    public Expression<?> visit(FactoryExpression<?> expr, Void context) {
+        List<Expression<?>> args = expr.getArgs().stream()
+                .<Expression<?>>map(arg -> arg.accept(this, context))
+                .toList();
+        return args.equals(expr.getArgs()) ? expr : FactoryExpressionUtils.wrap(expr, args);
+    }
+
+    private static boolean isScalarAggregate(QueryMetadata metadata) {
+        return metadata.getGroupBy().isEmpty()
+                && metadata.getProjection() instanceof Operation<?> operation
+                && AGGREGATES.contains(operation.getOperator());
+    }
+
+    // 바깥 쿼리 x 와 비교하는 correlated 집계 서브쿼리를 (바깥 키..., x) in (select 키..., 집계 ... group by 키...) 로 바꾼다.
+    // 서브쿼리 where 가 "서브쿼리 경로 = 바깥 경로" 와 서브쿼리만 참조하는 조건의 and 일 때만 바꾸고, 아니면 null
+    // 일치하는 행이 없을 때 count 는 0, 나머지는 null 이 되어 결과가 달라질 수 있으므로 max, min 만 바꾼다.
+    private Predicate groupedIn(Expression<?> left, QueryMetadata metadata) {
+        if (metadata.getJoins().size() != 1 || !metadata.getGroupBy().isEmpty() || metadata.getHaving() != null
+                || metadata.getWhere() == null || metadata.isDistinct()
+                || !(metadata.getProjection() instanceof Operation<?> aggregate)
+                || !GROUPED_AGGREGATES.contains(aggregate.getOperator())) {
+            return null;
+        }
+        JoinExpression from = metadata.getJoins().get(0);
+        if (from.getType() != JoinType.DEFAULT || from.getCondition() != null || !(from.getTarget() instanceof Path<?> root)) {
+            return null;
+        }
+        if (!roots(aggregate).equals(Set.of(root)) || roots(left).contains(root)) {
+            return null;
+        }
+
+        List<Expression<?>> outerKeys = new ArrayList<>();
+        List<Expression<?>> innerKeys = new ArrayList<>();
+        List<Predicate> rest = new ArrayList<>();
+        for (Predicate conjunct : conjuncts(metadata.getWhere())) {
+            Set<Path<?>> roots = roots(conjunct);
+            if (Set.of(root).containsAll(roots)) {
+                rest.add(conjunct);
+            } else if (conjunct instanceof Operation<?> eq && eq.getOperator() == Ops.EQ
+                    && eq.getArg(0) instanceof Path<?> a && eq.getArg(1) instanceof Path<?> b
+                    && root.equals(a.getRoot()) != root.equals(b.getRoot())) {
+                boolean innerFirst = root.equals(a.getRoot());
+                innerKeys.add(innerFirst ? a : b);
+                outerKeys.add(innerFirst ? b : a);
+            } else {
+                return null;
+            }
+        }
+        if (innerKeys.isEmpty()) {
+            return null;
+        }
+
+        QueryMetadata grouped = metadata.clone();
+        grouped.clearWhere();
+        rest.forEach(grouped::addWhere);
+        innerKeys.forEach(grouped::addGroupBy);
+        List<Expression<?>> select = new ArrayList<>(innerKeys);
+        select.add(aggregate);
+        grouped.setProjection(Projections.tuple(select.toArray(new Expression<?>[0])));
+
+        List<Object> args = new ArrayList<>(outerKeys);
+        args.add(left);
+        String tuple = IntStream.range(0, args.size())
+                .mapToObj(i -> "{" + i + "}")
+                .collect(Collectors.joining(", ", "(", ")"));
+        args.add(new SubQueryExpressionImpl<>(Tuple.class, grouped));
+        return Expressions.booleanTemplate(tuple + " in {" + (args.size() - 1) + "}", args.toArray());
+    }
+
+    private static List<Predicate> conjuncts(Predicate predicate) {
+        List<Predicate> result = new ArrayList<>();
+        if (predicate instanceof Operation<?> and && and.getOperator() == Ops.AND) {
+            for (Expression<?> arg : and.getArgs()) {
+                result.addAll(conjuncts((Predicate) arg));
+            }
+        } else {
+            result.add(predicate);
+        }
+        return result;
+    }
+
+    private static Set<Path<?>> roots(Expression<?> expr) {
+        Set<Path<?>> roots = new HashSet<>();
+        expr.accept(RootCollector.INSTANCE, roots);
+        return roots;
+    }
+
+    // 미리 실행하는 쿼리도 바깥 쿼리와 같은 tenant filter, QueryScope 를 적용한다. (rewriter 는 다시 적용하지 않음)
+    private JPAQuery<?> query(QueryMetadata metadata) {
+        return new RewritingJPAQuery<>(em, JPAProvider.getTemplates(em), metadata.clone(), List.of());
+    }
+
+    // 값은 JPQL 에 문자열로 넣지 않고 파라미터로 넘긴다. (값이 바뀌어도 같은 JPQL)
+    // 파라미터 타입을 비교 대상(age 등)에서 추론하면 avg 의 소수가 맞지 않으므로 cast 로 결과 타입을 정한다.
+    private static Expression<?> boundValue(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Double || value instanceof Float) {
+            return Expressions.template(value.getClass(), "cast({0} as " + value.getClass().getSimpleName() + ")",
+                    ConstantImpl.create(value));
+        }
+        return null;
+    }
+
+    static boolean isUncorrelated(QueryMetadata metadata) {
+        return freeVariables(metadata).isEmpty();
+    }
+
+    // 서브쿼리 안에서 선언하지 않았는데 참조하는 변수 (바깥 쿼리 변수)
+    private static Set<Path<?>> freeVariables(QueryMetadata metadata) {
+        Set<Path<?>> referenced = new HashSet<>();
+        Set<Path<?>> declared = new HashSet<>();
+        for (JoinExpression join : metadata.getJoins()) {
+            Expression<?> target = join.getTarget();
+            if (target instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS) {
+                alias.getArg(0).accept(RootCollector.INSTANCE, referenced);
+                declared.add(((Path<?>) alias.getArg(1)).getRoot());
+            } else if (target instanceof Path<?> path) {
+                declared.add(path.getRoot());
+            } else {
+                target.accept(RootCollector.INSTANCE, referenced);
+            }
+            if (join.getCondition() != null) {
+                join.getCondition().accept(RootCollector.INSTANCE, referenced);
+            }
+        }
+        accept(metadata.getProjection(), referenced);
+        accept(metadata.getWhere(), referenced);
+        accept(metadata.getHaving(), referenced);
+        metadata.getGroupBy().forEach(expr -> accept(expr, referenced));
+        metadata.getOrderBy().forEach(order -> accept(order.getTarget(), referenced));
+        referenced.removeAll(declared);
+        return referenced;
+    }
+
+    private static void accept(Expression<?> expr, Set<Path<?>> referenced) {
+        if (expr != null) {
+            expr.accept(RootCollector.INSTANCE, referenced);
+        }
+    }
+
+    private enum RootCollector implements Visitor<Void, Set<Path<?>>> {
+        INSTANCE;
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+            roots.addAll(freeVariables(expr.getMetadata()));
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression<?> expression) {
+                    expression.accept(this, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package study.querydsl.repository.support;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * write-behind 버퍼의 장애 복구용 append-only 로그
+ * 1. 버퍼에 넣은 변경(tenant, id, delta)을 현재 segment 파일 끝에 기록
+ * 2. flush 시작 시 rotate 로 새 segment 를 열고, 이번에 반영할 변경 전체를 checkpoint 파일로 남긴다.
+ *    checkpoint 는 그 번호까지의 segment 와 이전 checkpoint 를 대신하므로 그것들은 지운다.
+ * 3. chunk 가 커밋될 때마다 그 chunk 의 key 를 checkpoint 의 applied 파일에 기록 (markApplied)
+ * 4. 기동 시 마지막 checkpoint 에서 applied 된 key 를 뺀 것과 그 뒤 segment 를 replay
+ * 레코드는 [tenant 길이 short][tenant][id long][delta int] (applied 는 delta 없이)
+ * 일부 chunk 만 반영하고 죽어도 반영된 chunk 를 다시 더하지 않는다.
+ * chunk 커밋과 markApplied 사이에 죽은 경우만 그 chunk 가 다시 반영될 수 있다.
+ */
+public class WriteBehindJournal implements Closeable {
+
+    private static final String PREFIX = "segment-";
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String SUFFIX = ".log";
+    private static final String APPLIED_SUFFIX = ".applied";
+
+    private final Path directory;
+    private final boolean sync;
+    private long segment;
+    private FileChannel channel;
+
+    /**
+     * @param sync true 면 기록할 때마다 fsync (느리지만 OS 장애에도 유실 없음)
+     */
+    public WriteBehindJournal(Path directory, boolean sync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.sync = sync;
+        // checkpoint 번호는 닫은 segment 번호이므로 새 segment 는 둘 다보다 커야 한다.
+        this.segment = Math.max(lastNo(existingSegments()), lastNo(existingCheckpoints())) + 1;
+        this.channel = open(segment);
+    }
+
+    // 회원 id 는 tenant 안에서만 유효하므로 tenant 와 함께 기록한다.
+    public record Key(String tenant, long id) {
+    }
+
+    /**
+     * 반영되지 않은 기록을 key 별로 합산
+     * 마지막 checkpoint (applied 된 id 제외) + 그 뒤의 segment
+     * 기록 도중 죽어서 잘린 마지막 레코드는 무시한다.
+     */
+    public Map<Key, Integer> replay() throws IOException {
+        Map<Key, Integer> pending = new HashMap<>();
+        long checkpoint = lastNo(existingCheckpoints());
+        if (checkpoint > 0) {
+            read(checkpointFile(checkpoint), pending);
+            ByteBuffer applied = ByteBuffer.wrap(readIfExists(appliedFile(checkpoint)));
+            Key key;
+            while ((key = readKey(applied)) != null) {
+                pending.remove(key);
+            }
+        }
+        for (Path file : existingSegments()) {
+            long segmentNo = segmentNo(file);
+            if (segmentNo > checkpoint && segmentNo < segment) {
+                read(file, pending);
+            }
+        }
+        return pending;
+    }
+
+    public synchronized void append(Key key, int delta) throws IOException {
+        ByteBuffer buffer = putKey(ByteBuffer.allocate(recordSize(key)), key).putInt(delta).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * 새 segment 로 교체하고 닫은 segment 번호를 돌려준다.
+     */
+    public synchronized long rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        long closed = segment++;
+        channel = open(segment);
+        return closed;
+    }
+
+    /**
+     * closedSegment 까지의 기록 대신 entries 를 checkpoint 로 남긴다.
+     * entries 는 closedSegment 까지의 기록과 이전 checkpoint 에서 반영되지 않은 변경을 모두 담고 있어야 한다.
+     * 다 쓴 뒤 이름을 바꾸므로 쓰다가 죽으면 이전 checkpoint, segment 가 그대로 남는다.
+     */
+    public long checkpoint(long closedSegment, Map<Key, Integer> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entries.keySet().stream().mapToInt(WriteBehindJournal::recordSize).sum());
+        entries.forEach((key, delta) -> putKey(buffer, key).putInt(delta));
+        Path temp = directory.resolve(CHECKPOINT_PREFIX + closedSegment + ".tmp");
+        write(temp, buffer.flip(), StandardOpenOption.TRUNCATE_EXISTING);
+        Files.move(temp, checkpointFile(closedSegment), StandardCopyOption.ATOMIC_MOVE);
+
+        for (Path file : existingSegments()) {
+            if (segmentNo(file) <= closedSegment) {
+                Files.deleteIfExists(file);
+            }
+        }
+        for (Path file : existingCheckpoints()) {
+            long checkpointNo = segmentNo(file);
+            if (checkpointNo < closedSegment) {
+                complete(checkpointNo);
+            }
+        }
+        return closedSegment;
+    }
+
+    // checkpoint 의 keys 는 DB 에 커밋됨
+    public void markApplied(long checkpoint, Collection<Key> keys) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(keys.stream().mapToInt(key -> recordSize(key) - Integer.BYTES).sum());
+        keys.forEach(key -> putKey(buffer, key));
+        write(appliedFile(checkpoint), buffer.flip(), StandardOpenOption.APPEND);
+    }
+
+    // checkpoint 전체가 DB 에 반영 완료
+    public void complete(long checkpoint) throws IOException {
+        Files.deleteIfExists(appliedFile(checkpoint));
+        Files.deleteIfExists(checkpointFile(checkpoint));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private FileChannel open(long segmentNo) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, segmentNo, SUFFIX));
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> existingSegments() throws IOException {
+        return list(PREFIX, SUFFIX);
+    }
+
+    private List<Path> existingCheckpoints() throws IOException {
+        return list(CHECKPOINT_PREFIX, SUFFIX);
+    }
+
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix);
+            }).toList();
+        }
+    }
+
+    private Path checkpointFile(long checkpoint) {
+        return directory.resolve(String.format("%s%020d%s", CHECKPOINT_PREFIX, checkpoint, SUFFIX));
+    }
+
+    private Path appliedFile(long checkpoint) {
+        return directory.resolve(String.format("%s%020d%s", CHECKPOINT_PREFIX, checkpoint, APPLIED_SUFFIX));
+    }
+
+    private static void read(Path file, Map<Key, Integer> pending) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        Key key;
+        while ((key = readKey(buffer)) != null && buffer.remaining() >= Integer.BYTES) {
+            pending.merge(key, buffer.getInt(), Integer::sum);
+        }
+    }
+
+    private static int recordSize(Key key) {
+        return Short.BYTES + key.tenant().getBytes(StandardCharsets.UTF_8).length + Long.BYTES + Integer.BYTES;
+    }
+
+    private static ByteBuffer putKey(ByteBuffer buffer, Key key) {
+        byte[] tenant = key.tenant().getBytes(StandardCharsets.UTF_8);
+        return buffer.putShort((short) tenant.length).put(tenant).putLong(key.id());
+    }
+
+    // 잘린 레코드면 null
+    private static Key readKey(ByteBuffer buffer) {
+        if (buffer.remaining() < Short.BYTES) {
+            return null;
+        }
+        int length = buffer.getShort();
+        if (length < 0 || buffer.remaining() < length + Long.BYTES) {
+            return null;
+        }
+        byte[] tenant = new byte[length];
+        buffer.get(tenant);
+        return new Key(new String(tenant, StandardCharsets.UTF_8), buffer.getLong());
+    }
+
+    private static byte[] readIfExists(Path file) throws IOException {
+        return Files.exists(file) ? Files.readAllBytes(file) : new byte[0];
+    }
+
+    private static void write(Path file, ByteBuffer buffer, StandardOpenOption mode) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+    }
+
+    private static long lastNo(List<Path> files) {
+        return files.stream().mapToLong(WriteBehindJournal::segmentNo).max().orElse(0);
+    }
+
+    // segment-<번호>.log, checkpoint-<번호>.log
+    private static long segmentNo(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.length() - SUFFIX.length()));
+    }
+}
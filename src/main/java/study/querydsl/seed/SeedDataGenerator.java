@@ -0,0 +1,92 @@
+package study.querydsl.seed;
+
+import study.querydsl.dto.MemberImport;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 성능 측정용 회원 데이터 (MemberJpaRepository.upsertAll 입력)
+ * 1. 팀 크기: Zipf 분포 (team0 이 가장 크다.)
+ * 2. username: 흔한 이름일수록 많이 나오는 Zipf 분포 + 번호 ("minjun1234"), 번호가 있으므로 모두 다르다.
+ *    같은 접두어를 가진 회원 수가 이름마다 크게 달라 prefix 검색 비용도 고르지 않다.
+ * 3. 나이: 구간별 비율(AGE_BUCKETS) 안에서 균등
+ * seed 가 같으면 항상 같은 순서로 같은 데이터를 만든다. (순차 Stream 으로만 사용)
+ */
+public class SeedDataGenerator {
+
+    private static final String[] NAMES = {
+            "minjun", "seoyeon", "jiho", "seojun", "hayoon", "doyun", "jiwoo", "eunwoo", "siwoo", "jiyu",
+            "harin", "yejun", "sua", "juwon", "jiwon", "hajun", "chaewon", "yuna", "geonwoo", "dain",
+            "kim", "lee", "park", "choi", "jung", "kang", "cho", "yoon", "jang", "lim",
+            "member", "user", "test", "admin", "guest", "alice", "bob", "carol", "dave", "eve"
+    };
+
+    // {최소 나이, 최대 나이, 비율(%)}
+    private static final int[][] AGE_BUCKETS = {
+            {10, 17, 5}, {18, 24, 15}, {25, 34, 25}, {35, 44, 22}, {45, 54, 15}, {55, 64, 10}, {65, 90, 8}
+    };
+
+    private final SeedSpec spec;
+    private final ZipfSampler teamSampler;
+    private final ZipfSampler nameSampler;
+
+    public SeedDataGenerator(SeedSpec spec) {
+        this.spec = spec;
+        this.teamSampler = new ZipfSampler(spec.teams(), spec.teamSkew());
+        this.nameSampler = new ZipfSampler(NAMES.length, spec.usernameSkew());
+    }
+
+    public static String teamName(int rank) {
+        return "team" + rank;
+    }
+
+    public Stream<MemberImport> members() {
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        return IntStream.range(0, spec.members())
+                .mapToObj(i -> new MemberImport(
+                        NAMES[nameSampler.sample(random)] + i,
+                        age(random),
+                        random.nextDouble() < spec.noTeamRatio() ? null : teamName(teamSampler.sample(random))));
+    }
+
+    private static int age(SplittableRandom random) {
+        int bucket = random.nextInt(100);
+        for (int[] range : AGE_BUCKETS) {
+            bucket -= range[2];
+            if (bucket < 0) {
+                return random.nextInt(range[0], range[1] + 1);
+            }
+        }
+        int[] last = AGE_BUCKETS[AGE_BUCKETS.length - 1];
+        return random.nextInt(last[0], last[1] + 1);
+    }
+
+    /**
+     * 0 ~ n-1 중 rank k 가 1 / (k+1)^s 비율로 나오는 표본 (누적 분포 이진 탐색)
+     */
+    static final class ZipfSampler {
+
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1 / Math.pow(k + 1, exponent);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            int rank = index >= 0 ? index : -index - 1;
+            return Math.min(rank, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.seed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.UpsertResult;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * 기동 후 대량 데이터 적재 (querydsl.seed.members 를 지정했을 때만)
+ * 청크 단위 JDBC batch 경로(MemberJpaRepository.upsertAll)로 넣는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("querydsl.seed.members")
+public class SeedDataLoader {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final SeedSpec spec;
+
+    public SeedDataLoader(MemberJpaRepository memberJpaRepository,
+                          @Value("${querydsl.seed.seed:42}") long seed,
+                          @Value("${querydsl.seed.teams:100}") int teams,
+                          @Value("${querydsl.seed.members}") int members,
+                          @Value("${querydsl.seed.team-skew:1.0}") double teamSkew,
+                          @Value("${querydsl.seed.username-skew:0.8}") double usernameSkew,
+                          @Value("${querydsl.seed.no-team-ratio:0.02}") double noTeamRatio) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.spec = new SeedSpec(seed, teams, members, teamSkew, usernameSkew, noTeamRatio);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        UpsertResult result = memberJpaRepository.upsertAll(new SeedDataGenerator(spec).members());
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("seeded {} members ({} updated), {} teams in {} ms ({} rows/s)",
+                result.inserted(), result.updated(), result.teamsCreated(), elapsedMs,
+                (result.inserted() + result.updated()) * 1000L / elapsedMs);
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.seed;
+
+/**
+ * 생성할 데이터 규모와 분포
+ *
+ * @param seed         같은 seed 면 같은 데이터
+ * @param teams        팀 수
+ * @param members      회원 수
+ * @param teamSkew     팀 크기 Zipf 지수 (0 이면 균등, 1 이면 1등 팀이 2등의 2배)
+ * @param usernameSkew 이름(username 앞부분) 빈도 Zipf 지수
+ * @param noTeamRatio  팀이 없는 회원 비율
+ */
+public record SeedSpec(long seed, int teams, int members, double teamSkew, double usernameSkew,
+                       double noTeamRatio) {
+
+    public SeedSpec {
+        if (teams <= 0 || members < 0) {
+            throw new IllegalArgumentException("teams must be > 0 and members >= 0");
+        }
+        if (noTeamRatio < 0 || noTeamRatio > 1) {
+            throw new IllegalArgumentException("noTeamRatio must be between 0 and 1");
+        }
+    }
+}
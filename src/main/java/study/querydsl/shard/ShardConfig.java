@@ -0,0 +1,41 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * querydsl.shard.urls 에 샤드 JDBC URL 을 나열하면 ShardedMemberRepository 를 등록한다.
+ * 샤드 DataSource 를 Bean 으로 등록하면 기본 DataSource 자동 설정이 꺼지므로 내부에서만 만든다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.shard", name = "urls")
+public class ShardConfig {
+
+    @Bean(destroyMethod = "close")
+    ShardedMemberRepository shardedMemberRepository(
+            @Value("${querydsl.shard.urls}") List<String> urls,
+            @Value("${querydsl.shard.username:sa}") String username,
+            @Value("${querydsl.shard.password:}") String password,
+            @Value("${querydsl.shard.pool-size:10}") int poolSize) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + i);
+            dataSource.setJdbcUrl(urls.get(i));
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSources.add(dataSource);
+        }
+        ShardedMemberRepository repository = new ShardedMemberRepository(dataSources, true);
+        repository.initSchema();
+        return repository;
+    }
+}
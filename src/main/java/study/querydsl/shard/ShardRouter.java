@@ -0,0 +1,66 @@
+package study.querydsl.shard;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 팀 id, 회원 id 기준 샤드 결정
+ * 1. 팀과 그 팀의 회원은 같은 샤드에 둔다. (팀이 없는 회원은 0번 샤드)
+ * 2. 팀은 이름으로 샤드를 고른다. 팀 이름을 바꾸는 API 가 없으므로 이름과 샤드의 관계는 변하지 않는다.
+ * 3. id 는 샤드 내부 id * 샤드 수 + 샤드 번호 로 전역에서 유일하게 만들어 id 만으로 샤드를 알 수 있다.
+ * 4. 팀 id 나 팀 이름으로 조회하면 해당 샤드 하나만, 없으면 전체 샤드를 조회
+ * 팀 이름 변경을 추가한다면 팀을 새 이름의 샤드로 옮기거나 shardsForTeamName 을 전체 샤드로 바꿔야 한다.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be >= 1");
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    // 같은 이름의 팀은 같은 샤드에서 만들어지므로 샤드의 unique 제약으로 중복을 막을 수 있다.
+    public int shardForNewTeam(String teamName) {
+        return Math.floorMod(teamName.hashCode(), shardCount);
+    }
+
+    public int shardOfTeam(Long teamId) {
+        return teamId != null ? shardOfId(teamId) : 0;
+    }
+
+    public List<Integer> shardsFor(Long teamId) {
+        if (teamId != null) {
+            return List.of(shardOfId(teamId));
+        }
+        return IntStream.range(0, shardCount).boxed().toList();
+    }
+
+    // 팀 이름 조건은 같은 이름의 팀이 만들어졌을 샤드만 보면 된다.
+    public List<Integer> shardsForTeamName(String teamName) {
+        if (hasText(teamName)) {
+            return List.of(shardForNewTeam(teamName));
+        }
+        return shardsFor(null);
+    }
+
+    public long globalId(int shard, long localId) {
+        return localId * shardCount + shard;
+    }
+
+    public int shardOfId(long globalId) {
+        return (int) (globalId % shardCount);
+    }
+
+    public long localId(long globalId) {
+        return globalId / shardCount;
+    }
+}
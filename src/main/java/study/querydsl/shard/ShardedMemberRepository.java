@@ -0,0 +1,258 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.QueryException;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplatesRegistry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.sql.MemberSqlRepository;
+import study.querydsl.tenant.TenantContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 여러 DataSource 에 나눠 저장한 member/team 조회 (scatter-gather)
+ * 1. ShardRouter 로 조회할 샤드를 고르고(팀 id, 팀 이름이 있으면 한 샤드), 샤드별 쿼리를 동시에 실행
+ * 2. 결과는 전역 member id 순으로 합치고, 페이징은 샤드마다 offset + size 개를 가져온 뒤 전체에서 자른다.
+ * 3. count 는 샤드별 count 의 합
+ * 샤드마다 JPA 를 띄우지 않고 querydsl-sql 로 조회한다. 조건은 MemberSqlRepository.conditions 를 그대로 쓴다.
+ * 조건(tenant 포함)은 호출한 스레드에서 만든 뒤 샤드 스레드로 넘긴다.
+ */
+public class ShardedMemberRepository implements AutoCloseable {
+
+    private final List<DataSource> dataSources;
+    private final boolean ownsDataSources;
+    private final List<SQLQueryFactory> shards;
+    private final ShardRouter router;
+    private final ExecutorService executor;
+
+    public ShardedMemberRepository(List<DataSource> dataSources) {
+        this(dataSources, false);
+    }
+
+    /**
+     * @param ownsDataSources true 면 close 시 DataSource 도 닫는다.
+     */
+    public ShardedMemberRepository(List<DataSource> dataSources, boolean ownsDataSources) {
+        this.dataSources = List.copyOf(dataSources);
+        this.ownsDataSources = ownsDataSources;
+        this.shards = dataSources.stream().map(ShardedMemberRepository::queryFactory).toList();
+        this.router = new ShardRouter(dataSources.size());
+        this.executor = Executors.newFixedThreadPool(dataSources.size());
+    }
+
+    // SQLTemplates 는 샤드 DB 의 메타데이터로 고르고, 커넥션은 쿼리가 끝나면 반납한다.
+    private static SQLQueryFactory queryFactory(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            Configuration configuration = new Configuration(new SQLTemplatesRegistry().getTemplates(connection.getMetaData()));
+            return new SQLQueryFactory(configuration, dataSource);
+        } catch (SQLException e) {
+            throw new IllegalStateException("cannot read shard metadata", e);
+        }
+    }
+
+    public ShardRouter router() {
+        return router;
+    }
+
+    // 샤드 DB 는 JPA ddl-auto 대상이 아니므로 직접 생성 (SMember, STeam 이 쓰는 컬럼)
+    public void initSchema() {
+        for (DataSource dataSource : dataSources) {
+            JdbcTemplate shard = new JdbcTemplate(dataSource);
+            shard.execute("create table if not exists team (" +
+                    "team_id bigint generated by default as identity primary key, " +
+                    "tenant_id varchar(64) not null, name varchar(255) not null, version bigint, " +
+                    "constraint uk_team_tenant_name unique (tenant_id, name))");
+            shard.execute("create table if not exists member (" +
+                    "member_id bigint generated by default as identity primary key, " +
+                    "tenant_id varchar(64) not null, username varchar(255), username_lower varchar(255), " +
+                    "age int not null, version bigint, team_id bigint)");
+        }
+    }
+
+    /**
+     * 이름이 같은 팀이 이미 있으면 그 팀
+     * @return 전역 team id
+     */
+    public long saveTeam(String name) {
+        int shardNo = router.shardForNewTeam(name);
+        return router.globalId(shardNo, findOrCreateTeam(shards.get(shardNo), TenantContext.currentForWrite(), name));
+    }
+
+    /**
+     * @param teamId 전역 team id (없으면 null)
+     * @return 전역 member id
+     */
+    public long save(String username, int age, Long teamId) {
+        int shardNo = router.shardOfTeam(teamId);
+        Long localTeamId = teamId != null ? router.localId(teamId) : null;
+        Long memberId = shards.get(shardNo).insert(member)
+                .set(member.tenantId, TenantContext.currentForWrite())
+                .set(member.username, username)
+                .set(member.usernameLower, username != null ? username.toLowerCase(Locale.ROOT) : null)
+                .set(member.age, age)
+                .set(member.version, 0L)
+                .set(member.teamId, localTeamId)
+                .executeWithKey(member.memberId);
+        return router.globalId(shardNo, memberId);
+    }
+
+    public Optional<MemberTeamDto> findById(long memberId) {
+        int shardNo = router.shardOfId(memberId);
+        Tuple row = selectMemberTeam(shards.get(shardNo))
+                .where(MemberSqlRepository.conditions(new MemberSearchCondition()))
+                .where(member.memberId.eq(router.localId(memberId)))
+                .fetchOne();
+        return Optional.ofNullable(row).map(tuple -> toDto(shardNo, tuple));
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return search(null, condition);
+    }
+
+    // 팀 id 가 있으면 그 팀의 샤드만 조회한다.
+    public List<MemberTeamDto> searchByTeam(long teamId, MemberSearchCondition condition) {
+        return search(teamId, condition);
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<Integer> targets = router.shardsForTeamName(condition.getTeamName());
+        Predicate[] where = MemberSqlRepository.conditions(condition);
+
+        // 전체에서 offset ~ offset + size 를 구하려면 샤드마다 앞에서부터 offset + size 개가 필요하다.
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        List<MemberTeamDto> merged = gather(targets, shardNo -> fetch(shardNo, selectMemberTeam(shards.get(shardNo))
+                .where(where)
+                .orderBy(member.memberId.asc())
+                .limit(limit)));
+
+        List<MemberTeamDto> content = merged.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> gatherCount(targets, where));
+    }
+
+    private List<MemberTeamDto> search(Long teamId, MemberSearchCondition condition) {
+        Predicate[] where = MemberSqlRepository.conditions(condition);
+        List<Integer> targets = teamId != null
+                ? router.shardsFor(teamId) : router.shardsForTeamName(condition.getTeamName());
+        return gather(targets, shardNo -> fetch(shardNo, selectMemberTeam(shards.get(shardNo))
+                .where(where)
+                .where(teamId != null ? member.teamId.eq(router.localId(teamId)) : null)
+                .orderBy(member.memberId.asc())));
+    }
+
+    private long gatherCount(List<Integer> targets, Predicate[] where) {
+        List<CompletableFuture<Long>> counts = targets.stream()
+                .map(shardNo -> CompletableFuture.supplyAsync(() -> shards.get(shardNo)
+                        .select(member.memberId.count())
+                        .from(member)
+                        .leftJoin(team).on(member.teamId.eq(team.teamId))
+                        .where(where)
+                        .fetchOne(), executor))
+                .toList();
+        return counts.stream().mapToLong(CompletableFuture::join).sum();
+    }
+
+    // 샤드별로 member id 순 정렬된 결과를 전역 id 순으로 합친다.
+    private List<MemberTeamDto> gather(List<Integer> targets, Function<Integer, List<MemberTeamDto>> query) {
+        List<CompletableFuture<List<MemberTeamDto>>> futures = targets.stream()
+                .map(shardNo -> CompletableFuture.supplyAsync(() -> query.apply(shardNo), executor))
+                .toList();
+        List<MemberTeamDto> merged = new ArrayList<>();
+        for (CompletableFuture<List<MemberTeamDto>> future : futures) {
+            merged.addAll(future.join());
+        }
+        merged.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return merged;
+    }
+
+    // 같은 이름의 팀을 동시에 만들면 (tenant_id, name) unique 제약으로 한쪽 insert 가 실패하므로 먼저 만든 팀을 다시 읽는다.
+    private long findOrCreateTeam(SQLQueryFactory shard, String tenant, String name) {
+        Long existing = findTeamId(shard, tenant, name);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            return shard.insert(team)
+                    .set(team.tenantId, tenant)
+                    .set(team.name, name)
+                    .set(team.version, 0L)
+                    .executeWithKey(team.teamId);
+        } catch (QueryException e) {
+            Long created = e.getCause() instanceof SQLIntegrityConstraintViolationException
+                    ? findTeamId(shard, tenant, name) : null;
+            if (created == null) {
+                throw e;
+            }
+            return created;
+        }
+    }
+
+    private static Long findTeamId(SQLQueryFactory shard, String tenant, String name) {
+        return shard.select(team.teamId)
+                .from(team)
+                .where(team.tenantId.eq(tenant), team.name.eq(name))
+                .fetchFirst();
+    }
+
+    private static SQLQuery<Tuple> selectMemberTeam(SQLQueryFactory shard) {
+        return shard
+                .select(member.memberId, member.username, member.age, team.teamId, team.name)
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId));
+    }
+
+    private List<MemberTeamDto> fetch(int shardNo, SQLQuery<Tuple> query) {
+        return query.fetch().stream()
+                .map(row -> toDto(shardNo, row))
+                .toList();
+    }
+
+    private MemberTeamDto toDto(int shardNo, Tuple row) {
+        Long teamId = row.get(team.teamId);
+        return new MemberTeamDto(
+                router.globalId(shardNo, row.get(member.memberId)),
+                row.get(member.username),
+                row.get(member.age),
+                teamId != null ? router.globalId(shardNo, teamId) : null,
+                row.get(team.name));
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.shutdown();
+        if (ownsDataSources) {
+            for (DataSource dataSource : dataSources) {
+                if (dataSource instanceof AutoCloseable closeable) {
+                    closeable.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.sql;
+
+import com.querydsl.sql.SQLBindings;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * MemberSqlRepository.search 를 R2DBC 로 (back-pressure)
+ * SQL 은 querydsl-sql 로 만들고(같은 conditions) 실행만 DatabaseClient 로 한다.
+ * 구독자가 요청한 만큼만 prefetch 단위로 DB 에 요청하므로 결과 전체를 메모리에 올리지 않고, 구독이 취소되면 조회도 멈춘다.
+ * querydsl.reactive.enabled=true 일 때만 등록한다. (R2dbcConfig)
+ * tenant 조건은 호출한 스레드의 TenantContext 로 정해진다. (구독하는 스레드가 아님)
+ * member 만 읽는다. (includeArchived 는 무시)
+ * MemberStreamController 는 Spring MVC 로 서빙하므로 응답 쓰기는 요청 스레드를 붙잡는다. (WebFlux 서버는 두지 않는다.)
+ */
+@Repository
+@ConditionalOnProperty(name = "querydsl.reactive.enabled", havingValue = "true")
+public class MemberReactiveRepository {
+
+    private final SQLQueryFactory queryFactory;
+    private final DatabaseClient databaseClient;
+    private final int prefetch;
+
+    public MemberReactiveRepository(SQLQueryFactory queryFactory,
+                                    DatabaseClient databaseClient,
+                                    @Value("${querydsl.reactive.prefetch:256}") int prefetch) {
+        this.queryFactory = queryFactory;
+        this.databaseClient = databaseClient;
+        this.prefetch = prefetch;
+    }
+
+    public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+        // 쿼리 문자열만 만들고 JDBC 커넥션은 열지 않는다.
+        SQLBindings sql = queryFactory
+                .select(member.memberId, member.username, member.age, team.teamId, team.name)
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(MemberSqlRepository.conditions(condition))
+                .getSQL();
+        return fetch(sql).limitRate(prefetch);
+    }
+
+    // DB 에서 읽는 행 (limitRate 전)
+    Flux<MemberTeamDto> fetch(SQLBindings sql) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.getSQL());
+        List<Object> bindings = sql.getNullFriendlyBindings();
+        for (int i = 0; i < bindings.size(); i++) {
+            spec = spec.bind(i, bindings.get(i));
+        }
+        return spec
+                .map((row, metadata) -> new MemberTeamDto(
+                        row.get(0, Long.class),
+                        row.get(1, String.class),
+                        row.get(2, Integer.class),
+                        row.get(3, Long.class),
+                        row.get(4, String.class)))
+                .all();
+    }
+}
@@ -0,0 +1,109 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.DirectProjection;
+import study.querydsl.tenant.TenantContext;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * MemberRepositoryImpl 의 search, searchPageComplex 를 querydsl-sql 로 구현 (JPQL 변환, 영속성 컨텍스트 없이 JDBC 로 바로 조회)
+ * DTO 는 ResultSet 에서 읽은 값으로 생성자를 바로 호출한다. (DirectProjection)
+ * 같은 트랜잭션에서 flush 하지 않은 엔티티 변경은 보이지 않는다.
+ * usernamePrefix, usernameContains 는 username 색인 대신 username_lower like 로 찾는다.
+ * Hibernate filter 가 적용되지 않으므로 tenant 조건을 직접 넣는다. (tenantEq)
+ * 조건은 MemberReactiveRepository, ShardedMemberRepository 와 같이 쓴다. (conditions)
+ * 현재 QueryScope 의 timeout, maxRows, 취소는 QueryScopeSqlListener 가 적용한다. (SqlQueryConfig)
+ * usernamePrefix, usernameContains 의 %, _ 는 Querydsl 이 escape 해서 글자 그대로 찾는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberSqlRepository {
+
+    private final SQLQueryFactory queryFactory;
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return QueryScopeSqlListener.checkRowCap(selectMemberTeam()
+                .where(conditions(condition))
+                .fetch());
+    }
+
+    // content, count 를 따로 조회 (한 SQLQuery 로 두 번 실행하지 않는다.)
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = QueryScopeSqlListener.checkRowCap(selectMemberTeam()
+                .where(conditions(condition))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch());
+
+        SQLQuery<Long> countQuery = queryFactory
+                .select(member.memberId.count())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(conditions(condition));
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    private SQLQuery<MemberTeamDto> selectMemberTeam() {
+        return queryFactory
+                .select(DirectProjection.of(MemberTeamDto.class,
+                        member.memberId, member.username, member.age, team.teamId, team.name, MemberTeamDto::new))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId));
+    }
+
+    public static BooleanExpression[] conditions(MemberSearchCondition condition) {
+        return new BooleanExpression[]{
+                tenantEq(),
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernameStartsWith(condition.getUsernamePrefix()),
+                usernameContains(condition.getUsernameContains())
+        };
+    }
+
+    private static BooleanExpression tenantEq() {
+        return TenantContext.isAll() ? null : member.tenantId.eq(TenantContext.current());
+    }
+
+    private static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private static BooleanExpression usernameStartsWith(String prefix) {
+        return hasText(prefix) ? member.usernameLower.startsWith(prefix.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    private static BooleanExpression usernameContains(String infix) {
+        return hasText(infix) ? member.usernameLower.contains(infix.toLowerCase(Locale.ROOT)) : null;
+    }
+}
@@ -0,0 +1,59 @@
+package study.querydsl.sql;
+
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+import study.querydsl.limit.QueryLimits;
+import study.querydsl.limit.QueryRowLimitExceededException;
+import study.querydsl.limit.QueryScope;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * querydsl-sql 쿼리에 현재 스레드의 QueryScope 적용 (RewritingJPAQuery.applyLimits 와 같은 규칙)
+ * 1. 실행 직전에 statement timeout (초 단위 올림), maxRows + 1 을 statement 에 넣는다.
+ * 2. 실행 중인 statement 를 scope 에 등록해 클라이언트 연결이 끊기면 취소되게 하고, 끝나면 뺀다.
+ * 넘쳤는지는 결과를 받은 쪽에서 checkRowCap 으로 확인한다. (잘린 결과를 그대로 돌려주지 않도록)
+ */
+class QueryScopeSqlListener extends SQLBaseListener {
+
+    @Override
+    public void preExecute(SQLListenerContext context) {
+        QueryScope scope = QueryScope.current();
+        PreparedStatement statement = context.getPreparedStatement();
+        if (scope == null || statement == null) {
+            return;
+        }
+        long timeoutMs = scope.statementTimeoutMillis();
+        try {
+            if (timeoutMs > 0) {
+                statement.setQueryTimeout((int) Math.max(1, (timeoutMs + 999) / 1000));
+            }
+            QueryLimits limits = scope.limits();
+            if (limits.maxRows() > 0) {
+                statement.setMaxRows(limits.maxRows() + 1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to apply query limits", e);
+        }
+        scope.register(statement);
+    }
+
+    @Override
+    public void end(SQLListenerContext context) {
+        QueryScope scope = QueryScope.current();
+        if (scope != null && context.getPreparedStatement() != null) {
+            scope.unregister(context.getPreparedStatement());
+        }
+    }
+
+    static <T> List<T> checkRowCap(List<T> rows) {
+        QueryScope scope = QueryScope.current();
+        int maxRows = scope != null ? scope.limits().maxRows() : 0;
+        if (maxRows > 0 && rows.size() > maxRows) {
+            throw new QueryRowLimitExceededException(maxRows);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.sql;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * R2DBC 조회 경로 (MemberReactiveRepository), querydsl.reactive.enabled=true 일 때만 등록한다.
+ * querydsl.reactive.url 이 없으면 JDBC DataSource 와 같은 H2 DB 에 붙는다. (내장 H2 는 이름이 매번 달라서 URL 을 그대로 옮긴다.)
+ * H2 가 아니면 querydsl.reactive.url 이 필요하다.
+ * 드라이버는 ConnectionFactories 로 찾으므로 컴파일 의존성은 없고, 실행 환경에 R2DBC 드라이버(r2dbc-h2 등)를 추가해야 한다.
+ * 읽기 전용이므로 R2dbcTransactionManager 는 등록하지 않는다. (JpaTransactionManager 와 충돌, QuerydslApplication 참고)
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.reactive.enabled", havingValue = "true")
+public class R2dbcConfig {
+
+    private static final String JDBC_H2_PREFIX = "jdbc:h2:";
+
+    // r2dbc-h2 의 H2ConnectionFactoryProvider 가 읽는 옵션 (jdbc:h2: 뒤의 URL 그대로)
+    private static final Option<String> H2_URL = Option.valueOf("url");
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionPool connectionFactory(DataSourceProperties dataSourceProperties,
+                                     @Value("${querydsl.reactive.url:}") String url,
+                                     @Value("${querydsl.reactive.pool-size:10}") int poolSize) {
+        ConnectionFactory connectionFactory = hasText(url) ? ConnectionFactories.get(url) : h2(dataSourceProperties);
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    private static ConnectionFactory h2(DataSourceProperties properties) {
+        String jdbcUrl = properties.determineUrl();
+        if (DatabaseDriver.fromJdbcUrl(jdbcUrl) != DatabaseDriver.H2) {
+            throw new IllegalStateException("querydsl.reactive.url is required for " + jdbcUrl);
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.builder()
+                .option(ConnectionFactoryOptions.DRIVER, "h2")
+                .option(H2_URL, jdbcUrl.substring(JDBC_H2_PREFIX.length()));
+        if (hasText(properties.determineUsername())) {
+            options.option(ConnectionFactoryOptions.USER, properties.determineUsername());
+        }
+        if (properties.determinePassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.determinePassword());
+        }
+        return ConnectionFactories.get(options.build());
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.ForeignKey;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * member 테이블 메타데이터 (querydsl-sql)
+ * querydsl-sql-codegen 의 MetaDataExporter 출력 형식을 따른다. (namePrefix "S", JPA Q 클래스와 구분)
+ * 스키마는 Hibernate 가 엔티티로 만들기 때문에 빌드 시점에 DB 가 없어 직접 유지한다. 컬럼이 바뀌면 함께 고칠 것
+ */
+public class SMember extends RelationalPathBase<SMember> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final SMember member = new SMember("member");
+
+    public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+
+    public final StringPath tenantId = createString("tenantId");
+
+    public final StringPath username = createString("username");
+
+    public final StringPath usernameLower = createString("usernameLower");
+
+    public final NumberPath<Integer> age = createNumber("age", Integer.class);
+
+    public final NumberPath<Long> version = createNumber("version", Long.class);
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public final PrimaryKey<SMember> primary = createPrimaryKey(memberId);
+
+    public final ForeignKey<STeam> teamFk = createForeignKey(teamId, "team_id");
+
+    public SMember(String variable) {
+        super(SMember.class, forVariable(variable), null, "member");
+        addMetadata();
+    }
+
+    public SMember(String variable, String schema) {
+        super(SMember.class, forVariable(variable), schema, "member");
+        addMetadata();
+    }
+
+    public SMember(Path<? extends SMember> path) {
+        super(path.getType(), path.getMetadata(), null, "member");
+        addMetadata();
+    }
+
+    public SMember(PathMetadata metadata) {
+        super(SMember.class, metadata, null, "member");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(memberId, ColumnMetadata.named("member_id").withIndex(1).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(tenantId, ColumnMetadata.named("tenant_id").withIndex(2).ofType(Types.VARCHAR).withSize(64).notNull());
+        addMetadata(username, ColumnMetadata.named("username").withIndex(3).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(usernameLower, ColumnMetadata.named("username_lower").withIndex(4).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(age, ColumnMetadata.named("age").withIndex(5).ofType(Types.INTEGER).withSize(32).notNull());
+        addMetadata(version, ColumnMetadata.named("version").withIndex(6).ofType(Types.BIGINT).withSize(64));
+        addMetadata(teamId, ColumnMetadata.named("team_id").withIndex(7).ofType(Types.BIGINT).withSize(64));
+    }
+}
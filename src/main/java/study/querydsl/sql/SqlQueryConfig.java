@@ -0,0 +1,49 @@
+package study.querydsl.sql;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.MySQLTemplates;
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * querydsl-sql SQLQueryFactory (MemberSqlRepository)
+ * 커넥션은 DataSourceUtils 로 얻으므로 진행 중인 트랜잭션(JpaTransactionManager 포함)이 있으면 같은 커넥션을 쓴다.
+ * 트랜잭션 밖에서는 쿼리가 끝날 때 반납한다.
+ * 요청의 QueryScope (@QueryLimit timeout, maxRows, 연결 끊김 시 취소)는 QueryScopeSqlListener 가 적용한다.
+ * 기동 시 커넥션을 열지 않도록 SQLTemplates 는 JDBC URL 로 고른다. (URL 이 없으면 내장 H2)
+ */
+@Configuration
+public class SqlQueryConfig {
+
+    @Bean
+    SQLQueryFactory sqlQueryFactory(DataSource dataSource,
+                                    @Value("${spring.datasource.url:jdbc:h2:mem:}") String url) {
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(templates(url));
+        configuration.addListener(new QueryScopeSqlListener());
+        configuration.addListener(new SQLBaseListener() {
+            @Override
+            public void end(SQLListenerContext context) {
+                if (context.getConnection() != null) {
+                    DataSourceUtils.releaseConnection(context.getConnection(), dataSource);
+                }
+            }
+        });
+        return new SQLQueryFactory(configuration, () -> DataSourceUtils.getConnection(dataSource));
+    }
+
+    private static SQLTemplates templates(String url) {
+        if (DatabaseDriver.fromJdbcUrl(url) == DatabaseDriver.MYSQL) {
+            return MySQLTemplates.builder().build();
+        }
+        return H2Templates.builder().build();
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.tenant;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidTenantException extends RuntimeException {
+
+    public InvalidTenantException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.tenant;
+
+import java.util.regex.Pattern;
+
+/**
+ * 현재 스레드의 tenant
+ * 요청은 TenantInterceptor 가 X-Tenant-Id 헤더로 정하고, 요청 밖(기동, 스케줄러, 테스트)은 DEFAULT
+ * ALL 은 전체 tenant 를 읽어야 하는 내부 작업(UsernameIndex.rebuild 등) 전용이며 저장에는 쓸 수 없다.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT = "default";
+    public static final String ALL = "*";
+
+    // 캐시 key, 무효화 메시지에 "tenant:key" 로 쓰므로 ':' 는 허용하지 않는다.
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : DEFAULT;
+    }
+
+    public static boolean isAll() {
+        return ALL.equals(CURRENT.get());
+    }
+
+    // 저장할 엔티티, 행의 tenant
+    public static String currentForWrite() {
+        if (isAll()) {
+            throw new IllegalStateException("cannot write without a concrete tenant");
+        }
+        return current();
+    }
+
+    // 이전 tenant 를 돌려주므로 끝나면 restore 로 되돌린다.
+    public static String bind(String tenant) {
+        if (!ALL.equals(tenant) && !isValid(tenant)) {
+            throw new IllegalArgumentException("invalid tenant id: " + tenant);
+        }
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    // 조회한 엔티티, 행을 현재 tenant 가 볼 수 있는지 (ALL 은 전체)
+    public static boolean canRead(String tenantId) {
+        return isAll() || current().equals(tenantId);
+    }
+
+    public static boolean isValid(String tenant) {
+        return tenant != null && TENANT_ID.matcher(tenant).matches();
+    }
+}
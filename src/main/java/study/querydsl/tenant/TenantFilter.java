@@ -0,0 +1,29 @@
+package study.querydsl.tenant;
+
+import org.hibernate.Session;
+
+/**
+ * Member, Team 의 tenant Hibernate filter (정의는 study.querydsl.entity 의 package-info)
+ * 1. EntityManager 를 만들 때 현재 tenant 로 켠다. (TenantFilterPostProcessor)
+ * 2. repository 호출, RewritingJPAQuery 가 쿼리를 만들 때마다 그 시점의 tenant 로 다시 켠다. (같은 EntityManager 에서 tenant 가 바뀔 수 있다.)
+ * ALL 이면 끈다.
+ * 엔티티 쿼리(JPQL)에만 적용되고 em.find, native/JDBC 쿼리에는 적용되지 않는다.
+ * id 조회는 TenantOwned 로 확인하고 (TenantAwareJpaRepository, MemberJpaRepository.findById), JDBC 경로는 tenant_id 조건을 직접 넣는다.
+ */
+public final class TenantFilter {
+
+    public static final String NAME = "tenantFilter";
+    public static final String PARAMETER = "tenantId";
+    public static final String CONDITION = "tenant_id = :" + PARAMETER;
+
+    private TenantFilter() {
+    }
+
+    public static void apply(Session session) {
+        if (TenantContext.isAll()) {
+            session.disableFilter(NAME);
+            return;
+        }
+        session.enableFilter(NAME).setParameter(PARAMETER, TenantContext.current());
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.tenant;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.Session;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 모든 EntityManager 에 TenantFilter 적용
+ * 1. EntityManager 를 만들 때 (트랜잭션 시작, open-in-view, 트랜잭션 없는 공유 EntityManager 호출) 현재 tenant 로 켠다.
+ * 2. repository 호출 전에 트랜잭션에 묶인 EntityManager 에 그 시점의 tenant 로 다시 켠다.
+ *    (트랜잭션 안에서 TenantContext.bind 로 tenant 를 바꾸는 경우, 어떤 쿼리가 먼저 실행됐는지와 상관없도록)
+ * 대상: Spring Data repository, @Repository 클래스
+ */
+@Component
+public class TenantFilterPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public TenantFilterPostProcessor(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof AbstractEntityManagerFactoryBean factoryBean) {
+            factoryBean.setEntityManagerInitializer(em -> TenantFilter.apply(em.unwrap(Session.class)));
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!isRepository(bean)) {
+            return bean;
+        }
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(filterInterceptor());
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvisor(0, advisor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(bean.getClass().getInterfaces().length == 0);
+        proxyFactory.addAdvisor(advisor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static boolean isRepository(Object bean) {
+        if (bean instanceof org.springframework.data.repository.Repository<?, ?>) {
+            return true;
+        }
+        return AnnotatedElementUtils.hasAnnotation(AopUtils.getTargetClass(bean), Repository.class);
+    }
+
+    private MethodInterceptor filterInterceptor() {
+        return invocation -> {
+            // 묶인 EntityManager 가 없으면 새로 만들 때 1번으로 켜진다.
+            EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+            if (emf != null && TransactionSynchronizationManager.getResource(emf) instanceof EntityManagerHolder holder) {
+                TenantFilter.apply(holder.getEntityManager().unwrap(Session.class));
+            }
+            return invocation.proceed();
+        };
+    }
+}
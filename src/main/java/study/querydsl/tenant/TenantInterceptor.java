@@ -0,0 +1,80 @@
+package study.querydsl.tenant;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * X-Tenant-Id 헤더로 요청의 tenant 를 정해 TenantContext 에 bind
+ * Callable 을 반환하는 endpoint 는 async 스레드에도 같은 tenant 를 bind 한다.
+ * 헤더가 없으면 DEFAULT (querydsl.tenant.required=true 면 400)
+ */
+@Component
+public class TenantInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+
+    public static final String HEADER = "X-Tenant-Id";
+
+    private static final String TENANT_ATTRIBUTE = TenantContext.class.getName();
+
+    private final boolean required;
+
+    public TenantInterceptor(@Value("${querydsl.tenant.required:false}") boolean required) {
+        this.required = required;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String tenant = (String) request.getAttribute(TENANT_ATTRIBUTE);
+        if (tenant == null) {
+            tenant = resolve(request.getHeader(HEADER));
+            request.setAttribute(TENANT_ATTRIBUTE, tenant);
+        }
+        TenantContext.bind(tenant);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        TenantContext.restore(null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        TenantContext.restore(null);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        String tenant = (String) request.getAttribute(TENANT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (tenant != null) {
+            TenantContext.bind(tenant);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        TenantContext.restore(null);
+    }
+
+    private String resolve(String header) {
+        if (header == null || header.isBlank()) {
+            if (required) {
+                throw new InvalidTenantException(HEADER + " header is required");
+            }
+            return TenantContext.DEFAULT;
+        }
+        if (!TenantContext.isValid(header)) {
+            throw new InvalidTenantException("invalid tenant id: " + header);
+        }
+        return header;
+    }
+}
@@ -0,0 +1,11 @@
+package study.querydsl.tenant;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import study.querydsl.repository.support.TenantAwareJpaRepository;
+
+// Spring Data repository 의 id 조회에도 tenant 확인 (TenantAwareJpaRepository)
+@Configuration
+@EnableJpaRepositories(basePackages = "study.querydsl.repository", repositoryBaseClass = TenantAwareJpaRepository.class)
+public class TenantJpaConfig {
+}
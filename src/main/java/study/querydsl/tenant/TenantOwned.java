@@ -0,0 +1,10 @@
+package study.querydsl.tenant;
+
+/**
+ * tenant 가 있는 엔티티
+ * em.find 처럼 TenantFilter 가 적용되지 않는 id 조회는 이 값으로 현재 tenant 인지 확인한다. (TenantContext.canRead)
+ */
+public interface TenantOwned {
+
+    String getTenantId();
+}
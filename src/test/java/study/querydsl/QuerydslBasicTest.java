@@ -22,16 +22,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.DirectProjection;
 
 import java.util.List;
 
 import static com.querydsl.jpa.JPAExpressions.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.*;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
@@ -807,6 +810,43 @@ public class QuerydslBasicTest {
 		}
 	}
 
+	@Test
+	public void findDtoByDirectProjection() {
+		// 생성자 참조를 직접 호출 (reflection 없음)
+		List<MemberDto> result = queryFactory
+				.select(DirectProjection.of(MemberDto.class, member.username, member.age, MemberDto::new))
+				.from(member)
+				.orderBy(member.id.asc())
+				.fetch();
+
+		List<MemberDto> expected = queryFactory
+				.select(Projections.constructor(MemberDto.class, member.username, member.age))
+				.from(member)
+				.orderBy(member.id.asc())
+				.fetch();
+		assertThat(result).containsExactlyElementsOf(expected);
+
+		// alias 없이 순서대로 매핑
+		List<UserDto> userResult = queryFactory
+				.select(DirectProjection.of(UserDto.class, member.username, member.age, UserDto::new))
+				.from(member)
+				.where(member.username.eq("member1"))
+				.fetch();
+		assertThat(userResult).extracting("name", "age").containsExactly(tuple("member1", 10));
+
+		List<MemberTeamDto> memberTeamResult = queryFactory
+				.select(DirectProjection.of(MemberTeamDto.class,
+						member.id, member.username, member.age, team.id, team.name, MemberTeamDto::new))
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(member.username.in("member1", "member2", "member3", "member4"))
+				.orderBy(member.username.asc())
+				.fetch();
+		assertThat(memberTeamResult).extracting("username", "teamName")
+				.containsExactly(tuple("member1", "teamA"), tuple("member2", "teamB"),
+						tuple("member3", "teamA"), tuple("member4", "teamB"));
+	}
+
 	/**	동적 쿼리
 	 1. Boolean Builder
 	 2. Where 다중 파라미터 사용 (실무에서 많이 사용)
@@ -0,0 +1,90 @@
+package study.querydsl.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControllerTest {
+
+	@Test
+	public void shedBulkBeforeInteractive() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		AdmissionController admission = new AdmissionController(registry, 4, 4, 4, 1.5, 10);
+
+		// limit 4 중 BULK 는 절반까지
+		admission.acquire(Priority.BULK);
+		admission.acquire(Priority.BULK);
+		assertThatThrownBy(() -> admission.acquire(Priority.BULK))
+				.isInstanceOf(AdmissionRejectedException.class);
+
+		admission.acquire(Priority.INTERACTIVE);
+		admission.acquire(Priority.INTERACTIVE);
+		assertThat(admission.inflight()).isEqualTo(4);
+		assertThat(registry.get("admission.rejected").tag("priority", "bulk").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void waiterAdmittedOnRelease() throws Exception {
+		AdmissionController admission = new AdmissionController(new SimpleMeterRegistry(), 2, 2, 2, 1.5, 10);
+		AdmissionController.Permit first = admission.acquire(Priority.INTERACTIVE);
+		admission.acquire(Priority.INTERACTIVE);
+
+		CompletableFuture<AdmissionController.Permit> waiting =
+				CompletableFuture.supplyAsync(() -> admission.acquire(Priority.INTERACTIVE));
+		Thread.sleep(20);
+		admission.release(first);
+
+		assertThat(waiting.get(1, TimeUnit.SECONDS).priority()).isEqualTo(Priority.INTERACTIVE);
+		assertThat(admission.inflight()).isEqualTo(2);
+	}
+
+	@Test
+	public void interactiveNotBlockedByQueuedSearch() throws Exception {
+		AdmissionController admission = new AdmissionController(new SimpleMeterRegistry(), 4, 4, 4, 1.5, 10);
+		// limit 4 중 SEARCH 는 3까지
+		admission.acquire(Priority.SEARCH);
+		admission.acquire(Priority.SEARCH);
+		admission.acquire(Priority.SEARCH);
+		CompletableFuture<AdmissionController.Permit> queuedSearch =
+				CompletableFuture.supplyAsync(() -> admission.acquire(Priority.SEARCH));
+		Thread.sleep(20);
+
+		// 낮은 우선순위만 기다리고 있으면 자리가 남은 INTERACTIVE 는 바로 들어간다.
+		long start = System.nanoTime();
+		AdmissionController.Permit interactive = admission.acquire(Priority.INTERACTIVE);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(50);
+		assertThat(interactive.priority()).isEqualTo(Priority.INTERACTIVE);
+		assertThat(admission.inflight()).isEqualTo(4);
+
+		assertThatThrownBy(() -> queuedSearch.get(1, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(AdmissionRejectedException.class);
+	}
+
+	@Test
+	public void limitFollowsLatency() {
+		GradientLimit limit = new GradientLimit(20, 4, 200, 1.5);
+		long fast = TimeUnit.MILLISECONDS.toNanos(10);
+		long slow = TimeUnit.MILLISECONDS.toNanos(100);
+
+		for (int i = 0; i < 50; i++) {
+			limit.onSample(fast, 20);
+		}
+		int grown = limit.current();
+		assertThat(grown).isGreaterThan(20);
+
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(slow, grown);
+		}
+		assertThat(limit.current()).isLessThan(grown);
+
+		// 부하가 없으면(실행 중 요청이 적으면) 늘리지 않는다.
+		int current = limit.current();
+		limit.onSample(fast, 1);
+		assertThat(limit.current()).isEqualTo(current);
+	}
+}
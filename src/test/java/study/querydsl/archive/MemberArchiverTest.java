@@ -0,0 +1,131 @@
+package study.querydsl.archive;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.ArchiveResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.tenant.TenantContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * chunk 는 새 트랜잭션으로 커밋하므로 테스트 데이터도 커밋해 두고 끝나면 JDBC 로 지운다.
+ */
+@SpringBootTest(properties = {"querydsl.archive.chunk-size=2", "querydsl.archive.pause-ms=0"})
+class MemberArchiverTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	MemberArchiver memberArchiver;
+
+	@Autowired
+	MemberRepository memberRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	String previous;
+
+	@BeforeEach
+	public void before() {
+		previous = TenantContext.bind("archiveTenant");
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Team team = new Team("archiveTeam");
+			em.persist(team);
+			for (int i = 0; i < 5; i++) {
+				em.persist(new Member("archiveOld" + i, 60 + i, team));
+			}
+			em.persist(new Member("archiveActive", 20, team));
+		});
+	}
+
+	@AfterEach
+	public void after() {
+		TenantContext.restore(previous);
+		jdbcTemplate.update("delete from member_archive where tenant_id = ?", "archiveTenant");
+		jdbcTemplate.update("delete from member where tenant_id = ?", "archiveTenant");
+		jdbcTemplate.update("delete from team where tenant_id = ?", "archiveTenant");
+	}
+
+	@Test
+	public void archiveInChunks() {
+		ArchiveResult result = memberArchiver.archive(member.username.startsWith("archiveOld"));
+
+		assertThat(result.archived()).isEqualTo(5);
+		assertThat(result.chunks()).isEqualTo(3);
+		assertThat(result.completed()).isTrue();
+
+		// 기본 검색은 member 만
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("archiveTeam");
+		assertThat(memberRepository.search(condition))
+				.extracting(MemberTeamDto::getUsername)
+				.containsExactly("archiveActive");
+
+		condition.setIncludeArchived(true);
+		condition.setUsernamePrefix("ARCHIVEOLD");
+		assertThat(memberRepository.search(condition))
+				.extracting(MemberTeamDto::getTeamName)
+				.hasSize(5)
+				.containsOnly("archiveTeam");
+
+		// 다시 실행해도 옮길 회원이 없다.
+		assertThat(memberArchiver.archive(member.username.startsWith("archiveOld")).archived()).isZero();
+	}
+
+	@Test
+	public void pageAcrossArchive() {
+		memberArchiver.archive(member.age.goe(62));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("archiveTeam");
+		condition.setIncludeArchived(true);
+
+		// member 3명 (archiveOld0, archiveOld1, archiveActive) 다음에 member_archive 3명
+		Page<MemberTeamDto> first = memberRepository.searchPageComplex(condition, PageRequest.of(0, 4));
+		Page<MemberTeamDto> second = memberRepository.searchPageComplex(condition, PageRequest.of(1, 4));
+
+		assertThat(first.getTotalElements()).isEqualTo(6);
+		assertThat(first.getContent()).hasSize(4);
+		assertThat(second.getContent()).hasSize(2);
+		assertThat(first.getContent().get(3).getAge()).isGreaterThanOrEqualTo(62);
+		assertThat(second.getContent()).extracting(MemberTeamDto::getAge).allMatch(age -> age >= 62);
+
+		condition.setIncludeArchived(false);
+		assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 4)).getTotalElements())
+				.isEqualTo(3);
+	}
+
+	@Test
+	public void chunkCommitsIndependentlyOfCaller() {
+		// 호출한 쪽 트랜잭션이 롤백돼도 이미 커밋한 chunk 는 남는다.
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			assertThat(memberArchiver.archive(member.username.startsWith("archiveOld")).archived()).isEqualTo(5);
+			status.setRollbackOnly();
+		});
+
+		assertThat(jdbcTemplate.queryForObject("select count(*) from member_archive where tenant_id = ?",
+				Long.class, "archiveTenant")).isEqualTo(5);
+		assertThat(jdbcTemplate.queryForObject("select count(*) from member where tenant_id = ?",
+				Long.class, "archiveTenant")).isEqualTo(1);
+	}
+}
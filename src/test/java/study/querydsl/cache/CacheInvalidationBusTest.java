@@ -0,0 +1,65 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheInvalidationBusTest {
+
+	@Test
+	public void deliverToOtherNodesOnly() {
+		InMemoryInvalidationTransport transport = new InMemoryInvalidationTransport();
+		CacheInvalidationBus node1 = new CacheInvalidationBus(transport, "node1", Duration.ofMinutes(1));
+		CacheInvalidationBus node2 = new CacheInvalidationBus(transport, "node2", Duration.ofMinutes(1));
+
+		List<String> node1Keys = new ArrayList<>();
+		List<String> node2Keys = new ArrayList<>();
+		node1.onInvalidate(CacheInvalidation.MEMBER, node1Keys::add);
+		node2.onInvalidate(CacheInvalidation.MEMBER, node2Keys::add);
+
+		node1.publish(CacheInvalidation.MEMBER, 1L, 0);
+		// flush 전에는 보내지 않는다.
+		assertThat(node2Keys).isEmpty();
+
+		node1.flush();
+
+		assertThat(node1Keys).isEmpty();
+		assertThat(node2Keys).containsExactly("1");
+	}
+
+	@Test
+	public void coalesceAndIgnoreStaleVersions() {
+		InMemoryInvalidationTransport transport = new InMemoryInvalidationTransport();
+		List<List<CacheInvalidation>> batches = new ArrayList<>();
+		transport.subscribe(batches::add);
+		CacheInvalidationBus node1 = new CacheInvalidationBus(transport, "node1", Duration.ofMinutes(1));
+		CacheInvalidationBus node2 = new CacheInvalidationBus(transport, "node2", Duration.ofMinutes(1));
+
+		List<String> applied = new ArrayList<>();
+		node2.onInvalidate(CacheInvalidation.MEMBER, applied::add);
+
+		// 같은 key 는 가장 높은 version 하나만 보낸다.
+		node1.publish(CacheInvalidation.MEMBER, 1L, 1);
+		node1.publish(CacheInvalidation.MEMBER, 1L, 3);
+		node1.publish(CacheInvalidation.MEMBER, 1L, 2);
+		node1.flush();
+
+		assertThat(batches).hasSize(1);
+		assertThat(batches.get(0)).extracting(CacheInvalidation::version).containsExactly(3L);
+		assertThat(applied).containsExactly("1");
+
+		// 늦게 도착한 이전 version 은 무시
+		transport.publish(List.of(new CacheInvalidation(CacheInvalidation.MEMBER, "1", 2, "node3")));
+		assertThat(applied).containsExactly("1");
+		assertThat(node2.getStaleCount()).isEqualTo(1);
+
+		// version 이 없으면 항상 적용
+		transport.publish(List.of(new CacheInvalidation(CacheInvalidation.MEMBER, "1",
+				CacheInvalidation.UNVERSIONED, "node3")));
+		assertThat(applied).containsExactly("1", "1");
+	}
+}
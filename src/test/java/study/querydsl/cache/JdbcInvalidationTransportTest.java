@@ -0,0 +1,58 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 두 transport 를 두 노드로 보고 같은 cache_invalidation 테이블로 주고받는다.
+ */
+@SpringBootTest
+class JdbcInvalidationTransportTest {
+
+	private static final String ORIGIN = "jdbcTransportTest";
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	public void after() {
+		jdbcTemplate.update("delete from cache_invalidation where origin = ?", ORIGIN);
+	}
+
+	@Test
+	public void deliverOnce() {
+		JdbcInvalidationTransport sender = new JdbcInvalidationTransport(jdbcTemplate, Duration.ofSeconds(10), Duration.ofMinutes(5));
+		JdbcInvalidationTransport receiver = new JdbcInvalidationTransport(jdbcTemplate, Duration.ofSeconds(10), Duration.ofMinutes(5));
+		List<CacheInvalidation> received = new ArrayList<>();
+		receiver.subscribe(batch -> batch.stream().filter(i -> ORIGIN.equals(i.origin())).forEach(received::add));
+		receiver.poll();
+
+		sender.publish(List.of(new CacheInvalidation(CacheInvalidation.MEMBER, "1", 1, ORIGIN)));
+		receiver.poll();
+		// lookback 으로 겹쳐 읽어도 한 번만 전달
+		receiver.poll();
+
+		assertThat(received).extracting(CacheInvalidation::key).containsExactly("1");
+	}
+
+	@Test
+	public void stampedWithDatabaseClock() {
+		new JdbcInvalidationTransport(jdbcTemplate, Duration.ofSeconds(10), Duration.ofMinutes(5))
+				.publish(List.of(new CacheInvalidation(CacheInvalidation.MEMBER, "1", 1, ORIGIN)));
+
+		Timestamp createdAt = jdbcTemplate.queryForObject(
+				"select created_at from cache_invalidation where origin = ?", Timestamp.class, ORIGIN);
+		Timestamp dbNow = jdbcTemplate.queryForObject("select current_timestamp", Timestamp.class);
+		assertThat(Duration.between(createdAt.toInstant(), dbNow.toInstant())).isBetween(Duration.ZERO, Duration.ofSeconds(5));
+	}
+}
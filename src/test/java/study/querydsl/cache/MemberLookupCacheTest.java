@@ -0,0 +1,82 @@
+package study.querydsl.cache;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberLookupCacheTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	MemberLookupCache memberLookupCache;
+
+	@Test
+	public void invalidateOnEntityChange() {
+		Team teamA = new Team("cacheTeamA");
+		em.persist(teamA);
+		// 없는 username 도 캐시된다. (negative caching)
+		assertThat(memberLookupCache.findByUsername("cacheMember1")).isEmpty();
+
+		Member member1 = new Member("cacheMember1", 10, teamA);
+		em.persist(member1);
+		em.flush();
+
+		// 저장 시 negative 항목이 지워져야 한다.
+		assertThat(memberLookupCache.findByUsername("cacheMember1"))
+				.extracting(MemberTeamDto::getMemberId)
+				.containsExactly(member1.getId());
+		assertThat(memberLookupCache.findById(member1.getId()))
+				.hasValueSatisfying(dto -> assertThat(dto.getAge()).isEqualTo(10));
+
+		member1.setUsername("cacheMember2");
+		member1.setAge(20);
+		em.flush();
+
+		// 이전 username 항목도 함께 지워진다.
+		assertThat(memberLookupCache.findByUsername("cacheMember1")).isEmpty();
+		assertThat(memberLookupCache.findById(member1.getId()))
+				.hasValueSatisfying(dto -> assertThat(dto.getAge()).isEqualTo(20));
+
+		teamA.setName("cacheTeamB");
+		em.flush();
+
+		assertThat(memberLookupCache.findByUsername("cacheMember2"))
+				.extracting(MemberTeamDto::getTeamName)
+				.containsExactly("cacheTeamB");
+
+		em.remove(member1);
+		em.flush();
+
+		assertThat(memberLookupCache.findById(member1.getId())).isEmpty();
+	}
+
+	@Test
+	public void invalidateOnSaveAndDeleteThroughCache() {
+		Team team = new Team("cacheSaveTeam");
+		em.persist(team);
+		assertThat(memberLookupCache.findByUsername("cacheSaveMember")).isEmpty();
+
+		// flush 전이라도 저장하면 negative 항목이 지워진다.
+		Member saved = new Member("cacheSaveMember", 10, team);
+		memberLookupCache.save(saved);
+		assertThat(memberLookupCache.findByUsername("cacheSaveMember"))
+				.extracting(MemberTeamDto::getMemberId)
+				.containsExactly(saved.getId());
+		assertThat(memberLookupCache.findById(saved.getId())).isPresent();
+
+		memberLookupCache.delete(saved);
+		assertThat(memberLookupCache.findById(saved.getId())).isEmpty();
+		assertThat(memberLookupCache.findByUsername("cacheSaveMember")).isEmpty();
+	}
+}
@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.QMember;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuerydslRuntimeHintsTest {
+
+	@Test
+	public void registerHints() {
+		RuntimeHints hints = new RuntimeHints();
+		new QuerydslRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+		// SimpleEntityPathResolver 가 QMember.member 를 읽을 수 있어야 한다.
+		assertThat(RuntimeHintsPredicates.reflection().onType(QMember.class)
+				.withMemberCategory(MemberCategory.DECLARED_FIELDS)).accepts(hints);
+
+		// @QueryProjection 생성자
+		assertThat(RuntimeHintsPredicates.reflection().onType(MemberTeamDto.class)
+				.withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+
+		// Projections.bean 은 setter 호출
+		assertThat(RuntimeHintsPredicates.reflection().onType(MemberDto.class)
+				.withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS)).accepts(hints);
+
+		assertThat(RuntimeHintsPredicates.resource().forResource("spy.properties")).accepts(hints);
+	}
+}
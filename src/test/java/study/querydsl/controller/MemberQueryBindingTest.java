@@ -0,0 +1,84 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * v3/members/query 의 파라미터 바인딩 (MemberRepository.customize)
+ * 검색은 Callable 로 다른 스레드에서 실행되므로 테스트 트랜잭션 없이 커밋된 데이터로 확인한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberQueryBindingTest {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	MemberRepository memberRepository;
+
+	List<Member> members = new ArrayList<>();
+
+	@BeforeEach
+	public void before() {
+		for (int age = 10; age <= 50; age += 10) {
+			members.add(memberRepository.save(new Member("ageBind" + age, age)));
+		}
+	}
+
+	@AfterEach
+	public void after() {
+		memberRepository.deleteAll(members);
+	}
+
+	@Test
+	public void ageRange() throws Exception {
+		search("/v3/members/query?username=ageBind&age=20&age=40")
+				.andExpect(jsonPath("$.content[*].username").value(containsInAnyOrder("ageBind20", "ageBind30", "ageBind40")));
+	}
+
+	@Test
+	public void reversedAgeRange() throws Exception {
+		search("/v3/members/query?username=ageBind&age=40&age=20")
+				.andExpect(jsonPath("$.content[*].username").value(containsInAnyOrder("ageBind20", "ageBind30", "ageBind40")));
+	}
+
+	@Test
+	public void singleAgeIsEq() throws Exception {
+		search("/v3/members/query?username=ageBind&age=30")
+				.andExpect(jsonPath("$.content[*].username").value(containsInAnyOrder("ageBind30")));
+	}
+
+	@Test
+	public void rejectMoreThanTwoAges() throws Exception {
+		mvc.perform(get("/v3/members/query?username=ageBind&age=10&age=20&age=30"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private ResultActions search(String url) throws Exception {
+		MvcResult started = mvc.perform(get(url))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,69 @@
+package study.querydsl.controller;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+class QueryBudgetTest {
+
+	QueryBudget queryBudget = new QueryBudget(4, 100);
+
+	Pageable pageable = PageRequest.of(0, 10);
+
+	@Test
+	public void acceptIndexedCondition() {
+		accept(member.username.eq("member1"));
+		accept(member.username.eq("member1").and(member.age.gt(10)));
+		accept(member.team.id.eq(1L).and(member.age.gt(10).or(member.age.lt(5))));
+		accept(new BooleanBuilder().and(member.age.gt(10)).and(member.team.id.eq(1L)));
+	}
+
+	@Test
+	public void acceptOrWhenEveryBranchIndexed() {
+		accept(member.username.eq("member1").or(member.team.id.eq(1L)));
+		accept(member.username.eq("member1").or(member.team.id.eq(1L).and(member.age.gt(10))));
+	}
+
+	@Test
+	public void rejectOrWithUnindexedBranch() {
+		reject(member.username.eq("member1").or(member.age.gt(10)), "is required");
+		reject(member.age.lt(20).and(member.username.eq("member1").or(member.age.gt(10))), "is required");
+	}
+
+	@Test
+	public void rejectWithoutIndexedCondition() {
+		reject(member.age.gt(10), "is required");
+		reject(null, "is required");
+		reject(new BooleanBuilder(), "is required");
+	}
+
+	@Test
+	public void rejectTooManyConditions() {
+		// or 안의 조건도 센다.
+		reject(member.username.eq("a").or(member.username.eq("b")).or(member.username.eq("c"))
+				.or(member.username.eq("d")).or(member.username.eq("e")), "too many conditions: 5");
+	}
+
+	@Test
+	public void rejectLargePage() {
+		assertThatThrownBy(() -> queryBudget.check(member.username.eq("member1"), PageRequest.of(0, 101)))
+				.isInstanceOf(QueryBudgetExceededException.class)
+				.hasMessageContaining("page size");
+	}
+
+	private void accept(Predicate predicate) {
+		assertThatCode(() -> queryBudget.check(predicate, pageable)).doesNotThrowAnyException();
+	}
+
+	private void reject(Predicate predicate, String message) {
+		assertThatThrownBy(() -> queryBudget.check(predicate, pageable))
+				.isInstanceOf(QueryBudgetExceededException.class)
+				.hasMessageContaining(message);
+	}
+}
@@ -0,0 +1,110 @@
+package study.querydsl.limit;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class QueryLimitInterceptorTest {
+
+	final QueryLimitInterceptor interceptor = new QueryLimitInterceptor(5000, 10000, 10000);
+	final MockHttpServletRequest request = new MockHttpServletRequest();
+	final MockHttpServletResponse response = new MockHttpServletResponse();
+	final NativeWebRequest webRequest = new ServletWebRequest(request, response);
+	final Callable<Object> task = () -> null;
+
+	@AfterEach
+	public void after() {
+		QueryScope.restore(null);
+	}
+
+	@Test
+	public void narrowDefaultsWithAnnotation() throws Exception {
+		assertThat(interceptor.limitsOf(handler("limited")))
+				.isEqualTo(new QueryLimits(300, 10000, 1000));
+		assertThat(interceptor.limitsOf(handler("unlimited")))
+				.isEqualTo(new QueryLimits(5000, 10000, 10000));
+	}
+
+	@Test
+	public void bindSameScopeOnAsyncThread() throws Exception {
+		interceptor.preHandle(request, response, handler("limited"));
+		QueryScope scope = QueryScope.current();
+		assertThat(scope.limits()).isEqualTo(new QueryLimits(300, 10000, 1000));
+
+		// 요청 스레드는 비우고
+		interceptor.afterConcurrentHandlingStarted(request, response, handler("limited"));
+		assertThat(QueryScope.current()).isNull();
+
+		// async 스레드에 같은 scope
+		QueryScope onAsyncThread = CompletableFuture.supplyAsync(() -> {
+			interceptor.preProcess(webRequest, task);
+			try {
+				return QueryScope.current();
+			} finally {
+				interceptor.postProcess(webRequest, task, null);
+			}
+		}).get();
+		assertThat(onAsyncThread).isSameAs(scope);
+
+		// async 재dispatch 도 처음 scope 를 그대로 쓴다.
+		interceptor.preHandle(request, response, handler("limited"));
+		assertThat(QueryScope.current()).isSameAs(scope);
+		interceptor.afterCompletion(request, response, handler("limited"), null);
+		assertThat(QueryScope.current()).isNull();
+	}
+
+	@Test
+	public void cancelRunningQueryOnDisconnect() throws Exception {
+		interceptor.preHandle(request, response, handler("limited"));
+		QueryScope scope = QueryScope.current();
+		Session session = mock(Session.class);
+		scope.register(session);
+
+		// 클라이언트 연결이 끊기면 async error
+		Object result = interceptor.handleError(webRequest, task, new IllegalStateException("disconnected"));
+
+		assertThat(result).isSameAs(CallableProcessingInterceptor.RESULT_NONE);
+		assertThat(scope.isCancelled()).isTrue();
+		verify(session).cancelQuery();
+	}
+
+	@Test
+	public void cancelRunningQueryOnTimeout() throws Exception {
+		interceptor.preHandle(request, response, handler("limited"));
+		QueryScope scope = QueryScope.current();
+		Session session = mock(Session.class);
+		scope.register(session);
+
+		interceptor.handleTimeout(webRequest, task);
+
+		assertThat(scope.isCancelled()).isTrue();
+		verify(session).cancelQuery();
+	}
+
+	private static HandlerMethod handler(String name) throws NoSuchMethodException {
+		return new HandlerMethod(new LimitedController(), LimitedController.class.getMethod(name));
+	}
+
+	static class LimitedController {
+
+		@QueryLimit(timeoutMs = 300, maxTimeMs = 1000)
+		public void limited() {
+		}
+
+		public void unlimited() {
+		}
+	}
+}
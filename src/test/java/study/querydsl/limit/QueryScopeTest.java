@@ -0,0 +1,136 @@
+package study.querydsl.limit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.QueryTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.sql.MemberSqlRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@SpringBootTest
+@Transactional
+class QueryScopeTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+
+	@Autowired
+	MemberSqlRepository memberSqlRepository;
+
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("limitTeam");
+		em.persist(teamA);
+		for (int i = 0; i < 4; i++) {
+			em.persist(new Member("limit" + i, 10 + i, teamA));
+		}
+	}
+
+	@Test
+	public void narrowTest() {
+		QueryLimits outer = new QueryLimits(3000, 0, 5000);
+		QueryLimits inner = new QueryLimits(0, 100, 10000);
+
+		assertThat(outer.narrow(inner)).isEqualTo(new QueryLimits(3000, 100, 5000));
+		assertThat(QueryLimits.NONE.narrow(QueryLimits.NONE)).isEqualTo(QueryLimits.NONE);
+	}
+
+	@Test
+	public void maxRowsTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("limitTeam");
+
+		// 넘치면 잘라서 돌려주지 않는다.
+		QueryScope previous = QueryScope.open(new QueryLimits(0, 2, 0)).bind();
+		try {
+			assertThatThrownBy(() -> memberJpaRepository.searchByBuilderWhere(condition))
+					.isInstanceOf(QueryRowLimitExceededException.class);
+		} finally {
+			QueryScope.restore(previous);
+		}
+
+		previous = QueryScope.open(new QueryLimits(0, 4, 0)).bind();
+		try {
+			List<MemberTeamDto> result = memberJpaRepository.searchByBuilderWhere(condition);
+			assertThat(result).hasSize(4);
+		} finally {
+			QueryScope.restore(previous);
+		}
+	}
+
+	@Test
+	public void timeBudgetExhaustedTest() throws InterruptedException {
+		QueryScope previous = QueryScope.open(new QueryLimits(0, 0, 1)).bind();
+		try {
+			Thread.sleep(10);
+			Throwable thrown = catchThrowable(() -> memberJpaRepository.searchByBuilderWhere(new MemberSearchCondition()));
+			assertThat(NestedExceptionUtils.getMostSpecificCause(thrown)).isInstanceOf(QueryTimeoutException.class);
+		} finally {
+			QueryScope.restore(previous);
+		}
+	}
+
+	@Test
+	public void cancelledScopeTest() {
+		QueryScope scope = QueryScope.open(QueryLimits.NONE);
+		QueryScope previous = scope.bind();
+		try {
+			scope.cancel();
+			Throwable thrown = catchThrowable(() -> memberJpaRepository.searchByBuilderWhere(new MemberSearchCondition()));
+			assertThat(NestedExceptionUtils.getMostSpecificCause(thrown)).isInstanceOf(QueryTimeoutException.class);
+		} finally {
+			QueryScope.restore(previous);
+		}
+	}
+
+	// querydsl-sql 경로도 같은 scope 를 따른다. (QueryScopeSqlListener)
+	@Test
+	public void sqlEngineTest() {
+		// querydsl-sql 은 영속성 컨텍스트를 거치지 않으므로 flush 필요
+		em.flush();
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("limitTeam");
+
+		QueryScope previous = QueryScope.open(new QueryLimits(0, 2, 0)).bind();
+		try {
+			assertThatThrownBy(() -> memberSqlRepository.search(condition))
+					.isInstanceOf(QueryRowLimitExceededException.class);
+		} finally {
+			QueryScope.restore(previous);
+		}
+
+		previous = QueryScope.open(new QueryLimits(1000, 4, 0)).bind();
+		try {
+			assertThat(memberSqlRepository.search(condition)).hasSize(4);
+		} finally {
+			QueryScope.restore(previous);
+		}
+
+		QueryScope scope = QueryScope.open(QueryLimits.NONE);
+		previous = scope.bind();
+		try {
+			scope.cancel();
+			Throwable thrown = catchThrowable(() -> memberSqlRepository.search(condition));
+			assertThat(NestedExceptionUtils.getMostSpecificCause(thrown)).isInstanceOf(QueryTimeoutException.class);
+		} finally {
+			QueryScope.restore(previous);
+		}
+	}
+}
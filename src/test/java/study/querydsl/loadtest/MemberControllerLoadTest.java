@@ -0,0 +1,279 @@
+package study.querydsl.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.UpsertResult;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.seed.SeedDataGenerator;
+import study.querydsl.seed.SeedSpec;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MemberController 부하 테스트 (./gradlew loadTest, 일반 test 에서는 제외)
+ * 1. SeedDataGenerator 로 만든 데이터를 upsertAll 로 적재
+ * 2. steady: 클라이언트마다 정해진 seed 로 endpoint 를 섞어 순서대로 요청
+ * 3. burst: 모든 클라이언트가 동시에 검색을 몰아서 보냄 (커넥션 풀 대기 확인)
+ * 단계마다 처리량, endpoint 별 p50/p99, 응답 코드, 요청당 DB statement 수, 커넥션 획득 대기를
+ * 출력하고 build/loadtest/report.csv 에 누적한다.
+ * 규모는 -Pload.members=1000000 -Pload.clients=32 처럼 바꾼다.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "querydsl.warmup.enabled=false")
+class MemberControllerLoadTest {
+
+	private static final long SEED = Long.getLong("load.seed", 42);
+	private static final int TEAMS = Integer.getInteger("load.teams", 200);
+	private static final int MEMBERS = Integer.getInteger("load.members", 100_000);
+	private static final int CLIENTS = Integer.getInteger("load.clients", 16);
+	private static final int REQUESTS = Integer.getInteger("load.requests", 500);
+	private static final int WARMUP = Integer.getInteger("load.warmup", 100);
+	private static final int BURSTS = Integer.getInteger("load.bursts", 5);
+	private static final int BURST_SIZE = Integer.getInteger("load.burst-size", 10);
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+	private long[] memberIds;
+	private List<String> usernames;
+
+	@Test
+	public void load() throws Exception {
+		long start = System.nanoTime();
+		UpsertResult seeded = memberJpaRepository.upsertAll(
+				new SeedDataGenerator(new SeedSpec(SEED, TEAMS, MEMBERS, 1.0, 0.8, 0.02)).members());
+		System.out.printf("seed: %d members, %d teams in %d ms%n", seeded.inserted(), seeded.teamsCreated(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+		memberIds = jdbcTemplate.queryForList("select member_id from member order by member_id", Long.class)
+				.stream().mapToLong(Long::longValue).toArray();
+		usernames = jdbcTemplate.queryForList("select username from member order by member_id", String.class);
+
+		run("warmup", WARMUP, 0, null);
+		Result steady = run("steady", REQUESTS, 0, null);
+		Result burst = run("burst", BURSTS, BURST_SIZE, Endpoint.COMPLEX);
+
+		assertThat(steady.count(200)).isGreaterThan(0);
+		assertThat(burst.count(200)).isGreaterThan(0);
+	}
+
+	/**
+	 * @param rounds    클라이언트마다 요청 수 (burst 는 라운드 수)
+	 * @param burstSize 0 이 아니면 라운드마다 모든 클라이언트가 동시에 시작해 burstSize 개씩 보낸다.
+	 */
+	private Result run(String phase, int rounds, int burstSize, Endpoint fixed) throws Exception {
+		double statementsBefore = statements();
+		Map<Endpoint, List<Long>> latencies = new EnumMap<>(Endpoint.class);
+		Map<Integer, Integer> statuses = new TreeMap<>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+		long start = System.nanoTime();
+		try {
+			if (burstSize == 0) {
+				merge(executor.invokeAll(clientTasks(phase, rounds, fixed, null)), latencies, statuses);
+			} else {
+				for (int round = 0; round < rounds; round++) {
+					CountDownLatch go = new CountDownLatch(1);
+					List<Future<List<Sample>>> futures = clientTasks(phase + round, burstSize, fixed, go).stream()
+							.map(executor::submit)
+							.toList();
+					go.countDown();
+					merge(futures, latencies, statuses);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		long elapsedNanos = System.nanoTime() - start;
+
+		Result result = new Result(phase, latencies, statuses, elapsedNanos, statements() - statementsBefore);
+		if (!"warmup".equals(phase)) {
+			result.print(acquireMaxMs());
+			result.append(Path.of("build", "loadtest", "report.csv"));
+		}
+		return result;
+	}
+
+	private List<Callable<List<Sample>>> clientTasks(String phase, int requests, Endpoint fixed,
+													  CountDownLatch go) {
+		List<Callable<List<Sample>>> tasks = new ArrayList<>();
+		for (int c = 0; c < CLIENTS; c++) {
+			// 단계, 클라이언트가 같으면 같은 요청 순서
+			SplittableRandom random = new SplittableRandom(SEED * 31 + phase.hashCode() * 17L + c);
+			tasks.add(() -> {
+				if (go != null) {
+					go.await();
+				}
+				List<Sample> samples = new ArrayList<>(requests);
+				for (int i = 0; i < requests; i++) {
+					Endpoint endpoint = fixed != null ? fixed : Endpoint.pick(random);
+					samples.add(send(endpoint, endpoint.uri(random, memberIds, usernames)));
+				}
+				return samples;
+			});
+		}
+		return tasks;
+	}
+
+	private static void merge(List<Future<List<Sample>>> futures, Map<Endpoint, List<Long>> latencies,
+							  Map<Integer, Integer> statuses) throws Exception {
+		for (Future<List<Sample>> future : futures) {
+			for (Sample sample : future.get()) {
+				latencies.computeIfAbsent(sample.endpoint(), key -> new ArrayList<>()).add(sample.nanos());
+				statuses.merge(sample.status(), 1, Integer::sum);
+			}
+		}
+	}
+
+	private Sample send(Endpoint endpoint, String uri) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + uri)).GET().build();
+		long start = System.nanoTime();
+		HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+		return new Sample(endpoint, response.statusCode(), System.nanoTime() - start);
+	}
+
+	private double statements() {
+		return meterRegistry.find("db.statements").counters().stream().mapToDouble(Counter::count).sum();
+	}
+
+	private double acquireMaxMs() {
+		return meterRegistry.find("db.connection.acquire").timers().stream()
+				.mapToDouble(timer -> timer.max(TimeUnit.MILLISECONDS))
+				.max().orElse(0);
+	}
+
+	enum Endpoint {
+		BY_ID(50),
+		BY_USERNAME(20),
+		COMPLEX(20),
+		BULK(10);
+
+		private final int weight;
+
+		Endpoint(int weight) {
+			this.weight = weight;
+		}
+
+		static Endpoint pick(SplittableRandom random) {
+			int value = random.nextInt(100);
+			for (Endpoint endpoint : values()) {
+				value -= endpoint.weight;
+				if (value < 0) {
+					return endpoint;
+				}
+			}
+			return BY_ID;
+		}
+
+		// 팀은 큰 팀(앞 순위)이 자주 조회되도록 제곱으로 치우친다.
+		String uri(SplittableRandom random, long[] memberIds, List<String> usernames) {
+			int ageGoe = 10 + random.nextInt(60);
+			String teamName = SeedDataGenerator.teamName((int) (Math.pow(random.nextDouble(), 2) * TEAMS));
+			return switch (this) {
+				case BY_ID -> "/v1/members/" + memberIds[random.nextInt(memberIds.length)];
+				case BY_USERNAME -> "/v1/members/username/" + usernames.get(random.nextInt(usernames.size()));
+				case COMPLEX -> "/v2/complex/members?teamName=" + teamName + "&ageGoe=" + ageGoe
+						+ "&ageLoe=" + (ageGoe + 10) + "&page=" + random.nextInt(5) + "&size=20";
+				case BULK -> "/v1/members?teamName=" + teamName + "&ageGoe=" + ageGoe;
+			};
+		}
+	}
+
+	record Sample(Endpoint endpoint, int status, long nanos) {
+	}
+
+	record Result(String phase, Map<Endpoint, List<Long>> latencies, Map<Integer, Integer> statuses,
+				  long elapsedNanos, double statements) {
+
+		int total() {
+			return statuses.values().stream().mapToInt(Integer::intValue).sum();
+		}
+
+		int count(int status) {
+			return statuses.getOrDefault(status, 0);
+		}
+
+		double throughput() {
+			return total() / (elapsedNanos / 1_000_000_000.0);
+		}
+
+		void print(double acquireMaxMs) {
+			System.out.printf("[%s] %d requests, %.1f req/s, %.2f statements/request, statuses %s, connection acquire max %.1f ms%n",
+					phase, total(), throughput(), statements / total(), statuses, acquireMaxMs);
+			latencies.forEach((endpoint, values) -> {
+				long[] sorted = sorted(values);
+				System.out.printf("  %-12s n=%-6d p50 %.2f ms, p99 %.2f ms%n", endpoint, sorted.length,
+						percentile(sorted, 0.5), percentile(sorted, 0.99));
+			});
+		}
+
+		// timestamp,phase,members,clients,endpoint,requests,throughput,p50Ms,p99Ms,statementsPerRequest
+		void append(Path report) throws IOException {
+			Files.createDirectories(report.getParent());
+			StringBuilder lines = new StringBuilder();
+			String prefix = Instant.now() + "," + phase + "," + MEMBERS + "," + CLIENTS + ",";
+			lines.append(prefix).append(String.format("all,%d,%.1f,,,%.2f%n", total(), throughput(), statements / total()));
+			latencies.forEach((endpoint, values) -> {
+				long[] sorted = sorted(values);
+				lines.append(prefix).append(String.format("%s,%d,,%.2f,%.2f,%n", endpoint, sorted.length,
+						percentile(sorted, 0.5), percentile(sorted, 0.99)));
+			});
+			Files.writeString(report, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+
+		private static long[] sorted(List<Long> values) {
+			long[] sorted = values.stream().mapToLong(Long::longValue).toArray();
+			Arrays.sort(sorted);
+			return sorted;
+		}
+
+		private static double percentile(long[] sorted, double p) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int index = Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1);
+			return sorted[Math.max(index, 0)] / 1_000_000.0;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package study.querydsl.outbox;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QOutboxEvent.outboxEvent;
+
+@SpringBootTest
+@Transactional
+@RecordApplicationEvents
+class OutboxRelayTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	OutboxRelay outboxRelay;
+
+	@Autowired
+	ApplicationEvents applicationEvents;
+
+	@Autowired
+	JPAQueryFactory queryFactory;
+
+	@Autowired
+	OutboxWriter outboxWriter;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	public void relayMemberChanges() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		Member member1 = new Member("member1", 10, teamA);
+		em.persist(member1);
+		em.flush();
+
+		member1.changeTeam(teamB);
+		em.flush();
+
+		em.remove(member1);
+		em.flush();
+
+		outboxRelay.relayBatch();
+
+		List<ChangeEvent> memberEvents = applicationEvents.stream(ChangeEvent.class)
+				.filter(event -> event.aggregateType().equals(OutboxWriter.MEMBER))
+				.filter(event -> event.aggregateId().equals(member1.getId()))
+				.toList();
+
+		// 회원별 발생 순서 보장
+		assertThat(memberEvents).extracting("eventType")
+				.containsExactly(OutboxListener.CREATED, OutboxListener.UPDATED, OutboxListener.DELETED);
+		assertThat(memberEvents.get(1).payload()).contains("\"teamId\":" + teamB.getId());
+
+		// 이미 전달한 이벤트는 다시 보내지 않는다.
+		assertThat(outboxRelay.relayBatch()).isZero();
+	}
+
+	@Test
+	public void replayIsIdempotent() {
+		Member member1 = new Member("member1", 10);
+		em.persist(member1);
+		em.flush();
+
+		List<ChangeEvent> received = new ArrayList<>();
+		ChangeEventDeduplicator deduplicator = new ChangeEventDeduplicator();
+		ChangeEventSink sink = events -> events.stream().filter(deduplicator::isNew).forEach(received::add);
+
+		outboxRelay.replay(0, sink);
+		outboxRelay.replay(0, sink);
+
+		assertThat(received).filteredOn(event -> member1.getId().equals(event.aggregateId())).hasSize(1);
+	}
+
+	@Test
+	public void relayBulkChanges() {
+		Member member1 = new Member("bulkMember1", 10);
+		Member member2 = new Member("bulkMember2", 20);
+		Member member3 = new Member("bulkMember3", 30);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		em.flush();
+		outboxRelay.relayBatch();
+
+		queryFactory
+				.update(member)
+				.set(member.age, member.age.add(1))
+				.where(member.username.startsWith("bulkMember"), member.age.lt(30))
+				.execute();
+		queryFactory
+				.delete(member)
+				.where(member.username.eq("bulkMember3"))
+				.execute();
+		em.clear();
+
+		outboxRelay.relayBatch();
+
+		Set<Long> ids = Set.of(member1.getId(), member2.getId(), member3.getId());
+		List<ChangeEvent> bulkEvents = applicationEvents.stream(ChangeEvent.class)
+				.filter(event -> event.aggregateType().equals(OutboxWriter.MEMBER))
+				.filter(event -> ids.contains(event.aggregateId()))
+				.filter(event -> !event.eventType().equals(OutboxListener.CREATED))
+				.toList();
+		assertThat(bulkEvents).extracting(ChangeEvent::eventType, ChangeEvent::aggregateId)
+				.containsExactlyInAnyOrder(
+						tuple(OutboxListener.UPDATED, member1.getId()),
+						tuple(OutboxListener.UPDATED, member2.getId()),
+						tuple(OutboxListener.DELETED, member3.getId()));
+	}
+
+	// id 가 작은 이벤트가 나중에 커밋되어도 published 로 읽으므로 빠지지 않는다.
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void lateCommitWithSmallerIdIsRelayed() throws Exception {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		CountDownLatch inserted = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		try {
+			CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+				outboxWriter.record(OutboxWriter.MEMBER, -1L, OutboxListener.UPDATED, Map.of());
+				inserted.countDown();
+				await(commit);
+			}));
+			inserted.await();
+			tx.executeWithoutResult(status -> outboxWriter.record(OutboxWriter.MEMBER, -2L, OutboxListener.UPDATED, Map.of()));
+			outboxRelay.relayBatch();
+
+			commit.countDown();
+			slow.join();
+			outboxRelay.relayBatch();
+
+			List<Tuple> rows = queryFactory
+					.select(outboxEvent.aggregateId, outboxEvent.id, outboxEvent.published)
+					.from(outboxEvent)
+					.where(outboxEvent.aggregateId.in(-1L, -2L))
+					.orderBy(outboxEvent.id.asc())
+					.fetch();
+			// 먼저 insert 한(id 가 작은) 이벤트가 나중에 커밋됐다.
+			assertThat(rows).extracting(row -> row.get(outboxEvent.aggregateId)).containsExactly(-1L, -2L);
+			assertThat(rows).extracting(row -> row.get(outboxEvent.published)).containsOnly(true);
+		} finally {
+			commit.countDown();
+			tx.executeWithoutResult(status -> queryFactory
+					.delete(outboxEvent)
+					.where(outboxEvent.aggregateId.in(-1L, -2L))
+					.execute());
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	public void deduplicatorIsBounded() {
+		ChangeEventDeduplicator deduplicator = new ChangeEventDeduplicator(10, Duration.ofHours(1));
+		for (long id = 1; id <= 100; id++) {
+			assertThat(deduplicator.isNew(new ChangeEvent(id, OutboxWriter.MEMBER, id, OutboxListener.UPDATED, "{}", null)))
+					.isTrue();
+		}
+		// aggregate 가 늘어도 최대 개수만 기억한다.
+		assertThat(deduplicator.size()).isLessThanOrEqualTo(10);
+	}
+}
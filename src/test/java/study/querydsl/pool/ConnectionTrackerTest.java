@@ -0,0 +1,58 @@
+package study.querydsl.pool;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionTrackerTest {
+
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	public void reportConnectionHeldPastThreshold() throws Exception {
+		ConnectionTracker tracker = new ConnectionTracker(meterRegistry, 10, true);
+		tracker.onAfterGetConnection(ConnectionInformation.fromTestConnection(null), null);
+
+		Thread.sleep(30);
+		tracker.detectLeaks();
+		assertThat(leaks()).isEqualTo(1);
+		assertThat(leased()).isEqualTo(1);
+
+		// 같은 커넥션은 한 번만 경고
+		tracker.detectLeaks();
+		assertThat(leaks()).isEqualTo(1);
+	}
+
+	@Test
+	public void releasedConnectionNotReported() throws Exception {
+		ConnectionTracker tracker = new ConnectionTracker(meterRegistry, 10, false);
+		ConnectionInformation connection = ConnectionInformation.fromTestConnection(null);
+		tracker.onAfterGetConnection(connection, null);
+		tracker.onAfterConnectionClose(connection, null);
+
+		Thread.sleep(30);
+		tracker.detectLeaks();
+		assertThat(leaks()).isZero();
+		assertThat(leased()).isZero();
+	}
+
+	@Test
+	public void connectionWithinThresholdNotReported() {
+		ConnectionTracker tracker = new ConnectionTracker(meterRegistry, 60_000, false);
+		tracker.onAfterGetConnection(ConnectionInformation.fromTestConnection(null), null);
+
+		tracker.detectLeaks();
+		assertThat(leaks()).isZero();
+		assertThat(leased()).isEqualTo(1);
+	}
+
+	private double leaks() {
+		return meterRegistry.get("db.connection.leak.suspected").counter().count();
+	}
+
+	private double leased() {
+		return meterRegistry.get("db.connection.leased").gauge().value();
+	}
+}
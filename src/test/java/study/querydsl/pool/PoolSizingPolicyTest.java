@@ -0,0 +1,35 @@
+package study.querydsl.pool;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolSizingPolicyTest {
+
+	@Test
+	public void growWhenWaitingAndDatabaseHealthy() {
+		PoolSizingPolicy policy = new PoolSizingPolicy(5, 20, 2, 5, 2.0);
+
+		// 쿼리 시간 10ms 가 baseline
+		assertThat(policy.nextSize(10, 10, 3, 20, 10)).isEqualTo(12);
+		assertThat(policy.nextSize(12, 12, 3, 20, 11)).isEqualTo(14);
+	}
+
+	@Test
+	public void shrinkWhenDatabaseSaturated() {
+		PoolSizingPolicy policy = new PoolSizingPolicy(5, 20, 2, 5, 2.0);
+		policy.nextSize(10, 10, 0, 0, 10);
+
+		// 대기가 있어도 쿼리 시간이 baseline 의 2배를 넘으면 줄인다.
+		assertThat(policy.nextSize(10, 10, 5, 50, 30)).isEqualTo(8);
+	}
+
+	@Test
+	public void shrinkWhenIdleWithinBounds() {
+		PoolSizingPolicy policy = new PoolSizingPolicy(5, 20, 2, 5, 2.0);
+
+		assertThat(policy.nextSize(10, 2, 0, 0, 10)).isEqualTo(8);
+		assertThat(policy.nextSize(6, 1, 0, 0, 10)).isEqualTo(5);
+		assertThat(policy.nextSize(20, 20, 10, 100, 10)).isEqualTo(20);
+	}
+}
@@ -0,0 +1,169 @@
+package study.querydsl.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.outbox.OutboxWriter;
+import study.querydsl.tenant.TenantContext;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * flush 는 chunk 마다 따로 커밋하므로 테스트 데이터는 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberAgeWriteBehindTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	JPAQueryFactory queryFactory;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@TempDir
+	Path journalDir;
+
+	Long id1;
+	Long id2;
+
+	// 0 보다 크면 그 번째 recordAll 호출(= chunk)을 실패시킨다.
+	final AtomicInteger failOnCall = new AtomicInteger();
+	final AtomicInteger calls = new AtomicInteger();
+
+	@BeforeEach
+	public void before() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Member member1 = new Member("writeBehind1", 10);
+			Member member2 = new Member("writeBehind2", 20);
+			em.persist(member1);
+			em.persist(member2);
+			id1 = member1.getId();
+			id2 = member2.getId();
+		});
+	}
+
+	@AfterEach
+	public void after() {
+		jdbcTemplate.update("delete from member where member_id in (?, ?)", id1, id2);
+	}
+
+	@Test
+	public void coalesceDeltas() throws Exception {
+		MemberAgeWriteBehind writeBehind = writeBehind(200, "");
+		writeBehind.addAge(id1, 1);
+		writeBehind.addAge(id1, 2);
+		writeBehind.addAge(id1, -1);
+		writeBehind.addAge(id2, 5);
+		assertThat(writeBehind.pendingCount()).isEqualTo(2);
+
+		writeBehind.flush();
+
+		assertThat(writeBehind.pendingCount()).isZero();
+		assertThat(age(id1)).isEqualTo(12);
+		assertThat(age(id2)).isEqualTo(25);
+		// chunk 하나로 반영
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void addAgeOnlyWithinTenant() throws Exception {
+		MemberAgeWriteBehind writeBehind = writeBehind(200, "");
+		String previous = TenantContext.bind("otherTenant");
+		try {
+			writeBehind.addAge(id1, 100);
+		} finally {
+			TenantContext.restore(previous);
+		}
+		writeBehind.addAge(id2, 5);
+
+		writeBehind.flush();
+
+		// 다른 tenant 에서 넘긴 id 는 반영되지 않는다.
+		assertThat(age(id1)).isEqualTo(10);
+		assertThat(age(id2)).isEqualTo(25);
+		assertThat(writeBehind.pendingCount()).isZero();
+	}
+
+	@Test
+	public void retryOnlyFailedChunks() throws Exception {
+		MemberAgeWriteBehind writeBehind = writeBehind(1, "");
+		writeBehind.addAge(id1, 100);
+		writeBehind.addAge(id2, 100);
+		failOnCall.set(2);
+
+		writeBehind.flush();
+
+		// 첫 chunk 만 반영되고 나머지는 버퍼로 돌아간다.
+		assertThat(writeBehind.pendingCount()).isEqualTo(1);
+		assertThat(age(id1) + age(id2)).isEqualTo(10 + 20 + 100);
+
+		writeBehind.flush();
+
+		assertThat(writeBehind.pendingCount()).isZero();
+		assertThat(age(id1)).isEqualTo(110);
+		assertThat(age(id2)).isEqualTo(120);
+	}
+
+	@Test
+	public void replayOnlyUnappliedChunksAfterCrash() throws Exception {
+		MemberAgeWriteBehind crashed = writeBehind(1, journalDir.toString());
+		crashed.addAge(id1, 100);
+		crashed.addAge(id2, 100);
+		failOnCall.set(2);
+		crashed.flush();
+		// close(flush) 없이 종료
+
+		MemberAgeWriteBehind recovered = writeBehind(1, journalDir.toString());
+		assertThat(recovered.pendingCount()).isEqualTo(1);
+		recovered.flush();
+
+		// 이미 반영된 chunk 를 다시 더하지 않는다.
+		assertThat(age(id1)).isEqualTo(110);
+		assertThat(age(id2)).isEqualTo(120);
+
+		// 다 반영했으면 다시 기동해도 복구할 것이 없다.
+		assertThat(writeBehind(1, journalDir.toString()).pendingCount()).isZero();
+	}
+
+	private MemberAgeWriteBehind writeBehind(int chunkSize, String journal) throws Exception {
+		OutboxWriter outboxWriter = new OutboxWriter(jdbcTemplate, objectMapper) {
+			@Override
+			public void recordAll(String aggregateType, String eventType, Map<Long, ?> payloads) {
+				if (calls.incrementAndGet() == failOnCall.get()) {
+					throw new IllegalStateException("chunk failed");
+				}
+				super.recordAll(aggregateType, eventType, payloads);
+			}
+		};
+		return new MemberAgeWriteBehind(queryFactory, outboxWriter, transactionManager, new SimpleMeterRegistry(),
+				100000, chunkSize, journal, false);
+	}
+
+	private int age(Long id) {
+		return jdbcTemplate.queryForObject("select age from member where member_id = ?", Integer.class, id);
+	}
+}
@@ -6,12 +6,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgeUpdate;
+import study.querydsl.dto.MemberImport;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UpsertResult;
+import study.querydsl.dto.VersionedUpdateResult;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -99,4 +104,62 @@ class MemberJpaRepositoryTest {
 
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void updateAgeIfVersionMatchesTest() {
+		Member member1 = new Member("member1", 10);
+		Member member2 = new Member("member2", 20);
+		memberJpaRepository.save(member1);
+		memberJpaRepository.save(member2);
+		em.flush();
+
+		// member2 는 다른 트랜잭션이 먼저 수정했다고 가정 (버전 불일치)
+		VersionedUpdateResult result = memberJpaRepository.updateAgeIfVersionMatches(List.of(
+				new MemberAgeUpdate(member1.getId(), member1.getVersion(), 11),
+				new MemberAgeUpdate(member2.getId(), member2.getVersion() + 1, 21)));
+
+		assertThat(result.updated()).containsExactly(member1.getId());
+		assertThat(result.conflicted()).containsExactly(member2.getId());
+
+		Member findMember1 = memberJpaRepository.findById(member1.getId()).get();
+		assertThat(findMember1.getAge()).isEqualTo(11);
+		assertThat(findMember1.getVersion()).isEqualTo(member1.getVersion() + 1);
+		assertThat(memberJpaRepository.findById(member2.getId()).get().getAge()).isEqualTo(20);
+	}
+
+	@Test
+	public void upsertAllTest() {
+		Team teamA = new Team("importTeamA");
+		em.persist(teamA);
+		Member member1 = new Member("import1", 10, teamA);
+		memberJpaRepository.save(member1);
+		em.flush();
+
+		UpsertResult result = memberJpaRepository.upsertAll(Stream.of(
+				new MemberImport("import1", 11, "importTeamB"),
+				new MemberImport("import2", 20, "importTeamA"),
+				new MemberImport("import3", 30, null),
+				// 같은 username 은 마지막 값
+				new MemberImport("import2", 21, "importTeamB")));
+
+		assertThat(result.inserted()).isEqualTo(2);
+		assertThat(result.updated()).isEqualTo(1);
+		assertThat(result.teamsCreated()).isEqualTo(1);
+
+		Member findMember1 = memberJpaRepository.findById(member1.getId()).get();
+		assertThat(findMember1.getAge()).isEqualTo(11);
+		assertThat(findMember1.getTeam().getName()).isEqualTo("importTeamB");
+		assertThat(findMember1.getVersion()).isEqualTo(member1.getVersion() + 1);
+
+		List<Member> import2 = memberJpaRepository.findByUsername("import2");
+		assertThat(import2).extracting("age").containsExactly(21);
+		assertThat(import2.get(0).getUsernameLower()).isEqualTo("import2");
+		assertThat(import2.get(0).getTeam().getId()).isEqualTo(findMember1.getTeam().getId());
+		assertThat(memberJpaRepository.findByUsername("import3").get(0).getTeam()).isNull();
+
+		// 저장한 id 와 Hibernate 가 만드는 id 가 겹치지 않아야 한다.
+		Member member4 = new Member("import4", 40);
+		memberJpaRepository.save(member4);
+		em.flush();
+		assertThat(member4.getId()).isNotIn(findMember1.getId(), import2.get(0).getId());
+	}
+}
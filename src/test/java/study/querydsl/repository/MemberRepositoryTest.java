@@ -161,4 +161,49 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void searchByPredicateTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("other4", 40, teamB));
+
+        QMember member = QMember.member;
+        // username 접두사 + age 범위 (v3/members/query?username=member&age=15&age=40)
+        Page<MemberTeamDto> result = memberRepository.searchByPredicate(
+                member.username.startsWith("member").and(member.age.between(15, 40)), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB", "teamA");
+    }
+
+    @Test
+    public void searchByUsernameIndexTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("Member2", 20, teamA));
+        em.persist(new Member("teamMember3", 30, teamA));
+        // 색인은 flush 때 발생하는 엔티티 이벤트로 반영된다.
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("member");
+        assertThat(memberRepository.search(condition))
+                .extracting("username").containsExactlyInAnyOrder("member1", "Member2");
+
+        condition = new MemberSearchCondition();
+        condition.setUsernameContains("MEMBER");
+        condition.setAgeGoe(20);
+        assertThat(memberRepository.search(condition))
+                .extracting("username").containsExactlyInAnyOrder("Member2", "teamMember3");
+    }
+
 }
\ No newline at end of file
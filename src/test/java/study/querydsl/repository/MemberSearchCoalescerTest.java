@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.limit.QueryLimits;
+import study.querydsl.limit.QueryScope;
+import study.querydsl.sql.MemberSqlRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MemberSearchCoalescerTest {
+
+	final MemberRepository memberRepository = mock(MemberRepository.class);
+	final MemberSearchCoalescer coalescer = new MemberSearchCoalescer(memberRepository, mock(MemberSqlRepository.class),
+			new SimpleMeterRegistry(), SearchEngine.JPA);
+
+	@AfterEach
+	public void after() {
+		QueryScope.restore(null);
+	}
+
+	@Test
+	public void leaderCancelDoesNotFailFollowers() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicReference<QueryScope> sharedScope = new AtomicReference<>();
+		AtomicInteger executed = new AtomicInteger();
+		when(memberRepository.searchPageComplex(any(), any())).thenAnswer(invocation -> {
+			executed.incrementAndGet();
+			sharedScope.set(QueryScope.current());
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			// 공유 쿼리 scope 가 취소됐다면 여기서 QueryTimeoutException
+			QueryScope.current().statementTimeoutMillis();
+			return new PageImpl<>(List.of(new MemberTeamDto(1L, "member1", 10, null, null)));
+		});
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		QueryLimits limits = new QueryLimits(3000, 0, 5000);
+		QueryScope leaderScope = QueryScope.open(limits);
+
+		CompletableFuture<Integer> leader = CompletableFuture.supplyAsync(() -> search(leaderScope, condition));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Integer> follower = CompletableFuture.supplyAsync(() -> search(QueryScope.open(limits), condition));
+		Thread.sleep(50);
+
+		// 먼저 온 요청의 클라이언트가 끊김
+		leaderScope.cancel();
+		release.countDown();
+
+		assertThat(sharedScope.get()).isNotSameAs(leaderScope);
+		assertThat(sharedScope.get().limits()).isEqualTo(limits);
+		assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(executed.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void differentBudgetsDoNotShare() throws Exception {
+		AtomicInteger executed = new AtomicInteger();
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		when(memberRepository.searchPageComplex(any(), any())).thenAnswer(invocation -> {
+			executed.incrementAndGet();
+			bothStarted.countDown();
+			bothStarted.await(5, TimeUnit.SECONDS);
+			return new PageImpl<>(List.<MemberTeamDto>of());
+		});
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		CompletableFuture<Integer> small = CompletableFuture.supplyAsync(
+				() -> search(QueryScope.open(new QueryLimits(0, 10, 0)), condition));
+		CompletableFuture<Integer> large = CompletableFuture.supplyAsync(
+				() -> search(QueryScope.open(new QueryLimits(0, 1000, 0)), condition));
+
+		small.get(5, TimeUnit.SECONDS);
+		large.get(5, TimeUnit.SECONDS);
+		assertThat(executed.get()).isEqualTo(2);
+	}
+
+	private int search(QueryScope scope, MemberSearchCondition condition) {
+		QueryScope previous = scope.bind();
+		try {
+			return coalescer.searchPageComplex(condition, PageRequest.of(0, 10)).getContent().size();
+		} finally {
+			QueryScope.restore(previous);
+		}
+	}
+}
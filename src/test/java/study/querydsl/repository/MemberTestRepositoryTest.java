@@ -0,0 +1,52 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	MemberTestRepository memberTestRepository;
+
+	@Test
+	public void oldestPerTeamTest() {
+		Team teamA = new Team("topNTeamA");
+		Team teamB = new Team("topNTeamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("topN1", 10, teamA));
+		em.persist(new Member("topN2", 30, teamA));
+		em.persist(new Member("topN3", 20, teamA));
+		em.persist(new Member("topN4", 40, teamB));
+		em.persist(new Member("topN5", 50, teamB));
+		em.persist(new Member("topN6", 60, null));
+		// 윈도 함수 조회는 querydsl-sql 로 하므로 flush 필요
+		em.flush();
+
+		List<MemberTeamDto> result = memberTestRepository.oldestPerTeam(2, "topN");
+
+		assertThat(result).extracting("username", "teamName").containsExactlyInAnyOrder(
+				tuple("topN2", "topNTeamA"),
+				tuple("topN3", "topNTeamA"),
+				tuple("topN5", "topNTeamB"),
+				tuple("topN4", "topNTeamB"),
+				tuple("topN6", null));
+	}
+}
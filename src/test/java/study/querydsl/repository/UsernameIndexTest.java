@@ -0,0 +1,107 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.outbox.OutboxRelay;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 커밋, 롤백 후 색인을 확인하므로 테스트 트랜잭션 없이 TransactionTemplate 으로 실행한다.
+ */
+@SpringBootTest
+class UsernameIndexTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	UsernameIndex usernameIndex;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JPAQueryFactory queryFactory;
+
+	@Autowired
+	OutboxRelay outboxRelay;
+
+	@Test
+	public void indexAfterCommit() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Long id = tx.execute(status -> {
+			Member saved = new Member("commitIndexMember", 10);
+			em.persist(saved);
+			em.flush();
+
+			// 같은 트랜잭션에서는 보이고, 다른 스레드에서는 커밋 전이라 보이지 않는다.
+			assertThat(usernameIndex.usernameStartsWith("commitIndex")).isEqualTo(member.id.in(Set.of(saved.getId())));
+			assertThat(fromOtherThread("commitIndex")).isEqualTo(member.id.isNull());
+			return saved.getId();
+		});
+		assertThat(fromOtherThread("commitIndex")).isEqualTo(member.id.in(Set.of(id)));
+
+		tx.executeWithoutResult(status -> {
+			em.remove(em.find(Member.class, id));
+			em.flush();
+			assertThat(usernameIndex.usernameContains("IndexMember")).isEqualTo(member.id.isNull());
+			assertThat(fromOtherThread("commitIndex")).isEqualTo(member.id.in(Set.of(id)));
+		});
+		assertThat(fromOtherThread("commitIndex")).isEqualTo(member.id.isNull());
+	}
+
+	@Test
+	public void rolledBackChangeNotIndexed() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			Member saved = new Member("rollbackIndexMember", 10);
+			em.persist(saved);
+			em.flush();
+			assertThat(usernameIndex.usernameStartsWith("rollbackIndex")).isEqualTo(member.id.in(Set.of(saved.getId())));
+			status.setRollbackOnly();
+		});
+
+		assertThat(usernameIndex.usernameStartsWith("rollbackIndex")).isEqualTo(member.id.isNull());
+	}
+
+	@Test
+	public void bulkRenameConvergesThroughOutbox() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Long id = tx.execute(status -> {
+			Member saved = new Member("bulkRenameBefore", 10);
+			em.persist(saved);
+			return saved.getId();
+		});
+
+		// 엔티티 리스너를 거치지 않는 벌크 update (다른 노드의 변경과 같다.)
+		tx.executeWithoutResult(status -> queryFactory
+				.update(member)
+				.set(member.username, "bulkRenameAfter")
+				.set(member.usernameLower, "bulkrenameafter")
+				.where(member.id.eq(id))
+				.execute());
+		outboxRelay.relayBatch();
+
+		assertThat(fromOtherThread("bulkRenameAfter")).isEqualTo(member.id.in(Set.of(id)));
+		assertThat(fromOtherThread("bulkRenameBefore")).isEqualTo(member.id.isNull());
+
+		tx.executeWithoutResult(status -> em.remove(em.find(Member.class, id)));
+		assertThat(fromOtherThread("bulkRenameAfter")).isEqualTo(member.id.isNull());
+	}
+
+	private BooleanExpression fromOtherThread(String prefix) {
+		return CompletableFuture.supplyAsync(() -> usernameIndex.usernameStartsWith(prefix)).join();
+	}
+}
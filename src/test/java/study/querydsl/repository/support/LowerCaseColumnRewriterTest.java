@@ -0,0 +1,67 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import org.junit.jupiter.api.Test;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+class LowerCaseColumnRewriterTest {
+
+	LowerCaseColumnRewriter rewriter = new LowerCaseColumnRewriter(Map.of(
+			Member.class, Map.of("username", "usernameLower")));
+
+	@Test
+	public void lowerFunction() {
+		// QuerydslBasicTest.sqlFunction2
+		assertThat(rewrite(member.username.eq(member.username.lower())).toString())
+				.isEqualTo("member.username = member.usernameLower");
+	}
+
+	@Test
+	public void ignoreCase() {
+		assertThat(rewrite(member.username.equalsIgnoreCase("Member1")).toString())
+				.isEqualTo("member.usernameLower = member1");
+		assertThat(rewrite(member.username.startsWithIgnoreCase("MEM")).toString())
+				.isEqualTo(member.usernameLower.startsWith("mem").toString());
+	}
+
+	@Test
+	public void upperComparison() {
+		assertThat(rewrite(member.username.upper().eq("MEMBER1")).toString())
+				.isEqualTo("member.usernameLower = member1");
+	}
+
+	@Test
+	public void upperComparisonWithMixedCase() {
+		// upper(username) 는 'Member1' 과 같을 수 없으므로 소문자 비교로 바꾸면 안 된다.
+		Predicate eq = member.username.upper().eq("Member1");
+		assertThat(rewrite(eq)).isEqualTo(eq);
+		Predicate ne = member.username.upper().ne("member1");
+		assertThat(rewrite(ne)).isEqualTo(ne);
+		assertThat(rewrite(member.username.upper().startsWith("MEM_1")).toString())
+				.isEqualTo(member.usernameLower.startsWith("mem_1").toString());
+	}
+
+	@Test
+	public void otherAlias() {
+		QMember m = new QMember("m");
+		assertThat(rewrite(m.username.lower().eq("member1").and(m.age.gt(10))).toString())
+				.isEqualTo("m.usernameLower = member1 && m.age > 10");
+	}
+
+	@Test
+	public void untouched() {
+		Predicate predicate = member.username.eq("member1");
+		assertThat(rewrite(predicate)).isSameAs(predicate);
+	}
+
+	private Expression<?> rewrite(Predicate predicate) {
+		return predicate.accept(rewriter, null);
+	}
+}
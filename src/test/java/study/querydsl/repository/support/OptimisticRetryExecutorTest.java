@@ -0,0 +1,102 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OptimisticRetryExecutorTest {
+
+	CountingTransactionManager transactionManager = new CountingTransactionManager();
+
+	// backoff 0ms
+	OptimisticRetryExecutor executor = new OptimisticRetryExecutor(transactionManager, 3, 0, 0);
+
+	AtomicInteger attempts = new AtomicInteger();
+
+	@Test
+	public void retryOnOptimisticLockException() {
+		String result = executor.execute(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new OptimisticLockException("conflict");
+			}
+			return "ok";
+		});
+
+		assertThat(result).isEqualTo("ok");
+		assertThat(attempts).hasValue(3);
+		// 시도마다 새 트랜잭션
+		assertThat(transactionManager.rollbacks).hasValue(2);
+		assertThat(transactionManager.commits).hasValue(1);
+	}
+
+	@Test
+	public void retryOnSpringOptimisticLockingFailure() {
+		executor.run(() -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new OptimisticLockingFailureException("conflict");
+			}
+		});
+
+		assertThat(attempts).hasValue(2);
+	}
+
+	@Test
+	public void giveUpAfterMaxAttempts() {
+		OptimisticLockException last = new OptimisticLockException("conflict 3");
+
+		assertThatThrownBy(() -> executor.run(() -> {
+			if (attempts.incrementAndGet() == 3) {
+				throw last;
+			}
+			throw new OptimisticLockException("conflict " + attempts.get());
+		})).isSameAs(last);
+
+		assertThat(attempts).hasValue(3);
+		assertThat(transactionManager.rollbacks).hasValue(3);
+		assertThat(transactionManager.commits).hasValue(0);
+	}
+
+	@Test
+	public void noRetryOnOtherException() {
+		assertThatThrownBy(() -> executor.run(() -> {
+			attempts.incrementAndGet();
+			throw new IllegalArgumentException("bad request");
+		})).isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(attempts).hasValue(1);
+		assertThat(transactionManager.rollbacks).hasValue(1);
+	}
+
+	static class CountingTransactionManager extends AbstractPlatformTransactionManager {
+
+		final AtomicInteger commits = new AtomicInteger();
+		final AtomicInteger rollbacks = new AtomicInteger();
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			commits.incrementAndGet();
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+			rollbacks.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+	@Test
+	public void coalesceConcurrentCalls() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			// 첫 요청이 실행 중인 동안 나머지 요청이 들어오도록 한다.
+			Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+				loads.incrementAndGet();
+				started.countDown();
+				await(release);
+				return "result";
+			}));
+			started.await();
+
+			List<Future<String>> followers = new ArrayList<>();
+			for (int i = 0; i < 7; i++) {
+				followers.add(executor.submit(() -> singleFlight.execute("key", () -> {
+					loads.incrementAndGet();
+					return "other";
+				})));
+			}
+			while (singleFlight.coalescedCount() < 7) {
+				Thread.onSpinWait();
+			}
+			release.countDown();
+
+			assertThat(leader.get()).isEqualTo("result");
+			for (Future<String> follower : followers) {
+				assertThat(follower.get()).isEqualTo("result");
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(loads.get()).isEqualTo(1);
+		assertThat(singleFlight.executedCount()).isEqualTo(1);
+		assertThat(singleFlight.inFlightCount()).isZero();
+	}
+
+	@Test
+	public void notCachedAfterCompletion() {
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		AtomicInteger loads = new AtomicInteger();
+
+		singleFlight.execute("key", loads::incrementAndGet);
+		singleFlight.execute("key", loads::incrementAndGet);
+
+		assertThat(loads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void propagateFailure() {
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+		assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+			throw new IllegalStateException("fail");
+		})).isInstanceOf(IllegalStateException.class);
+		assertThat(singleFlight.inFlightCount()).isZero();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+	@Test
+	public void startsWithAndContains() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1L, "member1");
+		index.put(2L, "Member2");
+		index.put(3L, "teamMember");
+		index.put(4L, "other");
+
+		// 대소문자 무시
+		assertThat(index.startsWith("MEM")).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(index.contains("ember")).containsExactlyInAnyOrder(1L, 2L, 3L);
+		// trigram 보다 짧은 검색어
+		assertThat(index.contains("th")).containsExactly(4L);
+		assertThat(index.contains("zzz")).isEmpty();
+	}
+
+	@Test
+	public void trigramsMustBeContiguous() {
+		TrigramIndex index = new TrigramIndex();
+		// "abcd" 의 trigram(abc, bcd)을 모두 갖지만 연속하지 않음
+		index.put(1L, "abcxbcd");
+
+		assertThat(index.contains("abcd")).isEmpty();
+	}
+
+	@Test
+	public void updateAndRemove() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1L, "member1");
+		index.put(1L, "renamed");
+
+		assertThat(index.startsWith("mem")).isEmpty();
+		assertThat(index.contains("name")).containsExactly(1L);
+
+		index.remove(1L);
+		assertThat(index.contains("name")).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+}
@@ -0,0 +1,221 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.JPAProvider;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.limit.QueryLimits;
+import study.querydsl.limit.QueryScope;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * QuerydslBasicTest.subQuery_ex1 ~ ex4 와 같은 모양을 rewriter 적용 전후로 비교
+ * 바뀐 JPQL 은 rewriter 를 직접 적용해서 확인한다.
+ */
+@SpringBootTest
+@Transactional
+class UncorrelatedSubQueryRewriterTest {
+
+	@Autowired
+	EntityManager em;
+
+	// RewritingJPAQueryFactory
+	@Autowired
+	JPAQueryFactory queryFactory;
+
+	@Autowired
+	UncorrelatedSubQueryRewriter rewriter;
+
+	JPAQueryFactory plainQueryFactory;
+
+	QMember memberSub = new QMember("memberSub");
+
+	@BeforeEach
+	public void before() {
+		plainQueryFactory = new JPAQueryFactory(em);
+		Team teamA = new Team("subQueryTeamA");
+		em.persist(teamA);
+		em.persist(new Member("subQuery1", 10, teamA));
+		em.persist(new Member("subQuery2", 20, teamA));
+		em.persist(new Member("subQuery3", 30, null));
+		em.persist(new Member("subQuery4", 40, null));
+	}
+
+	@Test
+	public void scalarAggregateInWhere() {
+		JPAQuery<Member> maxAge = plainQueryFactory
+				.selectFrom(member)
+				.where(member.age.eq(select(memberSub.age.max()).from(memberSub)));
+		// 값은 파라미터로 넘기고 원래 쿼리는 바꾸지 않는다.
+		assertThat(rewrittenJpql(maxAge))
+				.contains("where member1.age = cast(?1 as Integer)")
+				.doesNotContain("max(");
+		assertThat(maxAge.toString()).contains("select max(memberSub.age)");
+
+		JPAQuery<Member> avgAge = plainQueryFactory
+				.selectFrom(member)
+				.where(member.age.goe(select(memberSub.age.avg()).from(memberSub)));
+		assertThat(rewrittenJpql(avgAge))
+				.contains("where member1.age >= cast(?1 as Double)")
+				.doesNotContain("avg(");
+
+		assertSameMembers(factory -> factory
+				.selectFrom(member)
+				.where(member.age.eq(select(memberSub.age.max()).from(memberSub)))
+				.fetch());
+		assertSameMembers(factory -> factory
+				.selectFrom(member)
+				.where(member.age.goe(select(memberSub.age.avg()).from(memberSub)))
+				.fetch());
+	}
+
+	@Test
+	public void inSubQuery() {
+		assertThat(rewrittenJpql(plainQueryFactory
+				.selectFrom(member)
+				.where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(10))))))
+				.contains("where member1.age in ?1")
+				.doesNotContain("memberSub");
+		assertThat(rewrittenJpql(plainQueryFactory
+				.selectFrom(member)
+				.where(member.age.notIn(select(memberSub.age).from(memberSub).where(memberSub.age.gt(1000))))))
+				.contains("where 1 = 1");
+
+		assertSameMembers(factory -> factory
+				.selectFrom(member)
+				.where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(10))))
+				.fetch());
+		assertSameMembers(factory -> factory
+				.selectFrom(member)
+				.where(member.age.notIn(select(memberSub.age).from(memberSub).where(memberSub.age.gt(1000))))
+				.fetch());
+	}
+
+	@Test
+	public void inSubQueryFollowsQueryScope() {
+		JPAQuery<Member> query = plainQueryFactory
+				.selectFrom(member)
+				.where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.username.startsWith("subQuery"))),
+						member.username.eq("subQuery1"));
+
+		// 서브쿼리 결과(4건)가 max rows 보다 많으면 미리 실행하지 않고 그대로 둔다.
+		QueryScope previous = QueryScope.open(new QueryLimits(0, 2, 0)).bind();
+		try {
+			assertThat(rewrittenJpql(query)).contains("member1.age in (select memberSub.age");
+			assertThat(queryFactory
+					.selectFrom(member)
+					.where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.username.startsWith("subQuery"))),
+							member.username.eq("subQuery1"))
+					.fetch())
+					.extracting(Member::getUsername)
+					.containsExactly("subQuery1");
+		} finally {
+			QueryScope.restore(previous);
+		}
+		assertThat(rewrittenJpql(query)).contains("member1.age in ?1");
+	}
+
+	@Test
+	public void scalarAggregateInSelect() {
+		Expression<Double> avgAge = select(memberSub.age.avg()).from(memberSub);
+		List<Tuple> rewritten = queryFactory
+				.select(member.username, avgAge)
+				.from(member)
+				.where(member.username.startsWith("subQuery"))
+				.orderBy(member.username.asc())
+				.fetch();
+		List<Tuple> plain = plainQueryFactory
+				.select(member.username, avgAge)
+				.from(member)
+				.where(member.username.startsWith("subQuery"))
+				.orderBy(member.username.asc())
+				.fetch();
+
+		assertThat(rewritten).hasSize(4);
+		for (int i = 0; i < plain.size(); i++) {
+			assertThat(rewritten.get(i).get(member.username)).isEqualTo(plain.get(i).get(member.username));
+			// 원래 서브쿼리 식으로 꺼낼 수 있어야 한다.
+			assertThat(rewritten.get(i).get(avgAge)).isEqualTo(plain.get(i).get(avgAge));
+		}
+	}
+
+	@Test
+	public void correlatedSubQueryToGroupedIn() {
+		// 팀별 최고령 회원 (바깥 member 참조)
+		assertThat(UncorrelatedSubQueryRewriter.isUncorrelated(
+				select(memberSub.age.max()).from(memberSub).where(memberSub.team.eq(member.team)).getMetadata()))
+				.isFalse();
+		// 서브쿼리 안에서 같은 별칭을 다시 선언하면 바깥과 무관
+		assertThat(UncorrelatedSubQueryRewriter.isUncorrelated(
+				select(member.age.avg()).from(member).getMetadata()))
+				.isTrue();
+
+		assertThat(rewrittenJpql(plainQueryFactory
+				.selectFrom(member)
+				.where(member.age.eq(select(memberSub.age.max()).from(memberSub)
+						.where(memberSub.team.eq(member.team))))))
+				.contains("where (member1.team, member1.age) in (select memberSub.team, max(memberSub.age)")
+				.contains("group by memberSub.team)")
+				.doesNotContain("memberSub.team = member1.team");
+		assertThat(rewrittenJpql(plainQueryFactory
+				.selectFrom(member)
+				.where(member.age.eq(select(memberSub.age.min()).from(memberSub)
+						.where(member.team.eq(memberSub.team), memberSub.age.gt(10))))))
+				.contains("where (member1.team, member1.age) in (select memberSub.team, min(memberSub.age)")
+				.contains("where memberSub.age > ?1")
+				.contains("group by memberSub.team)");
+
+		assertSameMembers(factory -> factory
+				.selectFrom(member)
+				.where(member.age.eq(select(memberSub.age.max()).from(memberSub)
+						.where(memberSub.team.eq(member.team))))
+				.fetch());
+		assertSameMembers(factory -> factory
+				.selectFrom(member)
+				.where(member.age.eq(select(memberSub.age.min()).from(memberSub)
+						.where(member.team.eq(memberSub.team), memberSub.age.gt(10))))
+				.fetch());
+	}
+
+	@Test
+	public void correlatedCountUnchanged() {
+		// 일치하는 행이 없으면 count 는 0 이므로 group by 로 바꾸면 결과가 달라진다.
+		JPAQuery<Member> query = plainQueryFactory
+				.selectFrom(member)
+				.where(member.age.longValue().eq(select(memberSub.count()).from(memberSub)
+						.where(memberSub.team.eq(member.team))));
+		assertThat(rewrittenJpql(query)).isEqualTo(query.toString());
+	}
+
+	private String rewrittenJpql(JPAQuery<?> query) {
+		QueryMetadata metadata = query.getMetadata().clone();
+		rewriter.rewrite(metadata);
+		JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+		serializer.serialize(metadata, false, null);
+		return serializer.toString().trim();
+	}
+
+	private void assertSameMembers(Function<JPAQueryFactory, List<Member>> query) {
+		List<Member> rewritten = query.apply(queryFactory);
+		List<Member> plain = query.apply(plainQueryFactory);
+		assertThat(rewritten).containsExactlyInAnyOrderElementsOf(plain);
+	}
+}
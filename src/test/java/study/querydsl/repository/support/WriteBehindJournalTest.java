@@ -0,0 +1,109 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class WriteBehindJournalTest {
+
+	static final WriteBehindJournal.Key A1 = new WriteBehindJournal.Key("acme", 1L);
+	static final WriteBehindJournal.Key A2 = new WriteBehindJournal.Key("acme", 2L);
+	static final WriteBehindJournal.Key A3 = new WriteBehindJournal.Key("acme", 3L);
+	// 다른 tenant 의 같은 id
+	static final WriteBehindJournal.Key G1 = new WriteBehindJournal.Key("globex", 1L);
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void replayAfterCrash() throws Exception {
+		WriteBehindJournal journal = new WriteBehindJournal(dir, false);
+		journal.append(A1, 1);
+		journal.append(A1, 2);
+		journal.append(A2, -1);
+		journal.append(G1, 7);
+		// flush 하지 못하고 종료
+		journal.close();
+
+		WriteBehindJournal recovered = new WriteBehindJournal(dir, false);
+		assertThat(recovered.replay()).containsEntry(A1, 3).containsEntry(A2, -1).containsEntry(G1, 7).hasSize(3);
+		recovered.close();
+	}
+
+	@Test
+	public void skipTruncatedRecord() throws Exception {
+		WriteBehindJournal journal = new WriteBehindJournal(dir, false);
+		journal.append(A1, 1);
+		journal.append(G1, 2);
+		journal.close();
+		// 기록 도중 죽어서 마지막 레코드가 잘린 경우
+		try (Stream<Path> files = Files.list(dir)) {
+			Path segment = files.filter(file -> file.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+			byte[] bytes = Files.readAllBytes(segment);
+			Files.write(segment, Arrays.copyOf(bytes, bytes.length - 3));
+		}
+
+		WriteBehindJournal recovered = new WriteBehindJournal(dir, false);
+		assertThat(recovered.replay()).containsOnly(entry(A1, 1));
+		recovered.close();
+	}
+
+	@Test
+	public void deleteFlushedSegments() throws Exception {
+		WriteBehindJournal journal = new WriteBehindJournal(dir, false);
+		journal.append(A1, 1);
+		long flushed = journal.rotate();
+		long checkpoint = journal.checkpoint(flushed, Map.of(A1, 1));
+		journal.append(A2, 5);
+		// 첫 segment 는 DB 반영 완료
+		journal.complete(checkpoint);
+		journal.close();
+
+		WriteBehindJournal recovered = new WriteBehindJournal(dir, false);
+		assertThat(recovered.replay()).containsOnlyKeys(A2);
+		recovered.close();
+	}
+
+	@Test
+	public void skipAppliedChunksOnReplay() throws Exception {
+		WriteBehindJournal journal = new WriteBehindJournal(dir, false);
+		journal.append(A1, 1);
+		journal.append(A2, 2);
+		journal.append(A3, 3);
+		long checkpoint = journal.checkpoint(journal.rotate(), Map.of(A1, 1, A2, 2, A3, 3));
+		// 첫 chunk 만 커밋하고 종료
+		journal.markApplied(checkpoint, List.of(A1, A2));
+		journal.append(A3, 10);
+		journal.close();
+
+		WriteBehindJournal recovered = new WriteBehindJournal(dir, false);
+		assertThat(recovered.replay()).containsOnly(entry(A3, 13));
+		recovered.close();
+	}
+
+	@Test
+	public void checkpointReplacesPreviousCheckpoint() throws Exception {
+		WriteBehindJournal journal = new WriteBehindJournal(dir, false);
+		journal.append(A1, 1);
+		journal.append(A2, 2);
+		long first = journal.checkpoint(journal.rotate(), Map.of(A1, 1, A2, 2));
+		journal.markApplied(first, List.of(A1));
+		// A2 는 실패해서 버퍼로 돌아갔고, 다음 flush 의 checkpoint 에 새 변경과 함께 들어간다.
+		journal.append(A3, 3);
+		journal.checkpoint(journal.rotate(), Map.of(A2, 2, A3, 3));
+		journal.close();
+
+		WriteBehindJournal recovered = new WriteBehindJournal(dir, false);
+		assertThat(recovered.replay()).containsOnly(entry(A2, 2), entry(A3, 3));
+		recovered.close();
+	}
+}
@@ -0,0 +1,41 @@
+package study.querydsl.seed;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberImport;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeedDataGeneratorTest {
+
+	private static final SeedSpec SPEC = new SeedSpec(42, 50, 10_000, 1.0, 0.8, 0.02);
+
+	@Test
+	public void sameSeedSameData() {
+		List<MemberImport> first = new SeedDataGenerator(SPEC).members().toList();
+		List<MemberImport> second = new SeedDataGenerator(SPEC).members().toList();
+
+		assertThat(first).hasSize(10_000).isEqualTo(second);
+		assertThat(first).extracting(MemberImport::username).doesNotHaveDuplicates();
+	}
+
+	@Test
+	public void skewedTeamsAndAges() {
+		List<MemberImport> members = new SeedDataGenerator(SPEC).members().toList();
+		Map<String, Long> teamSizes = members.stream()
+				.map(MemberImport::teamName)
+				.filter(Objects::nonNull)
+				.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+		// Zipf(1.0): 1등 팀이 10등 팀보다 훨씬 크다.
+		assertThat(teamSizes.get(SeedDataGenerator.teamName(0)))
+				.isGreaterThan(teamSizes.get(SeedDataGenerator.teamName(9)) * 5);
+		assertThat(members).extracting(MemberImport::age).allMatch(age -> age >= 10 && age <= 90);
+		assertThat(members.stream().filter(m -> m.teamName() == null).count()).isBetween(100L, 300L);
+	}
+}
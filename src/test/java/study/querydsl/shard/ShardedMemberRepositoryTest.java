@@ -0,0 +1,207 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.tenant.TenantContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedMemberRepositoryTest {
+
+	ShardedMemberRepository repository;
+
+	List<Long> teamIds = new ArrayList<>();
+
+	// 샤드별로 커넥션을 얻은 횟수 (조회한 샤드 확인용)
+	List<AtomicInteger> connections = new ArrayList<>();
+
+	// 샤드마다 별도의 H2 메모리 DB
+	@BeforeEach
+	public void before() {
+		List<DataSource> dataSources = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			HikariDataSource dataSource = new HikariDataSource();
+			dataSource.setJdbcUrl("jdbc:h2:mem:shard" + i + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+			AtomicInteger count = new AtomicInteger();
+			connections.add(count);
+			dataSources.add(new CountingDataSource(dataSource, count));
+		}
+		repository = new ShardedMemberRepository(dataSources, true);
+		repository.initSchema();
+
+		for (int i = 0; i < 5; i++) {
+			teamIds.add(repository.saveTeam("team" + i));
+		}
+		for (int i = 0; i < 30; i++) {
+			repository.save("member" + i, i, teamIds.get(i % 5));
+		}
+	}
+
+	@AfterEach
+	public void after() throws Exception {
+		repository.close();
+	}
+
+	@Test
+	public void teamIdPinsOneShard() {
+		Long teamId = teamIds.get(1);
+		assertThat(repository.router().shardsFor(teamId)).hasSize(1);
+
+		List<MemberTeamDto> result = repository.searchByTeam(teamId, new MemberSearchCondition());
+		assertThat(result).hasSize(6);
+		assertThat(result).extracting("teamName").containsOnly("team1");
+		assertThat(result).extracting("teamId").containsOnly(teamId);
+	}
+
+	@Test
+	public void findByMemberId() {
+		MemberTeamDto found = repository.search(new MemberSearchCondition()).get(7);
+
+		assertThat(repository.findById(found.getMemberId())).contains(found);
+	}
+
+	@Test
+	public void scatterGather() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(10);
+		condition.setAgeLoe(19);
+
+		List<MemberTeamDto> result = repository.search(condition);
+		assertThat(result).extracting("age").containsExactlyInAnyOrder(10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+		// 전역 id 순
+		assertThat(result).extracting(MemberTeamDto::getMemberId).isSorted();
+
+	}
+
+	@Test
+	public void teamNamePinsOneShard() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("team2");
+		int shardNo = repository.router().shardForNewTeam("team2");
+
+		connections.forEach(count -> count.set(0));
+		assertThat(repository.search(condition)).hasSize(6)
+				.extracting("teamName").containsOnly("team2");
+		Page<MemberTeamDto> page = repository.searchPageComplex(condition, PageRequest.of(0, 4));
+		assertThat(page.getContent()).hasSize(4);
+		assertThat(page.getTotalElements()).isEqualTo(6);
+
+		// 팀이 있는 샤드만 조회한다.
+		for (int i = 0; i < connections.size(); i++) {
+			if (i == shardNo) {
+				assertThat(connections.get(i).get()).isPositive();
+			} else {
+				assertThat(connections.get(i).get()).isZero();
+			}
+		}
+	}
+
+	@Test
+	public void pageAcrossShards() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		List<MemberTeamDto> all = repository.search(condition);
+
+		Page<MemberTeamDto> page = repository.searchPageComplex(condition, PageRequest.of(2, 7));
+
+		assertThat(page.getTotalElements()).isEqualTo(30);
+		assertThat(page.getContent()).containsExactlyElementsOf(all.subList(14, 21));
+	}
+
+	@Test
+	public void likeWildcardIsLiteral() {
+		repository.save("shard_1", 40, null);
+		repository.save("shardx1", 41, null);
+		repository.save("50%off", 42, null);
+		repository.save("50xoff", 43, null);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernamePrefix("shard_");
+		assertThat(repository.search(condition)).extracting("username").containsExactly("shard_1");
+
+		condition = new MemberSearchCondition();
+		condition.setUsernameContains("0%o");
+		assertThat(repository.search(condition)).extracting("username").containsExactly("50%off");
+	}
+
+	@Test
+	public void tenantIsolated() {
+		String previous = TenantContext.bind("shardTenant");
+		try {
+			assertThat(repository.search(new MemberSearchCondition())).isEmpty();
+			// 같은 이름이라도 tenant 가 다르면 다른 팀
+			assertThat(repository.saveTeam("team1")).isNotEqualTo(teamIds.get(1));
+		} finally {
+			TenantContext.restore(previous);
+		}
+	}
+
+	@Test
+	public void concurrentSaveTeamReturnsSameTeam() throws Exception {
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<CompletableFuture<Long>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					await(start);
+					return repository.saveTeam("raceTeam");
+				}, executor));
+			}
+			start.countDown();
+
+			assertThat(futures).extracting(CompletableFuture::join).containsOnly(futures.get(0).join());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static class CountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+		private final HikariDataSource target;
+		private final AtomicInteger count;
+
+		CountingDataSource(HikariDataSource target, AtomicInteger count) {
+			super(target);
+			this.target = target;
+			this.count = count;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			count.incrementAndGet();
+			return super.getConnection();
+		}
+
+		@Override
+		public void close() {
+			target.close();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package study.querydsl.sql;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.tenant.TenantContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * R2DBC 는 다른 커넥션으로 읽으므로 테스트 데이터는 커밋하고 끝나면 지운다.
+ * DB 에 요청한 행 수는 limitRate 전의 fetch 결과로 확인한다.
+ */
+@SpringBootTest(properties = {"querydsl.reactive.enabled=true", "querydsl.reactive.prefetch=2"})
+class MemberReactiveRepositoryTest {
+
+	private static final String TENANT = "reactiveTenant";
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@SpyBean
+	MemberReactiveRepository memberReactiveRepository;
+
+	@BeforeEach
+	public void before() {
+		inTenant(TENANT, () -> new TransactionTemplate(transactionManager).execute(status -> {
+			Team team = new Team("reactiveTeam");
+			em.persist(team);
+			for (int i = 0; i < 10; i++) {
+				em.persist(new Member("reactiveMember" + i, i, team));
+			}
+			return null;
+		}));
+	}
+
+	@AfterEach
+	public void after() {
+		jdbcTemplate.update("delete from member where tenant_id = ?", TENANT);
+		jdbcTemplate.update("delete from team where tenant_id = ?", TENANT);
+	}
+
+	@Test
+	public void streamWithBackPressure() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("reactiveTeam");
+		condition.setAgeGoe(5);
+
+		List<Long> requested = new CopyOnWriteArrayList<>();
+		AtomicInteger fetched = new AtomicInteger();
+		doAnswer(invocation -> ((Flux<?>) invocation.callRealMethod())
+				.doOnRequest(requested::add)
+				.doOnNext(row -> fetched.incrementAndGet()))
+				.when(memberReactiveRepository).fetch(any());
+
+		Flux<MemberTeamDto> result = inTenant(TENANT, () -> memberReactiveRepository.search(condition));
+
+		// 구독자가 1건만 요청하면 DB 에는 prefetch(2)건만 요청하고 그 이상 읽지 않는다.
+		StepVerifier.create(result, 1)
+				.expectNextMatches(dto -> dto.getTeamName().equals("reactiveTeam") && dto.getAge() >= 5)
+				.then(() -> {
+					assertThat(requested).containsExactly(2L);
+					assertThat(fetched.get()).isLessThanOrEqualTo(2);
+				})
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(4)
+				.verifyComplete();
+
+		// 구독자가 전부 요청해도 DB 에는 prefetch 단위로만 요청한다.
+		assertThat(requested).allMatch(n -> n <= 2);
+		assertThat(requested.stream().mapToLong(Long::longValue).sum()).isGreaterThanOrEqualTo(5);
+		assertThat(fetched.get()).isEqualTo(5);
+	}
+
+	@Test
+	public void searchOnlyCurrentTenant() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernamePrefix("REACTIVEMEMBER");
+
+		StepVerifier.create(inTenant(TENANT, () -> memberReactiveRepository.search(condition)))
+				.expectNextCount(10)
+				.verifyComplete();
+		StepVerifier.create(inTenant("other", () -> memberReactiveRepository.search(condition)))
+				.verifyComplete();
+	}
+
+	private static <T> T inTenant(String tenant, Supplier<T> action) {
+		String previous = TenantContext.bind(tenant);
+		try {
+			return action.get();
+		} finally {
+			TenantContext.restore(previous);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package study.querydsl.sql;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	MemberSqlRepository memberSqlRepository;
+
+	@Autowired
+	MemberRepository memberRepository;
+
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("sqlTeamA");
+		Team teamB = new Team("sqlTeamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("sqlMember1", 10, teamA));
+		em.persist(new Member("sqlMember2", 20, teamA));
+		em.persist(new Member("SqlMember3", 30, teamB));
+		em.persist(new Member("sqlMember4", 40, null));
+		// querydsl-sql 은 영속성 컨텍스트를 거치지 않으므로 flush 필요
+		em.flush();
+	}
+
+	@Test
+	public void searchSameAsJpa() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernamePrefix("sqlmember");
+		condition.setAgeGoe(20);
+
+		List<MemberTeamDto> sqlResult = memberSqlRepository.search(condition);
+
+		assertThat(sqlResult).extracting("username", "teamName").containsExactlyInAnyOrder(
+				tuple("sqlMember2", "sqlTeamA"),
+				tuple("SqlMember3", "sqlTeamB"),
+				tuple("sqlMember4", null));
+		assertThat(sqlResult).containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+	}
+
+	@Test
+	public void searchPageComplexSameAsJpa() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("sqlTeamA");
+		PageRequest pageRequest = PageRequest.of(0, 1);
+
+		Page<MemberTeamDto> sqlPage = memberSqlRepository.searchPageComplex(condition, pageRequest);
+		Page<MemberTeamDto> jpaPage = memberRepository.searchPageComplex(condition, pageRequest);
+
+		assertThat(sqlPage.getTotalElements()).isEqualTo(2);
+		assertThat(sqlPage.getContent()).hasSize(1);
+		assertThat(sqlPage.getTotalElements()).isEqualTo(jpaPage.getTotalElements());
+	}
+}
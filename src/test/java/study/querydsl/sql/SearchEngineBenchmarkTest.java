@@ -0,0 +1,89 @@
+package study.querydsl.sql;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberImport;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * querydsl-jpa / querydsl-sql searchPageComplex 비교 (./gradlew searchBenchmark, 일반 test 에서는 제외)
+ * 데이터를 커밋하므로 별도 JVM 에서만 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "querydsl.warmup.enabled=false")
+class SearchEngineBenchmarkTest {
+
+	private static final int MEMBERS = 20_000;
+	private static final int WARMUP = 200;
+	private static final int ITERATIONS = 1_000;
+
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+
+	@Autowired
+	MemberRepository memberRepository;
+
+	@Autowired
+	MemberSqlRepository memberSqlRepository;
+
+	@Test
+	public void compareEngines() {
+		memberJpaRepository.upsertAll(IntStream.range(0, MEMBERS)
+				.mapToObj(i -> new MemberImport("bench" + i, i % 100, "benchTeam" + (i % 20))));
+
+		List<MemberSearchCondition> conditions = List.of(
+				condition(null, 20, 40),
+				condition("benchTeam3", null, null),
+				condition("benchTeam7", 50, null));
+		Pageable pageable = PageRequest.of(0, 20);
+
+		for (MemberSearchCondition condition : conditions) {
+			assertThat(memberSqlRepository.searchPageComplex(condition, pageable).getTotalElements())
+					.isEqualTo(memberRepository.searchPageComplex(condition, pageable).getTotalElements());
+		}
+
+		report("jpa", conditions, pageable, memberRepository::searchPageComplex);
+		report("sql", conditions, pageable, memberSqlRepository::searchPageComplex);
+	}
+
+	private void report(String engine, List<MemberSearchCondition> conditions, Pageable pageable,
+						BiFunction<MemberSearchCondition, Pageable, Page<MemberTeamDto>> search) {
+		for (int i = 0; i < WARMUP; i++) {
+			search.apply(conditions.get(i % conditions.size()), pageable);
+		}
+		long[] nanos = new long[ITERATIONS];
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+			search.apply(conditions.get(i % conditions.size()), pageable);
+			nanos[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+		System.out.printf("%s: avg %.3f ms, p50 %.3f ms, p99 %.3f ms%n", engine,
+				Arrays.stream(nanos).average().orElse(0) / 1_000_000,
+				nanos[ITERATIONS / 2] / 1_000_000.0,
+				nanos[ITERATIONS * 99 / 100] / 1_000_000.0);
+	}
+
+	private static MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName(teamName);
+		condition.setAgeGoe(ageGoe);
+		condition.setAgeLoe(ageLoe);
+		return condition;
+	}
+}
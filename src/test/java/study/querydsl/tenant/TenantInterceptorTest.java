@@ -0,0 +1,79 @@
+package study.querydsl.tenant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TenantInterceptorTest {
+
+	@AfterEach
+	public void after() {
+		TenantContext.restore(null);
+	}
+
+	@Test
+	public void bindHeaderTenant() throws Exception {
+		MockMvc mvc = mockMvc(false);
+
+		mvc.perform(get("/tenant").header(TenantInterceptor.HEADER, "acme"))
+				.andExpect(status().isOk())
+				.andExpect(content().string("acme"));
+		// 요청이 끝나면 풀린다.
+		assertThat(TenantContext.current()).isEqualTo(TenantContext.DEFAULT);
+	}
+
+	@Test
+	public void defaultWithoutHeader() throws Exception {
+		mockMvc(false).perform(get("/tenant"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(TenantContext.DEFAULT));
+	}
+
+	@Test
+	public void rejectMissingHeaderWhenRequired() throws Exception {
+		MockMvc mvc = mockMvc(true);
+
+		mvc.perform(get("/tenant"))
+				.andExpect(status().isBadRequest());
+		mvc.perform(get("/tenant").header(TenantInterceptor.HEADER, " "))
+				.andExpect(status().isBadRequest());
+		mvc.perform(get("/tenant").header(TenantInterceptor.HEADER, "acme"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void rejectInvalidHeader() throws Exception {
+		MockMvc mvc = mockMvc(false);
+
+		// ':' 는 캐시 key 구분자, '*' 는 ALL
+		mvc.perform(get("/tenant").header(TenantInterceptor.HEADER, "acme:1"))
+				.andExpect(status().isBadRequest());
+		mvc.perform(get("/tenant").header(TenantInterceptor.HEADER, TenantContext.ALL))
+				.andExpect(status().isBadRequest());
+		mvc.perform(get("/tenant").header(TenantInterceptor.HEADER, "a".repeat(65)))
+				.andExpect(status().isBadRequest());
+	}
+
+	private static MockMvc mockMvc(boolean required) {
+		return MockMvcBuilders.standaloneSetup(new TenantEchoController())
+				.addInterceptors(new TenantInterceptor(required))
+				.build();
+	}
+
+	@RestController
+	static class TenantEchoController {
+
+		@GetMapping("/tenant")
+		public String tenant() {
+			return TenantContext.current();
+		}
+	}
+}
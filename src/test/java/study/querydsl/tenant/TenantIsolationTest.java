@@ -0,0 +1,153 @@
+package study.querydsl.tenant;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberLookupCache;
+import study.querydsl.dto.MemberImport;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UpsertResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.sql.MemberSqlRepository;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class TenantIsolationTest {
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	MemberRepository memberRepository;
+
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+
+	@Autowired
+	MemberSqlRepository memberSqlRepository;
+
+	@Autowired
+	MemberLookupCache memberLookupCache;
+
+	@Test
+	public void searchOnlyCurrentTenant() {
+		Member acme = inTenant("acme", () -> persist("tenantTeam", "tenantMember", 10));
+		Member globex = inTenant("globex", () -> persist("tenantTeam", "tenantMember", 20));
+		em.flush();
+
+		assertThat(acme.getTenantId()).isEqualTo("acme");
+		assertThat(globex.getTenantId()).isEqualTo("globex");
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername("tenantMember");
+		condition.setTeamName("tenantTeam");
+
+		assertThat(inTenant("acme", () -> memberRepository.search(condition)))
+				.extracting(MemberTeamDto::getMemberId)
+				.containsExactly(acme.getId());
+		assertThat(inTenant("globex", () -> memberSqlRepository.search(condition)))
+				.extracting(MemberTeamDto::getMemberId)
+				.containsExactly(globex.getId());
+		assertThat(inTenant("other", () -> memberRepository.search(condition))).isEmpty();
+
+		// 색인도 tenant 별
+		MemberSearchCondition prefix = new MemberSearchCondition();
+		prefix.setUsernamePrefix("tenantMem");
+		assertThat(inTenant("globex", () -> memberRepository.search(prefix)))
+				.extracting(MemberTeamDto::getMemberId)
+				.containsExactly(globex.getId());
+
+		// 캐시도 tenant 별
+		assertThat(inTenant("acme", () -> memberLookupCache.findById(globex.getId()))).isEmpty();
+		assertThat(inTenant("globex", () -> memberLookupCache.findById(globex.getId()))).isPresent();
+	}
+
+	@Test
+	public void otherTenantCannotReadThroughRepositories() {
+		// 이 테스트에서는 RewritingJPAQuery 를 먼저 실행하지 않는다. (filter 가 호출 순서와 상관없이 켜지는지)
+		Member acme = inTenant("acme", () -> persist("crossTeam", "crossMember", 10));
+		em.flush();
+		em.clear();
+		Long id = acme.getId();
+
+		inTenant("globex", () -> {
+			assertThat(memberRepository.findById(id)).isEmpty();
+			assertThat(memberRepository.existsById(id)).isFalse();
+			assertThatThrownBy(() -> memberRepository.getReferenceById(id)).isInstanceOf(EntityNotFoundException.class);
+			assertThat(memberRepository.findByUsername("crossMember")).isEmpty();
+			assertThat(memberRepository.findAll()).extracting(Member::getId).doesNotContain(id);
+			assertThat(memberRepository.findAll(member.username.eq("crossMember"))).isEmpty();
+			assertThat(memberJpaRepository.findById(id)).isEmpty();
+			assertThat(memberJpaRepository.findByUsername("crossMember")).isEmpty();
+			assertThat(memberJpaRepository.findByUsername_Querydsl("crossMember")).isEmpty();
+			assertThat(memberJpaRepository.findAll()).extracting(Member::getId).doesNotContain(id);
+
+			// 다른 tenant 회원은 지워지지 않는다.
+			memberRepository.delete(acme);
+			return null;
+		});
+		em.flush();
+		em.clear();
+
+		inTenant("acme", () -> {
+			assertThat(memberRepository.findById(id)).isPresent();
+			assertThat(memberJpaRepository.findById(id)).isPresent();
+			assertThat(memberRepository.findByUsername("crossMember")).extracting(Member::getId).containsExactly(id);
+			assertThat(memberRepository.findAll(member.username.eq("crossMember"))).hasSize(1);
+			return null;
+		});
+	}
+
+	@Test
+	public void upsertWithinTenant() {
+		inTenant("acme", () -> persist("upsertTeam", "upsertMember", 10));
+		em.flush();
+
+		// 같은 username, 팀 이름이라도 다른 tenant 면 새로 만든다.
+		UpsertResult result = inTenant("globex", () -> memberJpaRepository.upsertAll(
+				Stream.of(new MemberImport("upsertMember", 30, "upsertTeam"))));
+
+		assertThat(result.inserted()).isEqualTo(1);
+		assertThat(result.updated()).isEqualTo(0);
+		assertThat(result.teamsCreated()).isEqualTo(1);
+	}
+
+	@Test
+	public void allTenantsCannotWrite() {
+		assertThatThrownBy(() -> inTenant(TenantContext.ALL, () -> {
+			em.persist(new Member("allMember", 10));
+			return null;
+		})).isInstanceOf(IllegalStateException.class);
+	}
+
+	private Member persist(String teamName, String username, int age) {
+		Team team = new Team(teamName);
+		em.persist(team);
+		Member member = new Member(username, age, team);
+		em.persist(member);
+		return member;
+	}
+
+	private static <T> T inTenant(String tenant, Supplier<T> action) {
+		String previous = TenantContext.bind(tenant);
+		try {
+			return action.get();
+		} finally {
+			TenantContext.restore(previous);
+		}
+	}
+}